@@ -0,0 +1,35 @@
+package beartecs.benchmark;
+
+import beartecs.swerve.SwerveModule;
+import beartecs.swerve.SwerveModuleFactory;
+import beartecs.swerve.config.Mk3ModuleConfiguration;
+import java.util.Random;
+
+final class BenchmarkUtils {
+  // Power of two so inputs can be cycled with a mask
+  static final int INPUT_COUNT = 1024;
+  static final int INPUT_MASK = INPUT_COUNT - 1;
+
+  private BenchmarkUtils() {
+  }
+
+  static SwerveModule createStubModule() {
+    return new SwerveModuleFactory<Void, Void>(
+        Mk3ModuleConfiguration.STANDARD,
+        (driveConfiguration, moduleConfiguration) -> new StubDriveController(),
+        (steerConfiguration, moduleConfiguration) -> new StubSteerController())
+        .create(null, null);
+  }
+
+  /**
+   * Precomputes inputs so the JIT cannot fold a benchmark into a constant.
+   */
+  static double[] randomInputs(long seed, double min, double max) {
+    Random random = new Random(seed);
+    double[] inputs = new double[INPUT_COUNT];
+    for (int i = 0; i < INPUT_COUNT; i++) {
+      inputs[i] = min + random.nextDouble() * (max - min);
+    }
+    return inputs;
+  }
+}
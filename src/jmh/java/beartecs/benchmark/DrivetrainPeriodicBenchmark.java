@@ -0,0 +1,77 @@
+package beartecs.benchmark;
+
+import static beartecs.benchmark.BenchmarkUtils.INPUT_MASK;
+
+import beartecs.swerve.SwerveModule;
+import beartecs.swerve.sim.PoseTelemetry;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import frc.robot.subsystems.DrivetrainSubsystem;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One {@link DrivetrainSubsystem#periodic()} on stub modules and a stub
+ * gyroscope: the sensor snapshot, odometry, kinematics, field telemetry and
+ * dashboard fields the robot runs every loop.
+ *
+ * <p>
+ * Runs the subsystem itself, so it needs the HAL simulation and NetworkTables
+ * natives in the forked JVM; {@code ./gradlew jmh} extracts them.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DrivetrainPeriodicBenchmark {
+  private static final double PERIOD = 0.02;
+
+  private final SwerveModule[] m_modules = new SwerveModule[4];
+  private final StubGyroscope m_gyro = new StubGyroscope();
+  private DrivetrainSubsystem m_drivetrain;
+
+  private ChassisSpeeds[] m_speeds;
+  private int m_index = 0;
+  private double m_heading = 0;
+
+  @Setup
+  public void setup() {
+    HAL.initialize(500, 0);
+    for (int i = 0; i < m_modules.length; i++) {
+      m_modules[i] = BenchmarkUtils.createStubModule();
+    }
+    m_drivetrain = new DrivetrainSubsystem(m_gyro, layout -> m_modules, new PoseTelemetry());
+
+    final double[] vx = BenchmarkUtils.randomInputs(1, -4.0, 4.0);
+    final double[] vy = BenchmarkUtils.randomInputs(2, -4.0, 4.0);
+    final double[] omega = BenchmarkUtils.randomInputs(3, -Math.PI, Math.PI);
+    m_speeds = new ChassisSpeeds[vx.length];
+    for (int i = 0; i < m_speeds.length; i++) {
+      m_speeds[i] = new ChassisSpeeds(vx[i], vy[i], omega[i]);
+    }
+  }
+
+  @Benchmark
+  public Pose2d periodic() {
+    final int index = m_index++ & INPUT_MASK;
+    final ChassisSpeeds speeds = m_speeds[index];
+    m_heading += Math.toDegrees(speeds.omegaRadiansPerSecond) * PERIOD;
+    m_gyro.setAngle(m_heading);
+    m_drivetrain.setModuleStates(speeds);
+    m_drivetrain.periodic();
+    return m_drivetrain.getPose();
+  }
+}
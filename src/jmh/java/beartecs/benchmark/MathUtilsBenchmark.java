@@ -0,0 +1,49 @@
+package beartecs.benchmark;
+
+import static beartecs.benchmark.BenchmarkUtils.INPUT_MASK;
+
+import beartecs.math.MathUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MathUtilsBenchmark {
+  private double[] m_currentAngles;
+  private double[] m_nearAngles;
+  private double[] m_farAngles;
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    m_currentAngles = BenchmarkUtils.randomInputs(1, -720.0, 720.0);
+    m_nearAngles = BenchmarkUtils.randomInputs(2, -180.0, 180.0);
+    // Several turns away exercises the wrapping loops
+    m_farAngles = BenchmarkUtils.randomInputs(3, -3600.0, 3600.0);
+  }
+
+  @Benchmark
+  public double normalizeInPlace() {
+    final int i = m_index++ & INPUT_MASK;
+    return MathUtils.normalizeInPlace(m_currentAngles[i], m_nearAngles[i]);
+  }
+
+  @Benchmark
+  public double normalizeInPlaceFar() {
+    final int i = m_index++ & INPUT_MASK;
+    return MathUtils.normalizeInPlace(m_currentAngles[i], m_farAngles[i]);
+  }
+}
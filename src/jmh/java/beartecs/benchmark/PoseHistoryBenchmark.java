@@ -0,0 +1,86 @@
+package beartecs.benchmark;
+
+import static beartecs.benchmark.BenchmarkUtils.INPUT_MASK;
+
+import beartecs.math.InterpolatingTreeMap;
+import beartecs.math.PoseHistoryBuffer;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lag compensation lookups and inserts, {@link InterpolatingTreeMap} against
+ * {@link PoseHistoryBuffer}, with a history filled at the 50hz loop rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PoseHistoryBenchmark {
+  private static final double PERIOD = 0.02;
+
+  @Param({ "25", "250" })
+  public int entries;
+
+  private InterpolatingTreeMap<Pose2d> m_treeMap;
+  private PoseHistoryBuffer m_buffer;
+  private final double[] m_sample = new double[3];
+  private double[] m_lookupTimes;
+  private int m_index = 0;
+  private double m_time;
+
+  @Setup
+  public void setup() {
+    final double history = entries * PERIOD;
+    m_treeMap = InterpolatingTreeMap.createBuffer(history);
+    m_buffer = new PoseHistoryBuffer(entries, history);
+    for (int i = 0; i < entries; i++) {
+      addSample(i * PERIOD);
+    }
+    m_time = entries * PERIOD;
+    m_lookupTimes = BenchmarkUtils.randomInputs(1, 0, m_time);
+  }
+
+  private void addSample(double time) {
+    final double x = Math.cos(time);
+    final double y = Math.sin(time);
+    m_treeMap.addSample(time, new Pose2d(x, y, new Rotation2d(time)));
+    m_buffer.addSample(time, x, y, time);
+  }
+
+  @Benchmark
+  public Pose2d treeMapGetSample() {
+    return m_treeMap.getSample(m_lookupTimes[m_index++ & INPUT_MASK]);
+  }
+
+  @Benchmark
+  public double[] bufferGetSample() {
+    m_buffer.getSample(m_lookupTimes[m_index++ & INPUT_MASK], m_sample);
+    return m_sample;
+  }
+
+  @Benchmark
+  public void treeMapAddSample() {
+    m_time += PERIOD;
+    m_treeMap.addSample(m_time, new Pose2d(Math.cos(m_time), Math.sin(m_time), new Rotation2d(m_time)));
+  }
+
+  @Benchmark
+  public void bufferAddSample() {
+    m_time += PERIOD;
+    m_buffer.addSample(m_time, Math.cos(m_time), Math.sin(m_time), m_time);
+  }
+}
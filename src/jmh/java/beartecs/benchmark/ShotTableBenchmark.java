@@ -0,0 +1,75 @@
+package beartecs.benchmark;
+
+import static beartecs.benchmark.BenchmarkUtils.INPUT_MASK;
+
+import beartecs.math.InterpolatingTreeMap;
+import beartecs.math.MathUtils;
+import beartecs.math.ShotTable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shot lookups by distance, an {@link InterpolatingTreeMap} of
+ * {speed, angle, time of flight} arrays against {@link ShotTable}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShotTableBenchmark {
+  private static final double MIN_DISTANCE = 1.0;
+  private static final double MAX_DISTANCE = 8.0;
+
+  @Param({ "8", "64" })
+  public int rows;
+
+  private InterpolatingTreeMap<double[]> m_treeMap;
+  private ShotTable m_table;
+  private final double[] m_shot = new double[3];
+  private double[] m_distances;
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    m_treeMap = InterpolatingTreeMap.createBuffer(
+        (start, end, t) -> new double[] {
+            MathUtils.lerp(start[0], end[0], t),
+            MathUtils.lerp(start[1], end[1], t),
+            MathUtils.lerp(start[2], end[2], t) },
+        Double.POSITIVE_INFINITY);
+    double[][] tableRows = new double[rows][];
+    for (int i = 0; i < rows; i++) {
+      final double distance = MIN_DISTANCE + i * (MAX_DISTANCE - MIN_DISTANCE) / (rows - 1);
+      final double speed = 8000 + 600 * distance;
+      final double angle = 5 + 3 * distance;
+      final double timeOfFlight = 0.5 + 0.13 * distance;
+      tableRows[i] = new double[] { distance, speed, angle, timeOfFlight };
+      m_treeMap.addSample(distance, new double[] { speed, angle, timeOfFlight });
+    }
+    m_table = new ShotTable(tableRows);
+    m_distances = BenchmarkUtils.randomInputs(1, MIN_DISTANCE, MAX_DISTANCE);
+  }
+
+  @Benchmark
+  public double[] treeMapGet() {
+    return m_treeMap.getSample(m_distances[m_index++ & INPUT_MASK]);
+  }
+
+  @Benchmark
+  public double[] tableGet() {
+    m_table.get(m_distances[m_index++ & INPUT_MASK], m_shot);
+    return m_shot;
+  }
+}
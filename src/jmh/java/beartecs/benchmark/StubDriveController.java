@@ -0,0 +1,51 @@
+package beartecs.benchmark;
+
+import beartecs.swerve.DriveController;
+
+/**
+ * A drive controller without hardware that reports the last velocity it was
+ * asked for, so benchmarks only measure our own code.
+ */
+public class StubDriveController implements DriveController {
+  private double m_velocity = 0;
+  private double m_voltage = 0;
+
+  @Override
+  public Object getDriveMotor() {
+    return null;
+  }
+
+  @Override
+  public void setVelocity(double velocity) {
+    m_velocity = velocity;
+  }
+
+  @Override
+  public void setReferenceVoltage(double voltage) {
+    m_voltage = voltage;
+  }
+
+  @Override
+  public double getVelocity() {
+    return m_velocity;
+  }
+
+  @Override
+  public double getOutputVoltage() {
+    return m_voltage;
+  }
+
+  @Override
+  public void resetEncoder() {
+    m_velocity = 0;
+  }
+
+  @Override
+  public void setDriveEncoder(double position, double velocity) {
+    m_velocity = velocity;
+  }
+
+  @Override
+  public void configRampRate(double rampRate) {
+  }
+}
@@ -0,0 +1,32 @@
+package beartecs.benchmark;
+
+import beartecs.swerve.Gyroscope;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * A gyroscope without hardware whose angle is set by the benchmark, so
+ * benchmarks only measure our own code.
+ */
+public class StubGyroscope implements Gyroscope {
+  private double m_angle = 0;
+
+  @Override
+  public Rotation2d getGyroRotation() {
+    return Rotation2d.fromDegrees(m_angle);
+  }
+
+  @Override
+  public void zeroGyro() {
+    m_angle = 0;
+  }
+
+  @Override
+  public double getGyroRate() {
+    return 0;
+  }
+
+  @Override
+  public void setAngle(double angle) {
+    m_angle = angle;
+  }
+}
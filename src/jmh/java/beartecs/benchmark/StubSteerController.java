@@ -0,0 +1,49 @@
+package beartecs.benchmark;
+
+import beartecs.swerve.AbsoluteEncoder;
+import beartecs.swerve.SteerController;
+
+/**
+ * A steer controller without hardware that reaches its reference angle
+ * instantly, so benchmarks only measure our own code.
+ */
+public class StubSteerController implements SteerController {
+  private double m_referenceAngle = 0;
+  private double m_stateAngle = 0;
+
+  @Override
+  public Object getSteerMotor() {
+    return null;
+  }
+
+  @Override
+  public AbsoluteEncoder getSteerEncoder() {
+    return null;
+  }
+
+  @Override
+  public double getReferenceAngle() {
+    return m_referenceAngle;
+  }
+
+  @Override
+  public void setReferenceAngle(double referenceAngleRadians) {
+    m_referenceAngle = referenceAngleRadians;
+    m_stateAngle = referenceAngleRadians;
+  }
+
+  @Override
+  public double getStateAngle() {
+    return m_stateAngle;
+  }
+
+  @Override
+  public double getOutputVoltage() {
+    return 0;
+  }
+
+  @Override
+  public void setSteerEncoder(double position, double velocity) {
+    m_stateAngle = position;
+  }
+}
@@ -0,0 +1,53 @@
+package beartecs.benchmark;
+
+import static beartecs.benchmark.BenchmarkUtils.INPUT_MASK;
+
+import beartecs.swerve.SwerveModule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code SwerveModuleFactory.ModuleImplementation} driving stub controllers.
+ * {@link #set()} reads the calibration entries, so it needs the NetworkTables
+ * natives the jmh task puts on the library path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveModuleBenchmark {
+  private SwerveModule m_module;
+  private double[] m_velocities;
+  private double[] m_angles;
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    m_module = BenchmarkUtils.createStubModule();
+    m_velocities = BenchmarkUtils.randomInputs(1, -4.0, 4.0);
+    m_angles = BenchmarkUtils.randomInputs(2, -2.0 * Math.PI, 2.0 * Math.PI);
+  }
+
+  @Benchmark
+  public void setVelocity() {
+    final int i = m_index++ & INPUT_MASK;
+    m_module.setVelocity(m_velocities[i], m_angles[i]);
+  }
+
+  @Benchmark
+  public void set() {
+    final int i = m_index++ & INPUT_MASK;
+    m_module.set(m_velocities[i], m_angles[i]);
+  }
+}
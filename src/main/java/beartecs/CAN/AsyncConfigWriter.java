@@ -0,0 +1,144 @@
+package beartecs.CAN;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ctre.phoenix.ErrorCode;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Sends device config writes from a background thread so the main loop never
+ * waits on a CAN config transaction.
+ *
+ * <p>
+ * Writes are keyed: submitting a write under a key that is still pending
+ * replaces it, so only the newest settings are ever sent. Every call of a write
+ * waits for the device to acknowledge; if one fails the whole write is retried
+ * up to {@link #MAX_ATTEMPTS} times unless a newer write has replaced it in the
+ * meantime. The calls of a write must therefore be safe to repeat.
+ * </p>
+ */
+public class AsyncConfigWriter {
+  @FunctionalInterface
+  public interface ConfigCall {
+    ErrorCode apply(int timeoutMs);
+  }
+
+  public static final int CONFIG_TIMEOUT_MS = 50;
+  public static final int MAX_ATTEMPTS = 3;
+  public static final long RETRY_DELAY_MS = 100;
+
+  private static AsyncConfigWriter instance;
+
+  private final Map<String, Write> m_pending = new LinkedHashMap<>();
+  private int m_failures = 0;
+  private boolean m_busy = false;
+
+  public static synchronized AsyncConfigWriter getInstance() {
+    if (instance == null) {
+      instance = new AsyncConfigWriter("CAN-ConfigWriter");
+    }
+    return instance;
+  }
+
+  /**
+   * Creates the writer and starts its thread.
+   *
+   * @param threadName The name of the writer thread
+   */
+  public AsyncConfigWriter(String threadName) {
+    Thread thread = new Thread(this::run, threadName);
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  /**
+   * Queues a write, replacing a pending write with the same key. Never blocks
+   * on the CAN bus.
+   *
+   * @param key   Identifies the settings being written, e.g. device and setting
+   * @param calls The config calls, each given the timeout to wait for
+   */
+  public synchronized void submit(String key, ConfigCall... calls) {
+    m_pending.put(key, new Write(key, calls, 1));
+    notifyAll();
+  }
+
+  /**
+   * @return Whether nothing is queued or being written
+   */
+  public synchronized boolean isIdle() {
+    return m_pending.isEmpty() && !m_busy;
+  }
+
+  /**
+   * @return The number of writes that failed every attempt
+   */
+  public synchronized int getFailureCount() {
+    return m_failures;
+  }
+
+  private void run() {
+    while (true) {
+      final Write write;
+      synchronized (this) {
+        m_busy = false;
+        while (m_pending.isEmpty()) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        Iterator<Write> it = m_pending.values().iterator();
+        write = it.next();
+        it.remove();
+        m_busy = true;
+      }
+
+      ErrorCode error = ErrorCode.OK;
+      for (ConfigCall call : write.calls) {
+        error = call.apply(CONFIG_TIMEOUT_MS);
+        if (error != ErrorCode.OK) {
+          break;
+        }
+      }
+      if (error == ErrorCode.OK) {
+        continue;
+      }
+
+      synchronized (this) {
+        if (m_pending.containsKey(write.key)) {
+          continue; // Replaced by newer settings
+        }
+        if (write.attempt >= MAX_ATTEMPTS) {
+          m_failures++;
+          DriverStation.reportError(String.format("Failed to write %s after %d attempts: %s", write.key,
+              write.attempt, error), false);
+          continue;
+        }
+        m_pending.put(write.key, new Write(write.key, write.calls, write.attempt + 1));
+      }
+      try {
+        Thread.sleep(RETRY_DELAY_MS);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private static class Write {
+    final String key;
+    final ConfigCall[] calls;
+    final int attempt;
+
+    Write(String key, ConfigCall[] calls, int attempt) {
+      this.key = key;
+      this.calls = calls;
+      this.attempt = attempt;
+    }
+  }
+}
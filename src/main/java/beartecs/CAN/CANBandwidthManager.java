@@ -0,0 +1,329 @@
+package beartecs.CAN;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+
+import beartecs.Constants.StatusFrames;
+import beartecs.configs.FrameRateConfig;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Owns the status frame period of every registered device on every CAN bus.
+ *
+ * <p>
+ * Each frame has a {@link FrameRateConfig} with a period per {@link Mode}; the
+ * whole robot switches profile with {@link #setMode(Mode)}. {@link #periodic()}
+ * samples the utilization of every bus that has a utilization source and, while
+ * a bus stays above {@link StatusFrames#HIGH_UTILIZATION_PERCENT}, doubles the
+ * periods of its stretchable frames up to {@link #MAX_STRETCH} times their mode
+ * period. Once it drops below {@link StatusFrames#LOW_UTILIZATION_PERCENT} the
+ * periods are halved again.
+ * </p>
+ * <p>
+ * Only the rio bus reports its utilization through
+ * {@link RobotController#getCANStatus()}; Phoenix 5 has no equivalent for a
+ * CANivore, so frames on a CANivore only follow the mode unless a source is
+ * given with {@link #setUtilizationSource(String, DoubleSupplier)}.
+ * </p>
+ * <p>
+ * Frames are only sent when their period changes and nothing waits for the
+ * device on the main thread. The first period of a frame is queued on the
+ * {@link DeviceConfigExecutor} with the rest of the boot configuration, later
+ * changes go through the {@link AsyncConfigWriter}. Either way a period only
+ * counts as applied once the device acknowledged it.
+ * Periods that were never acknowledged are sent again every
+ * {@link #RESYNC_PERIOD_SEC}, and all frames of a device are sent again as
+ * soon as it reports a reset, since it then runs its default periods.
+ * </p>
+ */
+public class CANBandwidthManager {
+  public enum Mode {
+    DISABLED, AUTONOMOUS, TELEOP, SYSID
+  }
+
+  @FunctionalInterface
+  public interface FrameSetter {
+    ErrorCode setPeriod(int periodMs, int timeoutMs);
+  }
+
+  public static final String RIO_BUS = "rio";
+  public static final int MAX_STRETCH = 4;
+  public static final double SAMPLE_PERIOD_SEC = 0.25;
+  public static final double HOLD_TIME_SEC = 1.0; // Minimum time between two stretch changes on a bus
+  public static final double RESYNC_PERIOD_SEC = 5.0;
+  private static final double FILTER_GAIN = 0.3;
+
+  private static CANBandwidthManager instance;
+
+  private final Map<String, Bus> buses = new LinkedHashMap<>();
+  private final Map<Object, Device> devices = new IdentityHashMap<>();
+  private Mode mode = Mode.DISABLED;
+  private double nextSampleTime = 0;
+  private double nextResyncTime = 0;
+
+  public static synchronized CANBandwidthManager getInstance() {
+    if (instance == null) {
+      instance = new CANBandwidthManager();
+    }
+    return instance;
+  }
+
+  public CANBandwidthManager() {
+    setUtilizationSource(RIO_BUS, () -> RobotController.getCANStatus().percentBusUtilization);
+  }
+
+  /**
+   * @param canBus             The bus to measure
+   * @param percentUtilization Supplies the bus utilization from 0 to 100
+   */
+  public void setUtilizationSource(String canBus, DoubleSupplier percentUtilization) {
+    getBus(canBus).utilization = percentUtilization;
+  }
+
+  /**
+   * Registers a status frame and queues setting it to the period of the current
+   * mode, see {@link DeviceConfigExecutor#awaitAll()}.
+   *
+   * @param canBus The bus the device is on
+   * @param name   A description of the frame for error messages
+   * @param rates  The frame periods
+   * @param setter Sets the period of the frame on the device
+   */
+  public void registerFrame(String canBus, String name, FrameRateConfig rates, FrameSetter setter) {
+    registerFrame(canBus, null, name, rates, setter);
+  }
+
+  public void registerTalon(String canBus, String name, BaseTalon motor, StatusFrameEnhanced frame,
+      FrameRateConfig rates) {
+    registerFrame(canBus, getDevice(motor, name, motor::hasResetOccurred), name + " " + frame, rates,
+        (periodMs, timeoutMs) -> motor.setStatusFramePeriod(frame, periodMs, timeoutMs));
+  }
+
+  public void registerTalon(String canBus, String name, BaseTalon motor, StatusFrame frame,
+      FrameRateConfig rates) {
+    registerFrame(canBus, getDevice(motor, name, motor::hasResetOccurred), name + " " + frame, rates,
+        (periodMs, timeoutMs) -> motor.setStatusFramePeriod(frame, periodMs, timeoutMs));
+  }
+
+  public void registerCANCoder(String canBus, String name, CANCoder encoder, CANCoderStatusFrame frame,
+      FrameRateConfig rates) {
+    registerFrame(canBus, getDevice(encoder, name, encoder::hasResetOccurred), name + " " + frame, rates,
+        (periodMs, timeoutMs) -> encoder.setStatusFramePeriod(frame, periodMs, timeoutMs));
+  }
+
+  private void registerFrame(String canBus, Device device, String name, FrameRateConfig rates,
+      FrameSetter setter) {
+    Bus bus = getBus(canBus);
+    Frame frame = new Frame(name, device, rates, setter);
+    bus.frames.add(frame);
+    frame.requestedMs = getPeriodMs(bus, frame);
+    DeviceConfigExecutor.getInstance().configure(canBus, name)
+        .ctre("status frame period", timeoutMs -> {
+          // The mode may have changed since registering, a stale period is caught by the resync
+          final int periodMs = frame.requestedMs;
+          final ErrorCode error = setter.setPeriod(periodMs, timeoutMs);
+          if (error == ErrorCode.OK) {
+            frame.appliedMs = periodMs;
+          }
+          return error;
+        })
+        .submit();
+  }
+
+  private Device getDevice(Object handle, String name, BooleanSupplier hasResetOccurred) {
+    return devices.computeIfAbsent(handle, key -> new Device(name, hasResetOccurred));
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Switches every registered frame to the periods of a mode.
+   *
+   * @param mode The new robot mode
+   */
+  public void setMode(Mode mode) {
+    if (this.mode == mode) {
+      return;
+    }
+    this.mode = mode;
+    for (Bus bus : buses.values()) {
+      applyAll(bus);
+    }
+  }
+
+  /**
+   * Samples the bus utilizations and stretches or restores the frame periods.
+   * Call once per loop.
+   */
+  public void periodic() {
+    final double now = Timer.getFPGATimestamp();
+    if (now < nextSampleTime) {
+      return;
+    }
+    nextSampleTime = now + SAMPLE_PERIOD_SEC;
+
+    for (Bus bus : buses.values()) {
+      if (bus.utilization == null) {
+        continue;
+      }
+      final double utilization = bus.utilization.getAsDouble();
+      bus.filtered = Double.isNaN(bus.filtered) ? utilization
+          : bus.filtered + FILTER_GAIN * (utilization - bus.filtered);
+      if (now - bus.lastChangeTime < HOLD_TIME_SEC) {
+        continue;
+      }
+
+      int stretch = bus.stretch;
+      if (bus.filtered > StatusFrames.HIGH_UTILIZATION_PERCENT && stretch < MAX_STRETCH) {
+        stretch *= 2;
+      } else if (bus.filtered < StatusFrames.LOW_UTILIZATION_PERCENT && stretch > 1) {
+        stretch /= 2;
+      }
+      if (stretch != bus.stretch) {
+        DriverStation.reportWarning(String.format("CAN bus %s at %.0f%%, stretching status frames %dx", bus.name,
+            bus.filtered, stretch), false);
+        bus.stretch = stretch;
+        bus.lastChangeTime = now;
+        applyAll(bus);
+      }
+    }
+
+    resync(now);
+  }
+
+  /**
+   * Sends the frames of devices that reset again, and every
+   * {@link #RESYNC_PERIOD_SEC} the frames whose period was never acknowledged.
+   */
+  private void resync(double now) {
+    final boolean resyncUnconfirmed = now >= nextResyncTime;
+    if (resyncUnconfirmed) {
+      nextResyncTime = now + RESYNC_PERIOD_SEC;
+    }
+    for (Device device : devices.values()) {
+      // Reading the flag clears it, so it is read once for all frames of the device
+      device.reset = device.hasResetOccurred.getAsBoolean();
+      if (device.reset) {
+        DriverStation.reportWarning(device.name + " reset, restoring its status frame periods", false);
+      }
+    }
+    for (Bus bus : buses.values()) {
+      for (Frame frame : bus.frames) {
+        if ((frame.device != null && frame.device.reset)
+            || (resyncUnconfirmed && frame.appliedMs != frame.requestedMs)) {
+          send(frame, frame.requestedMs);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The filtered utilization of a bus in percent, NaN if it is not
+   *         measured
+   */
+  public double getUtilization(String canBus) {
+    Bus bus = buses.get(canBus);
+    return bus == null ? Double.NaN : bus.filtered;
+  }
+
+  /**
+   * @return How many times the stretchable frames on a bus are slowed down
+   */
+  public int getStretch(String canBus) {
+    Bus bus = buses.get(canBus);
+    return bus == null ? 1 : bus.stretch;
+  }
+
+  private Bus getBus(String canBus) {
+    return buses.computeIfAbsent(canBus, Bus::new);
+  }
+
+  private void applyAll(Bus bus) {
+    for (Frame frame : bus.frames) {
+      final int periodMs = getPeriodMs(bus, frame);
+      if (periodMs != frame.requestedMs) {
+        send(frame, periodMs);
+      }
+    }
+  }
+
+  private int getPeriodMs(Bus bus, Frame frame) {
+    int periodMs = frame.rates.getPeriodMs(mode);
+    if (frame.rates.MAX_MS > periodMs) {
+      periodMs = Math.min(frame.rates.MAX_MS, periodMs * bus.stretch);
+    }
+    return periodMs;
+  }
+
+  /**
+   * Queues a period change on the {@link AsyncConfigWriter}; it is only
+   * recorded as applied once the device acknowledges it.
+   */
+  private void send(Frame frame, int periodMs) {
+    frame.requestedMs = periodMs;
+    AsyncConfigWriter.getInstance().submit("Status frame " + frame.name, timeoutMs -> {
+      ErrorCode error = frame.setter.setPeriod(periodMs, timeoutMs);
+      if (error == ErrorCode.OK) {
+        frame.appliedMs = periodMs;
+      }
+      return error;
+    });
+  }
+
+  private static class Bus {
+    final String name;
+    final List<Frame> frames = new ArrayList<>();
+    DoubleSupplier utilization;
+    double filtered = Double.NaN;
+    double lastChangeTime = Double.NEGATIVE_INFINITY;
+    int stretch = 1;
+
+    Bus(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Frame {
+    final String name;
+    final Device device;
+    final FrameRateConfig rates;
+    final FrameSetter setter;
+    volatile int requestedMs = -1; // Only written by the main thread
+    volatile int appliedMs = -1; // Written by the config threads once acknowledged
+
+    Frame(String name, Device device, FrameRateConfig rates, FrameSetter setter) {
+      this.name = name;
+      this.device = device;
+      this.rates = rates;
+      this.setter = setter;
+    }
+  }
+
+  private static class Device {
+    final String name;
+    final BooleanSupplier hasResetOccurred;
+    boolean reset = false;
+
+    Device(String name, BooleanSupplier hasResetOccurred) {
+      this.name = name;
+      this.hasResetOccurred = hasResetOccurred;
+      hasResetOccurred.getAsBoolean(); // Clears the flag of the power-on reset
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package beartecs.CAN;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ctre.phoenix.ErrorCode;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Configures devices in parallel at boot instead of one blocking call after the
+ * other during static init.
+ *
+ * <p>
+ * Each device is configured by a list of steps that run in order on one of
+ * {@link #THREADS_PER_BUS} threads of its CAN bus, so independent devices on a
+ * bus wait for their acknowledgements at the same time. Every step is checked
+ * and retried up to {@link #MAX_ATTEMPTS} times. A device can wait for others
+ * with {@link Device#after}, e.g. a steer motor seeding its position from an
+ * absolute encoder.
+ * </p>
+ * <p>
+ * Factories only queue their devices; call {@link #awaitAll()} once every
+ * subsystem has been constructed and before the robot can be enabled.
+ * </p>
+ */
+public class DeviceConfigExecutor {
+  @FunctionalInterface
+  public interface CtreStep {
+    ErrorCode apply(int timeoutMs);
+  }
+
+  @FunctionalInterface
+  public interface RevStep {
+    REVLibError apply();
+  }
+
+  @FunctionalInterface
+  private interface Step {
+    // Returns null once the device acknowledged, otherwise the error
+    Object apply(int timeoutMs);
+  }
+
+  public static final int THREADS_PER_BUS = 4;
+  public static final int CONFIG_TIMEOUT_MS = 100;
+  public static final int MAX_ATTEMPTS = 3;
+
+  private static DeviceConfigExecutor instance;
+
+  private final Map<String, ExecutorService> m_buses = new ConcurrentHashMap<>();
+  private final List<CompletableFuture<Boolean>> m_devices = new ArrayList<>();
+  private final AtomicLong m_serialNanos = new AtomicLong();
+  private long m_startNanos = 0;
+
+  public static synchronized DeviceConfigExecutor getInstance() {
+    if (instance == null) {
+      instance = new DeviceConfigExecutor();
+    }
+    return instance;
+  }
+
+  /**
+   * @param canBus The bus the device is on
+   * @param name   A description of the device for error messages
+   * @return A builder for the steps configuring the device
+   */
+  public Device configure(String canBus, String name) {
+    return new Device(canBus, name);
+  }
+
+  /**
+   * Waits for every queued device and reports how long configuration took.
+   *
+   * @return A summary of the configuration
+   */
+  public Result awaitAll() {
+    final List<CompletableFuture<Boolean>> devices;
+    final long startNanos;
+    synchronized (this) {
+      devices = new ArrayList<>(m_devices);
+      startNanos = m_startNanos;
+    }
+    int failed = 0;
+    for (CompletableFuture<Boolean> device : devices) {
+      if (!device.join()) {
+        failed++;
+      }
+    }
+    final double elapsedMs = devices.isEmpty() ? 0 : (System.nanoTime() - startNanos) / 1e6;
+    return new Result(devices.size(), failed, elapsedMs, m_serialNanos.get() / 1e6);
+  }
+
+  private synchronized CompletableFuture<Boolean> submit(Device device) {
+    if (m_devices.isEmpty()) {
+      m_startNanos = System.nanoTime();
+    }
+    final ExecutorService bus = m_buses.computeIfAbsent(device.canBus, DeviceConfigExecutor::createBus);
+    final CompletableFuture<Boolean> future = CompletableFuture
+        .allOf(device.dependencies.toArray(new CompletableFuture<?>[0]))
+        .handle((ignored, error) -> null)
+        .thenApplyAsync(ignored -> run(device), bus);
+    m_devices.add(future);
+    return future;
+  }
+
+  private boolean run(Device device) {
+    final long start = System.nanoTime();
+    boolean ok = true;
+    for (int i = 0; i < device.steps.size(); i++) {
+      final Step step = device.steps.get(i);
+      Object error = null;
+      for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+        try {
+          error = step.apply(CONFIG_TIMEOUT_MS);
+        } catch (RuntimeException e) {
+          error = e;
+        }
+        if (error == null) {
+          break;
+        }
+      }
+      if (error != null) {
+        ok = false;
+        DriverStation.reportError(String.format("Failed to set the %s of %s after %d attempts: %s",
+            device.stepNames.get(i), device.name, MAX_ATTEMPTS, error), false);
+      }
+    }
+    m_serialNanos.addAndGet(System.nanoTime() - start);
+    return ok;
+  }
+
+  private static ExecutorService createBus(String canBus) {
+    final AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(THREADS_PER_BUS, runnable -> {
+      Thread thread = new Thread(runnable, "DeviceConfig-" + canBus + "-" + count.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * The steps configuring one device, in the order they are added.
+   */
+  public class Device {
+    private final String canBus;
+    private final String name;
+    private final List<Step> steps = new ArrayList<>();
+    private final List<String> stepNames = new ArrayList<>();
+    private final List<CompletableFuture<?>> dependencies = new ArrayList<>();
+
+    private Device(String canBus, String name) {
+      this.canBus = canBus;
+      this.name = name;
+    }
+
+    /**
+     * @param setting The setting for error messages, e.g. "feedback sensor"
+     * @param step    A config call given the timeout to wait for
+     */
+    public Device ctre(String setting, CtreStep step) {
+      return add(setting, timeoutMs -> {
+        final ErrorCode error = step.apply(timeoutMs);
+        return error == ErrorCode.OK ? null : error;
+      });
+    }
+
+    /**
+     * @param setting The setting for error messages
+     * @param step    A config call, REVLib uses its own timeout
+     */
+    public Device rev(String setting, RevStep step) {
+      return add(setting, timeoutMs -> {
+        final REVLibError error = step.apply();
+        return error == REVLibError.kOk ? null : error;
+      });
+    }
+
+    /**
+     * @param step A call that reports no result, run in order with the others
+     */
+    public Device run(Runnable step) {
+      return add("settings", timeoutMs -> {
+        step.run();
+        return null;
+      });
+    }
+
+    /**
+     * @param dependency Completes once the devices this one needs are
+     *                   configured, failed or not
+     */
+    public Device after(CompletableFuture<?> dependency) {
+      dependencies.add(dependency);
+      return this;
+    }
+
+    /**
+     * Queues the device. Never blocks.
+     *
+     * @return Completes with whether every step succeeded
+     */
+    public CompletableFuture<Boolean> submit() {
+      return DeviceConfigExecutor.this.submit(this);
+    }
+
+    private Device add(String setting, Step step) {
+      steps.add(step);
+      stepNames.add(setting);
+      return this;
+    }
+  }
+
+  public static class Result {
+    public final int DEVICES; // Including the status frames CANBandwidthManager queues as their own devices
+    public final int FAILED;
+    public final double ELAPSED_MS;
+    public final double SERIAL_MS; // The sum of the device times, what configuring them one by one would take
+
+    Result(int devices, int failed, double elapsedMs, double serialMs) {
+      DEVICES = devices;
+      FAILED = failed;
+      ELAPSED_MS = elapsedMs;
+      SERIAL_MS = serialMs;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Configured %d devices and status frames in %.0f ms (%.0f ms one by one), %d failed",
+          DEVICES, ELAPSED_MS, SERIAL_MS, FAILED);
+    }
+  }
+}
@@ -1,11 +1,14 @@
 package beartecs;
 
 import beartecs.CAN.CANConfig;
+import beartecs.configs.CameraConfig;
+import beartecs.configs.FrameRateConfig;
 import beartecs.configs.PidConfig;
 import beartecs.configs.ProfiledPidConfig;
 import beartecs.configs.SwerveConfig;
 import beartecs.configs.SwerveDrivetrainConfig;
 import beartecs.math.MotorUtils;
+import beartecs.math.ShotTable;
 import beartecs.swerve.config.Mk3ModuleConfiguration;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -140,10 +143,13 @@ public final class Constants {
   // Not used currently
   public static final double COLLISION_THRESHOLD_DELTA = 0.5;
 
+  // Compile-time constant so headless tools can read it without initializing this class
+  public static final double ROBOT_MASS_LBS = 140;
+
   public static final SwerveDrivetrainConfig SWERVE_CONFIG = new SwerveDrivetrainConfig(
       0.65532,
       0.76581,
-      Units.lbsToKilograms(140));
+      Units.lbsToKilograms(ROBOT_MASS_LBS));
   // Robot is 31" long and 28" wide
   // The left-to-right distance between the drivetrain wheels
   public static final double TRACKWIDTH_METERS = 0.65532; // 0.56 //21.5"
@@ -151,7 +157,7 @@ public final class Constants {
   public static final double WHEELBASE_METERS = 0.76581; // 0.545 // 25.125"
 
   // Can be used to calculate special limits 
-  public static final double MASS = Units.lbsToKilograms(140);
+  public static final double MASS = Units.lbsToKilograms(ROBOT_MASS_LBS);
   public static final double INERTIA = 1.0 / 12.0 * MASS * Math.pow((TRACKWIDTH_METERS * 1.1), 2) * 2;
 
   public final static class Field {
@@ -163,6 +169,34 @@ public final class Constants {
     public static final Pose2d HUB_CENTER_POSE = new Pose2d(HUB_CENTER_TRANSLATION, new Rotation2d(0));
   }
 
+  public final static class Vision {
+    public static final double TARGET_HEIGHT_METERS = Units.inchesToMeters(104.0); // Upper hub vision tape
+    public static final double TARGET_RADIUS_METERS = Units.inchesToMeters(26.69); // Tape ring to hub center
+    public static final CameraConfig CAMERA = new CameraConfig(Units.inchesToMeters(36.0), 30.0, 0.0,
+        new Translation2d(Units.inchesToMeters(-6.0), 0));
+    // Pipeline per mode: disabled, autonomous, teleop
+    public static final int[] PIPELINES = { 0, 0, 0 };
+    public static final double MAX_LATENCY_SEC = 0.25; // Older frames are dropped
+    public static final double MAX_CORRECTION_METERS = 1.5; // Farther from odometry than this is an outlier
+    public static final double STD_DEV_METERS = 0.01; // Translation trust of a fresh measurement at REFERENCE_TARGET_AREA
+    public static final double STD_DEV_RADIANS = Units.degreesToRadians(0.1); // Heading comes from the pose history
+    public static final double REFERENCE_TARGET_AREA = 1.0; // Percent of the image
+  }
+
+  public final static class Shooter {
+    // Measured shots: distance (m), flywheel speed (ticks/100ms), hood angle (deg), time of flight (s)
+    public static final ShotTable SHOT_TABLE = new ShotTable(
+        new double[] { 1.5, 9000, 8.0, 0.70 },
+        new double[] { 2.5, 9800, 14.0, 0.82 },
+        new double[] { 3.5, 10700, 19.0, 0.95 },
+        new double[] { 4.5, 11600, 23.0, 1.08 },
+        new double[] { 5.5, 12600, 26.0, 1.22 });
+    public static final String SHOT_TABLE_FILE = "shooter/shot_table.csv"; // In the deploy directory, overrides SHOT_TABLE
+    public static final int SOLVER_ITERATIONS = 5;
+    public static final double SOLVER_TOLERANCE_METERS = 0.02;
+    public static final double RELEASE_DELAY_SEC = 0.1; // Feeder to ball leaving the flywheel
+  }
+
   public final static class Swerve {
     public final static boolean ENABLE_ABS_ENCODER_POS_ERROR_CHECKS = true;
     public final static int ABS_ENCODER_ERROR_RETRY_COUNT = 3;
@@ -177,6 +211,32 @@ public final class Constants {
     static public final double SAMPLE_RATE_SEC = 0.02;
   }
 
+  public final static class Odometry {
+    public static final boolean THREADED = false; // Integrate odometry on its own thread instead of the main loop
+    public static final double PERIOD_SEC = 0.005; // 200 Hz, the drive and steer feedback frames follow it
+    public static final int PERIOD_MS = (int) Math.round(PERIOD_SEC * 1000);
+  }
+
+  // Status frame periods in ms per mode: disabled, autonomous, teleop, sysid, and the slowest when the bus is busy
+  public final static class StatusFrames {
+    public static final FrameRateConfig FALCON_GENERAL = new FrameRateConfig(255, 250, 250, 250, 255);
+    // Odometry and SysId read the drive encoders, so auto and SysId get them twice as often. The odometry thread
+    // reads both encoders every Odometry.PERIOD_MS while enabled, slower frames would only repeat the same values
+    public static final FrameRateConfig FALCON_DRIVE_FEEDBACK = Odometry.THREADED
+        ? new FrameRateConfig(100, Odometry.PERIOD_MS, Odometry.PERIOD_MS, Odometry.PERIOD_MS, 20)
+        : new FrameRateConfig(100, 10, 20, 10, 40);
+    public static final FrameRateConfig FALCON_STEER_FEEDBACK = Odometry.THREADED
+        ? new FrameRateConfig(100, Odometry.PERIOD_MS, Odometry.PERIOD_MS, Odometry.PERIOD_MS, 20)
+        : new FrameRateConfig(100, 20, 20, 20, 40);
+    // Faster while disabled so the steer encoders seed from fresh absolute angles
+    public static final FrameRateConfig CANCODER_SENSOR_DATA = new FrameRateConfig(20, 100, 100, 100, 200);
+    public static final FrameRateConfig MECHANISM = new FrameRateConfig(100, 20, 20, 100, 100);
+
+    public static final double HIGH_UTILIZATION_PERCENT = 70.0;
+    public static final double LOW_UTILIZATION_PERCENT = 45.0;
+  }
+
   public final static boolean ENABLE_DS_LOG_SAVE = false;
+  public final static boolean ENABLE_SIGNAL_LOG = true; // Records SignalLogger signals to the DataLog
   public final static int LOG_EXPIRATION_IN_HRS = 24 * 2;
 }
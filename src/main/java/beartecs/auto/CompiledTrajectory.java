@@ -0,0 +1,198 @@
+package beartecs.auto;
+
+import static beartecs.auto.CompiledTrajectoryFormat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * A trajectory whose states stay encoded in a {@link CompiledTrajectoryFormat}
+ * buffer, usually a read-only mapping of a file generated at build time.
+ *
+ * <p>
+ * Nothing is parsed up front and no state objects are kept around: sampling
+ * binary searches the encoded timestamps and interpolates between the two
+ * neighbouring states the same way {@code PathPlannerTrajectory} does. Reads
+ * only use absolute offsets, so a trajectory may be sampled from any thread.
+ * </p>
+ */
+public class CompiledTrajectory {
+  private final ByteBuffer m_buffer;
+  private final int m_stateCount;
+  private final double m_maxVel;
+  private final double m_maxAccel;
+  private final boolean m_reversed;
+
+  /**
+   * @param buffer A buffer holding a whole compiled trajectory from position 0
+   * @throws IllegalArgumentException If the buffer does not hold a compiled
+   *                                  trajectory
+   */
+  public CompiledTrajectory(ByteBuffer buffer) {
+    if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a compiled trajectory");
+    }
+    if (buffer.getShort(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported compiled trajectory version " + buffer.getShort(4));
+    }
+    m_stateCount = buffer.getInt(STATE_COUNT_OFFSET);
+    if (m_stateCount < 1 || buffer.capacity() < HEADER_BYTES + m_stateCount * STATE_BYTES) {
+      throw new IllegalArgumentException("Truncated compiled trajectory");
+    }
+    m_buffer = buffer;
+    m_maxVel = buffer.getDouble(MAX_VEL_OFFSET);
+    m_maxAccel = buffer.getDouble(MAX_ACCEL_OFFSET);
+    m_reversed = (buffer.getShort(FLAGS_OFFSET) & FLAG_REVERSED) != 0;
+  }
+
+  /**
+   * Memory-maps a compiled trajectory file.
+   *
+   * @param file The file written by {@link CompiledTrajectoryFormat#main}
+   * @return The mapped trajectory
+   * @throws IOException If the file could not be mapped
+   */
+  public static CompiledTrajectory map(File file) throws IOException {
+    // The mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return new CompiledTrajectory(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Encodes a trajectory that was generated at runtime into a heap buffer.
+   *
+   * @param trajectory The generated trajectory
+   * @param maxVel     Max velocity it was generated with
+   * @param maxAccel   Max acceleration it was generated with
+   * @param reversed   Whether it was generated reversed
+   * @return The compiled trajectory
+   */
+  public static CompiledTrajectory compile(PathPlannerTrajectory trajectory, double maxVel, double maxAccel,
+      boolean reversed) {
+    ByteBuffer buffer = ByteBuffer.allocate(sizeOf(trajectory));
+    encode(buffer, trajectory, maxVel, maxAccel, reversed);
+    return new CompiledTrajectory(buffer);
+  }
+
+  /**
+   * @return Whether the trajectory was generated with these constraints
+   */
+  public boolean matches(double maxVel, double maxAccel, boolean reversed) {
+    return Double.compare(m_maxVel, maxVel) == 0 && Double.compare(m_maxAccel, maxAccel) == 0
+        && m_reversed == reversed;
+  }
+
+  public int getStateCount() {
+    return m_stateCount;
+  }
+
+  public double getTotalTimeSeconds() {
+    return get(m_stateCount - 1, TIME);
+  }
+
+  public Pose2d getInitialPose() {
+    return new Pose2d(get(0, X), get(0, Y), new Rotation2d(get(0, HEADING)));
+  }
+
+  public Rotation2d getInitialHolonomicRotation() {
+    return new Rotation2d(get(0, HOLONOMIC));
+  }
+
+  /**
+   * Samples the trajectory, clamping to its start and end.
+   *
+   * @param timeSeconds The time since the start of the trajectory
+   * @param out         Receives the interpolated state, reusing its fields
+   * @return The interpolated holonomic rotation in radians
+   */
+  public double sample(double timeSeconds, Trajectory.State out) {
+    if (timeSeconds <= get(0, TIME)) {
+      return copy(0, out);
+    }
+    if (timeSeconds >= getTotalTimeSeconds()) {
+      return copy(m_stateCount - 1, out);
+    }
+
+    // Find the first state after the requested time
+    int low = 1;
+    int high = m_stateCount - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (get(mid, TIME) <= timeSeconds) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    final int prev = low - 1;
+    final double prevTime = get(prev, TIME);
+    final double t = (timeSeconds - prevTime) / (get(low, TIME) - prevTime);
+    out.timeSeconds = timeSeconds;
+    out.velocityMetersPerSecond = lerp(prev, low, VELOCITY, t);
+    out.accelerationMetersPerSecondSq = lerp(prev, low, ACCELERATION, t);
+    out.curvatureRadPerMeter = lerp(prev, low, CURVATURE, t);
+    out.poseMeters = new Pose2d(lerp(prev, low, X, t), lerp(prev, low, Y, t),
+        new Rotation2d(lerpAngle(prev, low, HEADING, t)));
+    return lerpAngle(prev, low, HOLONOMIC, t);
+  }
+
+  /**
+   * Decodes at most {@code maxStates} evenly spaced states into a WPILib
+   * trajectory, e.g. to draw it on a field widget.
+   *
+   * @param maxStates The maximum number of states to decode
+   * @return The decoded trajectory
+   */
+  public Trajectory toTrajectory(int maxStates) {
+    final int stride = Math.max(1, (m_stateCount + maxStates - 1) / Math.max(1, maxStates));
+    List<Trajectory.State> states = new ArrayList<>(m_stateCount / stride + 1);
+    for (int i = 0; i < m_stateCount; i += stride) {
+      Trajectory.State state = new Trajectory.State();
+      copy(i, state);
+      states.add(state);
+    }
+    if ((m_stateCount - 1) % stride != 0) {
+      Trajectory.State state = new Trajectory.State();
+      copy(m_stateCount - 1, state);
+      states.add(state);
+    }
+    return new Trajectory(states);
+  }
+
+  private double get(int index, int field) {
+    return m_buffer.getDouble(HEADER_BYTES + index * STATE_BYTES + field);
+  }
+
+  private double copy(int index, Trajectory.State out) {
+    out.timeSeconds = get(index, TIME);
+    out.velocityMetersPerSecond = get(index, VELOCITY);
+    out.accelerationMetersPerSecondSq = get(index, ACCELERATION);
+    out.curvatureRadPerMeter = get(index, CURVATURE);
+    out.poseMeters = new Pose2d(get(index, X), get(index, Y), new Rotation2d(get(index, HEADING)));
+    return get(index, HOLONOMIC);
+  }
+
+  private double lerp(int start, int end, int field, double t) {
+    final double startValue = get(start, field);
+    return startValue + (get(end, field) - startValue) * t;
+  }
+
+  private double lerpAngle(int start, int end, int field, double t) {
+    final double startValue = get(start, field);
+    final double delta = get(end, field) - startValue;
+    return startValue + Math.atan2(Math.sin(delta), Math.cos(delta)) * t;
+  }
+}
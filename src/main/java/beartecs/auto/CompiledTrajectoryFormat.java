@@ -0,0 +1,164 @@
+package beartecs.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import beartecs.Constants.Motor;
+
+/**
+ * The binary sampled-state format read by {@link CompiledTrajectory}.
+ *
+ * <p>
+ * A file starts with a {@link #HEADER_BYTES} byte header, laid out big-endian
+ * as:
+ * </p>
+ *
+ * <pre>
+ * int    magic "RTRJ"
+ * short  version
+ * short  flags (bit 0: reversed)
+ * int    state count
+ * int    reserved
+ * double max velocity (m/s) the path was generated with
+ * double max acceleration (m/s^2) the path was generated with
+ * </pre>
+ * <p>
+ * followed by the states in time order, each {@link #STATE_BYTES} bytes:
+ * </p>
+ *
+ * <pre>
+ * double time (s)
+ * double x (m)
+ * double y (m)
+ * double heading (rad)
+ * double velocity (m/s)
+ * double acceleration (m/s^2)
+ * double curvature (rad/m)
+ * double holonomic rotation (rad)
+ * </pre>
+ */
+public final class CompiledTrajectoryFormat {
+  public static final int MAGIC = 0x5254524A; // "RTRJ"
+  public static final short VERSION = 1;
+  public static final short FLAG_REVERSED = 1;
+  public static final int HEADER_BYTES = 32;
+  public static final int STATE_BYTES = 8 * Double.BYTES;
+  public static final String EXTENSION = ".traj";
+
+  static final int FLAGS_OFFSET = 6;
+  static final int STATE_COUNT_OFFSET = 8;
+  static final int MAX_VEL_OFFSET = 16;
+  static final int MAX_ACCEL_OFFSET = 24;
+
+  static final int TIME = 0;
+  static final int X = 8;
+  static final int Y = 16;
+  static final int HEADING = 24;
+  static final int VELOCITY = 32;
+  static final int ACCELERATION = 40;
+  static final int CURVATURE = 48;
+  static final int HOLONOMIC = 56;
+
+  private CompiledTrajectoryFormat() {
+  }
+
+  /**
+   * @param trajectory The trajectory to encode
+   * @return The number of bytes {@link #encode} will write
+   */
+  public static int sizeOf(PathPlannerTrajectory trajectory) {
+    return HEADER_BYTES + trajectory.getStates().size() * STATE_BYTES;
+  }
+
+  /**
+   * Encodes a generated trajectory.
+   *
+   * @param dst        The buffer to write into, must have at least
+   *                   {@link #sizeOf} bytes remaining
+   * @param trajectory The trajectory to encode
+   * @param maxVel     Max velocity the trajectory was generated with
+   * @param maxAccel   Max acceleration the trajectory was generated with
+   * @param reversed   Whether the trajectory was generated reversed
+   */
+  public static void encode(ByteBuffer dst, PathPlannerTrajectory trajectory, double maxVel, double maxAccel,
+      boolean reversed) {
+    dst.putInt(MAGIC);
+    dst.putShort(VERSION);
+    dst.putShort(reversed ? FLAG_REVERSED : 0);
+    dst.putInt(trajectory.getStates().size());
+    dst.putInt(0);
+    dst.putDouble(maxVel);
+    dst.putDouble(maxAccel);
+    for (int i = 0; i < trajectory.getStates().size(); i++) {
+      PathPlannerState state = trajectory.getState(i);
+      dst.putDouble(state.timeSeconds);
+      dst.putDouble(state.poseMeters.getX());
+      dst.putDouble(state.poseMeters.getY());
+      dst.putDouble(state.poseMeters.getRotation().getRadians());
+      dst.putDouble(state.velocityMetersPerSecond);
+      dst.putDouble(state.accelerationMetersPerSecondSq);
+      dst.putDouble(state.curvatureRadPerMeter);
+      dst.putDouble(state.holonomicRotation.getRadians());
+    }
+  }
+
+  /**
+   * Generates every {@code .path} file in a directory with the same constraints
+   * and writes a compiled trajectory for each one. Intended to be run
+   * from Gradle before deploying. The constraints default to the ones
+   * {@code AutoFollowPathCmd} loads paths with.
+   *
+   * <pre>
+   * CompiledTrajectoryFormat &lt;pathplanner dir&gt; &lt;output dir&gt; [max vel] [max accel]
+   * </pre>
+   *
+   * @param args The arguments above
+   * @throws IOException If a compiled trajectory could not be written
+   */
+  public static void main(String... args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: CompiledTrajectoryFormat <pathplanner dir> <output dir> [max vel] [max accel]");
+      System.exit(1);
+    }
+    final File pathDir = new File(args[0]);
+    final File outputDir = new File(args[1]);
+    final double maxVel = args.length > 2 ? Double.parseDouble(args[2]) : Motor.MAX_VELOCITY_MPS;
+    final double maxAccel = args.length > 3 ? Double.parseDouble(args[3]) : Motor.MAX_VELOCITY_MPS;
+
+    final File[] paths = pathDir.listFiles((dir, name) -> name.endsWith(".path"));
+    if (paths == null) {
+      throw new IOException(pathDir + " is not a directory");
+    }
+    if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+      throw new IOException("Could not create " + outputDir);
+    }
+    for (File path : paths) {
+      final String name = path.getName().substring(0, path.getName().length() - ".path".length());
+      // PathPlanner only loads from the deploy directory
+      final PathPlannerTrajectory trajectory = PathPlanner.loadPath(name, maxVel, maxAccel);
+      if (trajectory == null) {
+        throw new IOException("Could not generate " + path);
+      }
+
+      final ByteBuffer buffer = ByteBuffer.allocate(sizeOf(trajectory));
+      encode(buffer, trajectory, maxVel, maxAccel, false);
+      buffer.flip();
+      final File output = new File(outputDir, name + EXTENSION);
+      try (FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      System.out.printf("%s: %d states, %.2fs%n", output.getName(), trajectory.getStates().size(),
+          trajectory.getTotalTimeSeconds());
+    }
+  }
+}
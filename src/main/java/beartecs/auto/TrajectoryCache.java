@@ -0,0 +1,180 @@
+package beartecs.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Loads PathPlanner trajectories once on background threads and hands out the
+ * results.
+ *
+ * <p>
+ * Trajectories are keyed by path name and constraints, so a stage shared by
+ * several routines is only loaded once. {@link #preload} queues the paths at
+ * boot and returns immediately; {@link #get} only blocks if the requested path
+ * has not finished loading yet.
+ * </p>
+ * <p>
+ * A path is memory-mapped from the compiled trajectory directory when the
+ * build generated it with the same constraints. Otherwise it is generated
+ * from its {@code .path} file and encoded into memory, so callers always get a
+ * {@link CompiledTrajectory}.
+ * </p>
+ */
+public class TrajectoryCache {
+  public static final int DEFAULT_THREADS = 2; // The roboRIO has two cores
+  public static final String COMPILED_DIRECTORY = "trajectories";
+
+  private final Map<Key, CompletableFuture<CompiledTrajectory>> m_trajectories = new ConcurrentHashMap<>();
+  private final File m_compiledDirectory;
+  private final ExecutorService m_executor;
+
+  /**
+   * Creates the cache and its loader threads.
+   *
+   * @param compiledDirectory The directory holding the compiled trajectories
+   * @param threads           The number of paths to load in parallel
+   */
+  public TrajectoryCache(File compiledDirectory, int threads) {
+    m_compiledDirectory = compiledDirectory;
+    final AtomicInteger count = new AtomicInteger();
+    m_executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "TrajectoryCache-Loader-" + count.getAndIncrement());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  public TrajectoryCache() {
+    this(new File(Filesystem.getDeployDirectory(), COMPILED_DIRECTORY), DEFAULT_THREADS);
+  }
+
+  /**
+   * Queues paths to be loaded in the background. Paths that are already loaded
+   * or queued are skipped.
+   *
+   * @param pathNames The names of the paths in the deploy directory
+   * @param maxVel    Max velocity of the paths
+   * @param maxAccel  Max acceleration of the paths
+   */
+  public void preload(Iterable<String> pathNames, double maxVel, double maxAccel) {
+    for (String pathName : pathNames) {
+      load(pathName, maxVel, maxAccel, false);
+    }
+  }
+
+  /**
+   * Queues a path to be loaded in the background, unless it already is.
+   *
+   * @param pathName The name of the path in the deploy directory
+   * @param maxVel   Max velocity of the path
+   * @param maxAccel Max acceleration of the path
+   * @param reversed Should the robot follow the path reversed
+   * @return The pending trajectory, completes with null if the path could not
+   *         be loaded
+   */
+  public CompletableFuture<CompiledTrajectory> load(String pathName, double maxVel, double maxAccel,
+      boolean reversed) {
+    return m_trajectories.computeIfAbsent(new Key(pathName, maxVel, maxAccel, reversed),
+        key -> CompletableFuture.supplyAsync(() -> loadTrajectory(key), m_executor)
+            .exceptionally(error -> {
+              DriverStation.reportError("Failed to load path " + key.pathName + ": " + error, false);
+              return null;
+            }));
+  }
+
+  /**
+   * Gets a trajectory, loading it first if it was never queued. Blocks until
+   * it has been loaded.
+   *
+   * @param pathName The name of the path in the deploy directory
+   * @param maxVel   Max velocity of the path
+   * @param maxAccel Max acceleration of the path
+   * @return The trajectory, or null if the path could not be loaded
+   */
+  public CompiledTrajectory get(String pathName, double maxVel, double maxAccel) {
+    return load(pathName, maxVel, maxAccel, false).join();
+  }
+
+  /**
+   * @return Whether every queued path has finished loading
+   */
+  public boolean isWarm() {
+    for (CompletableFuture<CompiledTrajectory> trajectory : m_trajectories.values()) {
+      if (!trajectory.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    return m_trajectories.size();
+  }
+
+  private CompiledTrajectory loadTrajectory(Key key) {
+    final File compiled = new File(m_compiledDirectory, key.pathName + CompiledTrajectoryFormat.EXTENSION);
+    if (compiled.isFile()) {
+      try {
+        CompiledTrajectory trajectory = CompiledTrajectory.map(compiled);
+        if (trajectory.matches(key.maxVel, key.maxAccel, key.reversed)) {
+          return trajectory;
+        }
+        DriverStation.reportWarning(compiled.getName() + " was compiled with other constraints, generating it", false);
+      } catch (IOException | IllegalArgumentException e) {
+        DriverStation.reportWarning("Could not map " + compiled.getName() + ": " + e.getMessage(), false);
+      }
+    }
+
+    PathPlannerTrajectory trajectory = PathPlanner.loadPath(key.pathName, key.maxVel, key.maxAccel, key.reversed);
+    if (trajectory == null) {
+      return null;
+    }
+    return CompiledTrajectory.compile(trajectory, key.maxVel, key.maxAccel, key.reversed);
+  }
+
+  private static final class Key {
+    final String pathName;
+    final double maxVel;
+    final double maxAccel;
+    final boolean reversed;
+
+    Key(String pathName, double maxVel, double maxAccel, boolean reversed) {
+      this.pathName = pathName;
+      this.maxVel = maxVel;
+      this.maxAccel = maxAccel;
+      this.reversed = reversed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof Key))
+        return false;
+      Key that = (Key) o;
+      return pathName.equals(that.pathName)
+          && Double.compare(maxVel, that.maxVel) == 0
+          && Double.compare(maxAccel, that.maxAccel) == 0
+          && reversed == that.reversed;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pathName, maxVel, maxAccel, reversed);
+    }
+  }
+}
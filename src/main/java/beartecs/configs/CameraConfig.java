@@ -0,0 +1,20 @@
+package beartecs.configs;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Where a camera is mounted on the robot.
+ */
+public class CameraConfig {
+  public final double HEIGHT_METERS; // Floor to lens
+  public final double PITCH_DEGREES; // Up from horizontal
+  public final double YAW_DEGREES; // Counter clockwise from the robot front
+  public final Translation2d OFFSET; // Lens from the robot center, robot relative
+
+  public CameraConfig(double heightMeters, double pitchDegrees, double yawDegrees, Translation2d offset) {
+    HEIGHT_METERS = heightMeters;
+    PITCH_DEGREES = pitchDegrees;
+    YAW_DEGREES = yawDegrees;
+    OFFSET = offset;
+  }
+}
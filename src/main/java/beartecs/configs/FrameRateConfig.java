@@ -0,0 +1,44 @@
+package beartecs.configs;
+
+import beartecs.CAN.CANBandwidthManager.Mode;
+
+/**
+ * Status frame periods in milliseconds for each robot mode. {@code MAX_MS} is
+ * the slowest the frame may be stretched to when its bus is busy; a frame whose
+ * {@code MAX_MS} is not above its mode period is never stretched.
+ */
+public class FrameRateConfig {
+  public final int DISABLED_MS;
+  public final int AUTONOMOUS_MS;
+  public final int TELEOP_MS;
+  public final int SYSID_MS;
+  public final int MAX_MS;
+
+  public FrameRateConfig(int disabledMs, int autonomousMs, int teleopMs, int sysIdMs, int maxMs) {
+    DISABLED_MS = disabledMs;
+    AUTONOMOUS_MS = autonomousMs;
+    TELEOP_MS = teleopMs;
+    SYSID_MS = sysIdMs;
+    MAX_MS = maxMs;
+  }
+
+  /**
+   * @param periodMs The period to use in every mode, never stretched
+   */
+  public FrameRateConfig(int periodMs) {
+    this(periodMs, periodMs, periodMs, periodMs, periodMs);
+  }
+
+  public int getPeriodMs(Mode mode) {
+    switch (mode) {
+      case AUTONOMOUS:
+        return AUTONOMOUS_MS;
+      case TELEOP:
+        return TELEOP_MS;
+      case SYSID:
+        return SYSID_MS;
+      default:
+        return DISABLED_MS;
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package beartecs.logger;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * A preallocated ring buffer of log events drained by a background writer
+ * thread.
+ *
+ * <p>
+ * {@link #offer(byte, String, long)} only stores the timestamp, level and
+ * message reference into a slot, so logging from the main loop never
+ * allocates, formats or touches the disk. Any number of threads may offer
+ * events. When the buffer is full new events are dropped and counted rather
+ * than blocking the caller.
+ * </p>
+ * <p>
+ * The writer thread wakes up every {@link #WRITER_PERIOD_MS} ms, drains
+ * everything that has been published in batches of at most
+ * {@link #BATCH_SIZE} and hands the records to the sinks.
+ * </p>
+ */
+public class AsyncLogBuffer {
+  public static final int DEFAULT_CAPACITY = 4096;
+  public static final int BATCH_SIZE = 256;
+  public static final long WRITER_PERIOD_MS = 10;
+  private static final long FLUSH_TIMEOUT_MS = 250;
+
+  private final int mask;
+  private final long[] timestamps;
+  private final byte[] levels;
+  private final String[] messages;
+  // Holds the sequence number of the event stored in each slot once it has been fully written
+  private final AtomicLongArray published;
+  private final AtomicLong claimSequence = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private volatile long consumedSequence = 0;
+  private volatile long flushedSequence = 0;
+
+  private final LogSink[] sinks;
+  private final Thread writerThread;
+  private volatile boolean running = true;
+  private boolean failureReported = false; // Only touched by the writer thread
+
+  /**
+   * Creates the buffer and starts its writer thread.
+   *
+   * @param capacity The number of events the buffer can hold, rounded up to a
+   *                 power of two
+   * @param sinks    The sinks every event gets written to
+   */
+  public AsyncLogBuffer(int capacity, LogSink... sinks) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    this.mask = size - 1;
+    this.timestamps = new long[size];
+    this.levels = new byte[size];
+    this.messages = new String[size];
+    this.published = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      published.set(i, -1);
+    }
+    this.sinks = sinks;
+
+    writerThread = new Thread(this::runWriter, "RobotLogger-Writer");
+    writerThread.setDaemon(true);
+    writerThread.setPriority(Thread.MIN_PRIORITY);
+    writerThread.start();
+  }
+
+  public AsyncLogBuffer(LogSink... sinks) {
+    this(DEFAULT_CAPACITY, sinks);
+  }
+
+  /**
+   * Queues an event. Never blocks and never allocates.
+   *
+   * @param level           The event level, one of the
+   *                        {@code BinaryLogFormat.LEVEL_*} constants
+   * @param message         The message
+   * @param timestampMicros The FPGA timestamp of the event in microseconds
+   * @return false if the buffer was full and the event was dropped
+   */
+  public boolean offer(byte level, String message, long timestampMicros) {
+    long sequence;
+    do {
+      sequence = claimSequence.get();
+      if (sequence - consumedSequence > mask) {
+        droppedCount.incrementAndGet();
+        return false;
+      }
+    } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+    final int index = (int) (sequence & mask);
+    timestamps[index] = timestampMicros;
+    levels[index] = level;
+    messages[index] = message;
+    published.set(index, sequence);
+    return true;
+  }
+
+  /**
+   * @return The number of events dropped because the buffer was full
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Waits for the writer thread to drain every event offered before this call
+   * and flush the sinks. Gives up after a short timeout so it can be called from
+   * the main loop.
+   */
+  public void flush() {
+    final long target = claimSequence.get();
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS);
+    while (flushedSequence < target && System.nanoTime() < deadline && writerThread.isAlive()) {
+      LockSupport.unpark(writerThread);
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Drains the remaining events, closes the sinks and stops the writer thread.
+   */
+  public void close() {
+    running = false;
+    LockSupport.unpark(writerThread);
+    try {
+      writerThread.join(FLUSH_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void runWriter() {
+    while (running) {
+      drain();
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(WRITER_PERIOD_MS));
+    }
+    drain();
+    for (LogSink sink : sinks) {
+      try {
+        sink.close();
+      } catch (IOException e) {
+        reportFailure("close", e);
+      }
+    }
+  }
+
+  private void drain() {
+    long next = consumedSequence;
+    int batch = 0;
+    while (true) {
+      final int index = (int) (next & mask);
+      if (published.get(index) != next) {
+        break;
+      }
+      final long timestamp = timestamps[index];
+      final byte level = levels[index];
+      final String message = messages[index];
+      messages[index] = null;
+      // Release the slot before writing so producers are never held up by I/O
+      consumedSequence = ++next;
+
+      for (LogSink sink : sinks) {
+        try {
+          sink.write(timestamp, level, message);
+        } catch (IOException e) {
+          reportFailure("write", e);
+        }
+      }
+      if (++batch >= BATCH_SIZE) {
+        flushSinks(next);
+        batch = 0;
+      }
+    }
+    if (batch > 0) {
+      flushSinks(next);
+    }
+  }
+
+  private void flushSinks(long sequence) {
+    for (LogSink sink : sinks) {
+      try {
+        sink.flush();
+      } catch (IOException e) {
+        reportFailure("flush", e);
+      }
+    }
+    flushedSequence = sequence;
+  }
+
+  // A broken sink fails on every record, only the first failure is worth reporting
+  private void reportFailure(String action, IOException e) {
+    if (!failureReported) {
+      failureReported = true;
+      DriverStation.reportError(String.format("Log sink failed to %s: %s", action, e.getMessage()), false);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package beartecs.logger;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+
+/**
+ * The compact binary record format written into the segments of
+ * {@link MappedLogSink}. Every record is laid out big-endian as:
+ *
+ * <pre>
+ * long  timestamp (FPGA microseconds)
+ * byte  level
+ * short message length in bytes
+ * byte[] UTF-8 message
+ * </pre>
+ * <p>
+ * Older {@code .rlog} files hold the same records after a header of the magic
+ * {@code "RLOG"}, a {@code short} version and a reserved {@code short}; they
+ * can still be printed with {@link #main}.
+ * </p>
+ */
+public final class BinaryLogFormat {
+  public static final int MAGIC = 0x524C4F47; // "RLOG"
+  public static final short VERSION = 1;
+  public static final int RECORD_OVERHEAD_BYTES = Long.BYTES + Byte.BYTES + Short.BYTES;
+  public static final int MAX_MESSAGE_BYTES = 4096;
+  public static final int MAX_RECORD_BYTES = RECORD_OVERHEAD_BYTES + MAX_MESSAGE_BYTES;
+
+  public static final byte LEVEL_INFO = 0;
+  public static final byte LEVEL_WARNING = 1;
+  public static final byte LEVEL_SEVERE = 2;
+
+  private BinaryLogFormat() {
+  }
+
+  public static byte fromLevel(Level level) {
+    if (level.intValue() >= Level.SEVERE.intValue()) {
+      return LEVEL_SEVERE;
+    } else if (level.intValue() >= Level.WARNING.intValue()) {
+      return LEVEL_WARNING;
+    }
+    return LEVEL_INFO;
+  }
+
+  public static Level toLevel(byte level) {
+    switch (level) {
+      case LEVEL_SEVERE:
+        return Level.SEVERE;
+      case LEVEL_WARNING:
+        return Level.WARNING;
+      default:
+        return Level.INFO;
+    }
+  }
+
+  /**
+   * Encodes a record into {@code dst} without allocating. Messages longer than
+   * {@link #MAX_MESSAGE_BYTES} are truncated on a character boundary.
+   *
+   * @param dst             The buffer to write into, must have at least
+   *                        {@link #MAX_RECORD_BYTES} remaining
+   * @param timestampMicros The FPGA timestamp in microseconds
+   * @param level           The record level
+   * @param message         The message to encode
+   * @return The number of bytes written
+   */
+  public static int encode(ByteBuffer dst, long timestampMicros, byte level, String message) {
+    final int start = dst.position();
+    dst.putLong(timestampMicros);
+    dst.put(level);
+    final int lengthPosition = dst.position();
+    dst.putShort((short) 0);
+
+    int length = 0;
+    final int count = message == null ? 0 : message.length();
+    for (int i = 0; i < count; i++) {
+      char c = message.charAt(i);
+      if (c < 0x80) {
+        if (length + 1 > MAX_MESSAGE_BYTES)
+          break;
+        dst.put((byte) c);
+        length += 1;
+      } else if (c < 0x800) {
+        if (length + 2 > MAX_MESSAGE_BYTES)
+          break;
+        dst.put((byte) (0xC0 | (c >> 6)));
+        dst.put((byte) (0x80 | (c & 0x3F)));
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(message.charAt(i + 1))) {
+        if (length + 4 > MAX_MESSAGE_BYTES)
+          break;
+        int codePoint = Character.toCodePoint(c, message.charAt(++i));
+        dst.put((byte) (0xF0 | (codePoint >> 18)));
+        dst.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        dst.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        dst.put((byte) (0x80 | (codePoint & 0x3F)));
+        length += 4;
+      } else if (Character.isSurrogate(c)) {
+        if (length + 1 > MAX_MESSAGE_BYTES)
+          break;
+        dst.put((byte) '?'); // Unpaired surrogate
+        length += 1;
+      } else {
+        if (length + 3 > MAX_MESSAGE_BYTES)
+          break;
+        dst.put((byte) (0xE0 | (c >> 12)));
+        dst.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        dst.put((byte) (0x80 | (c & 0x3F)));
+        length += 3;
+      }
+    }
+    dst.putShort(lengthPosition, (short) length);
+    return dst.position() - start;
+  }
+
+  /**
+   * Prints binary log files or {@link MappedLogSink} segments as text. Intended
+   * to be run on a laptop after the logs have been pulled off the roboRIO.
+   *
+   * @param args The log files to print
+   * @throws IOException If a file could not be read
+   */
+  public static void main(String... args) throws IOException {
+    for (String path : args) {
+      dump(new File(path));
+    }
+  }
+
+  private static void dump(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      final int magic = in.readInt();
+      if (magic == MAGIC) {
+        in.readShort(); // version
+        in.readShort(); // reserved
+        while (true) {
+          try {
+            printRecord(in);
+          } catch (EOFException e) {
+            return;
+          }
+        }
+      } else if (magic == MappedLogSink.SEGMENT_MAGIC) {
+        in.readShort(); // version
+        final int headerBytes = in.readUnsignedShort();
+        in.readInt(); // segment index
+        final int committed = in.readInt();
+        in.skipBytes(headerBytes - MappedLogSink.FIRST_TIMESTAMP_OFFSET);
+        int position = headerBytes;
+        while (position < committed) {
+          final int length = in.readInt();
+          if (length == 0) {
+            return;
+          }
+          printRecord(in);
+          position += Integer.BYTES + length;
+        }
+      } else {
+        throw new IOException(file + " is not a binary robot log");
+      }
+    }
+  }
+
+  private static void printRecord(DataInputStream in) throws IOException {
+    final long timestamp = in.readLong();
+    final byte level = in.readByte();
+    final byte[] message = new byte[in.readUnsignedShort()];
+    in.readFully(message);
+    System.out.printf("(%.6f) [%s]: %s%n", timestamp / 1e6, toLevel(level),
+        new String(message, StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,47 @@
+package beartecs.logger;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Forwards records to a {@code java.util.logging} logger so the existing
+ * console and file handlers keep working, but run on the writer thread instead
+ * of the main loop.
+ *
+ * <p>
+ * Records are stamped with the time they were offered, not the time they were
+ * drained. The FPGA timestamp from the buffer slot is moved onto the wall clock
+ * by the current difference between the two clocks.
+ * </p>
+ */
+public class JulLogSink implements LogSink {
+  private final Logger logger;
+
+  public JulLogSink(Logger logger) {
+    this.logger = logger;
+  }
+
+  @Override
+  public void write(long timestampMicros, byte level, String message) {
+    final long ageMicros = RobotController.getFPGATime() - timestampMicros;
+    final LogRecord record = new LogRecord(BinaryLogFormat.toLevel(level), message);
+    record.setInstant(Instant.now().minus(ageMicros, ChronoUnit.MICROS));
+    record.setLoggerName(logger.getName());
+    logger.log(record);
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+    for (var handler : logger.getHandlers()) {
+      handler.flush();
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package beartecs.logger;
+
+import java.io.IOException;
+
+/**
+ * A destination for log records drained by {@link AsyncLogBuffer}.
+ *
+ * <p>
+ * Sinks are only ever called from the buffer's writer thread, so they do not
+ * need to be thread safe and are free to block on I/O.
+ * </p>
+ */
+public interface LogSink {
+  /**
+   * Writes a single record.
+   *
+   * @param timestampMicros The FPGA timestamp of the record in microseconds
+   * @param level           The record level, one of the
+   *                        {@code BinaryLogFormat.LEVEL_*} constants
+   * @param message         The record message
+   * @throws IOException If the record could not be written
+   */
+  void write(long timestampMicros, byte level, String message) throws IOException;
+
+  /**
+   * Called once at the end of every drained batch.
+   *
+   * @throws IOException If the pending records could not be written
+   */
+  void flush() throws IOException;
+
+  /**
+   * Flushes and releases any resources held by the sink.
+   *
+   * @throws IOException If the sink could not be closed
+   */
+  void close() throws IOException;
+}
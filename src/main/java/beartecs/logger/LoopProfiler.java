@@ -0,0 +1,101 @@
+package beartecs.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import beartecs.math.LatencyHistogram;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Times the parts of the robot loop and publishes their p50, p99 and max to
+ * the {@code LoopProfiler} table, one subtable per section.
+ *
+ * <p>
+ * Sections are registered once and timed with {@link System#nanoTime()} into a
+ * {@link LatencyHistogram}. Every {@link #PUBLISH_PERIOD_SEC} the statistics of
+ * the window are published and the histograms start over, so a spike shows up
+ * next to the section that caused it. {@code worstMs} keeps the longest
+ * duration since boot.
+ * </p>
+ * <p>
+ * Only meant to be used from the main robot thread.
+ * </p>
+ */
+public class LoopProfiler {
+  public static final double PUBLISH_PERIOD_SEC = 1.0;
+
+  private static LoopProfiler instance;
+
+  private final NetworkTable m_table = NetworkTableInstance.getDefault().getTable("LoopProfiler");
+  private final List<Section> m_sections = new ArrayList<>();
+  private double m_nextPublishTime = 0;
+
+  public static LoopProfiler getInstance() {
+    if (instance == null) {
+      instance = new LoopProfiler();
+    }
+    return instance;
+  }
+
+  /**
+   * @param name The name of the section, e.g. the subsystem
+   * @return The histogram to record the durations of the section in, shared by
+   *         every registration with the same name
+   */
+  public LatencyHistogram register(String name) {
+    for (Section section : m_sections) {
+      if (section.name.equals(name)) {
+        return section.histogram;
+      }
+    }
+    Section section = new Section(name, m_table.getSubTable(name));
+    m_sections.add(section);
+    return section.histogram;
+  }
+
+  /**
+   * Publishes the statistics of every section at {@link #PUBLISH_PERIOD_SEC}.
+   * Call once per loop.
+   */
+  public void periodic() {
+    final double now = Timer.getFPGATimestamp();
+    if (now < m_nextPublishTime) {
+      return;
+    }
+    m_nextPublishTime = now + PUBLISH_PERIOD_SEC;
+
+    for (Section section : m_sections) {
+      final LatencyHistogram histogram = section.histogram;
+      if (histogram.getCount() == 0) {
+        continue;
+      }
+      section.worstMs = Math.max(section.worstMs, histogram.getMaxMs());
+      section.p50.setDouble(histogram.getPercentileMs(50));
+      section.p99.setDouble(histogram.getPercentileMs(99));
+      section.max.setDouble(histogram.getMaxMs());
+      section.worst.setDouble(section.worstMs);
+      histogram.reset();
+    }
+  }
+
+  private static class Section {
+    final String name;
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final NetworkTableEntry p50;
+    final NetworkTableEntry p99;
+    final NetworkTableEntry max;
+    final NetworkTableEntry worst;
+    double worstMs = 0;
+
+    Section(String name, NetworkTable table) {
+      this.name = name;
+      p50 = table.getEntry("p50Ms");
+      p99 = table.getEntry("p99Ms");
+      max = table.getEntry("maxMs");
+      worst = table.getEntry("worstMs");
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package beartecs.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes records into fixed-size memory-mapped segment files.
+ *
+ * <p>
+ * Every record is copied straight into the mapping, so once
+ * {@link #write(long, byte, String)} returns the data lives in the OS page
+ * cache and survives the JVM crashing or being killed without any flush.
+ * The mapping is also forced to disk from the writer thread at most once every
+ * {@link #FORCE_PERIOD_MS} ms, which bounds what a sudden power loss can take
+ * with it. Nothing here ever runs on the main loop.
+ * </p>
+ * <p>
+ * Segments are named {@code <base>.<index>.rlogseg} and start with a
+ * {@link #SEGMENT_HEADER_BYTES} byte header:
+ * </p>
+ *
+ * <pre>
+ * int   magic "RSEG"
+ * short version
+ * short header size
+ * int   segment index
+ * int   committed bytes (end of the last complete record)
+ * long  timestamp of the first record (FPGA microseconds)
+ * long  reserved
+ * </pre>
+ * <p>
+ * followed by records framed as an {@code int} length and a
+ * {@link BinaryLogFormat} record. A length of zero marks the end of the
+ * segment. When a record does not fit the sink rolls over to a new segment.
+ * </p>
+ */
+public class MappedLogSink implements LogSink {
+  public static final int SEGMENT_MAGIC = 0x52534547; // "RSEG"
+  public static final String SEGMENT_EXTENSION = ".rlogseg";
+  public static final int SEGMENT_HEADER_BYTES = 32;
+  public static final int DEFAULT_SEGMENT_BYTES = 1024 * 1024;
+  public static final long FORCE_PERIOD_MS = 1000;
+
+  static final int COMMITTED_OFFSET = 12;
+  static final int FIRST_TIMESTAMP_OFFSET = 16;
+  private static final int FRAME_BYTES = Integer.BYTES;
+
+  private final File dir;
+  private final String baseName;
+  private final int segmentBytes;
+
+  private MappedByteBuffer segment;
+  private volatile File segmentFile;
+  private int segmentIndex = -1;
+  private int committed;
+  private boolean isDirty = false;
+  private long lastForceTime = System.nanoTime();
+
+  /**
+   * Creates the sink and maps its first segment.
+   *
+   * @param dir          The directory to store the segments in
+   * @param baseName     The prefix of every segment file name
+   * @param segmentBytes The size of each segment in bytes
+   * @throws IOException If the first segment could not be created
+   */
+  public MappedLogSink(File dir, String baseName, int segmentBytes) throws IOException {
+    if (segmentBytes < SEGMENT_HEADER_BYTES + FRAME_BYTES * 2 + BinaryLogFormat.MAX_RECORD_BYTES) {
+      throw new IllegalArgumentException("segmentBytes is too small to hold a record");
+    }
+    this.dir = dir;
+    this.baseName = baseName;
+    this.segmentBytes = segmentBytes;
+    roll();
+  }
+
+  public MappedLogSink(File dir, String baseName) throws IOException {
+    this(dir, baseName, DEFAULT_SEGMENT_BYTES);
+  }
+
+  /**
+   * @return The segment currently being written to
+   */
+  public File getCurrentSegment() {
+    return segmentFile;
+  }
+
+  @Override
+  public void write(long timestampMicros, byte level, String message) throws IOException {
+    // Always leave room for the zero length terminator
+    if (segmentBytes - committed < FRAME_BYTES * 2 + BinaryLogFormat.MAX_RECORD_BYTES) {
+      roll();
+    }
+    if (committed == SEGMENT_HEADER_BYTES) {
+      segment.putLong(FIRST_TIMESTAMP_OFFSET, timestampMicros);
+    }
+
+    segment.position(committed + FRAME_BYTES);
+    final int length = BinaryLogFormat.encode(segment, timestampMicros, level, message);
+    // Frame the record only once it is complete, then publish the new end
+    segment.putInt(committed, length);
+    committed += FRAME_BYTES + length;
+    segment.putInt(COMMITTED_OFFSET, committed);
+    isDirty = true;
+  }
+
+  @Override
+  public void flush() {
+    final long now = System.nanoTime();
+    if (isDirty && now - lastForceTime >= TimeUnit.MILLISECONDS.toNanos(FORCE_PERIOD_MS)) {
+      segment.force();
+      isDirty = false;
+      lastForceTime = now;
+    }
+  }
+
+  @Override
+  public void close() {
+    segment.force();
+    isDirty = false;
+  }
+
+  private void roll() throws IOException {
+    if (segment != null) {
+      segment.force();
+    }
+    segmentIndex++;
+    final File file = new File(dir, String.format("%s.%04d%s", baseName, segmentIndex, SEGMENT_EXTENSION));
+    // The mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+    segment.putInt(0, SEGMENT_MAGIC);
+    segment.putShort(4, BinaryLogFormat.VERSION);
+    segment.putShort(6, (short) SEGMENT_HEADER_BYTES);
+    segment.putInt(8, segmentIndex);
+    segment.putInt(COMMITTED_OFFSET, SEGMENT_HEADER_BYTES);
+    committed = SEGMENT_HEADER_BYTES;
+    segmentFile = file;
+  }
+}
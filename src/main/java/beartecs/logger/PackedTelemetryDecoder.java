@@ -0,0 +1,157 @@
+package beartecs.logger;
+
+import static beartecs.logger.PackedTelemetryFormat.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * Decodes the {@link PackedTelemetryFormat} entries on the dashboard side.
+ * Keeps the last decoded values; not thread safe.
+ */
+public class PackedTelemetryDecoder {
+  private final double[] m_moduleSpeeds = new double[MODULE_COUNT];
+  private final double[] m_moduleAngles = new double[MODULE_COUNT];
+  private Translation2d[] m_moduleLocations = new Translation2d[0];
+  private double m_timestamp = Double.NaN;
+  private short m_trajectoryVersion = 0;
+  private Pose2d m_pose = new Pose2d();
+  private Pose2d m_estimatedPose = new Pose2d();
+  private short m_loadedTrajectoryVersion = 0;
+  private Trajectory m_trajectory;
+
+  /**
+   * @param frame The value of the {@link PackedTelemetryFormat#FRAME_ENTRY}
+   * @return Whether the frame was decoded, false if it has another version or
+   *         size
+   */
+  public boolean decodeFrame(byte[] frame) {
+    if (frame == null || frame.length != FRAME_BYTES) {
+      return false;
+    }
+    final ByteBuffer src = ByteBuffer.wrap(frame);
+    if (src.getShort() != VERSION) {
+      return false;
+    }
+    m_trajectoryVersion = src.getShort();
+    m_timestamp = src.getDouble();
+    m_pose = getPose(src);
+    m_estimatedPose = getPose(src);
+    for (int i = 0; i < MODULE_COUNT; i++) {
+      m_moduleSpeeds[i] = src.getFloat();
+      m_moduleAngles[i] = src.getFloat();
+    }
+    return true;
+  }
+
+  /**
+   * @param trajectory The value of the
+   *                   {@link PackedTelemetryFormat#TRAJECTORY_ENTRY}
+   * @return Whether the trajectory was decoded
+   */
+  public boolean decodeTrajectory(byte[] trajectory) {
+    if (trajectory == null || trajectory.length < TRAJECTORY_HEADER_BYTES) {
+      return false;
+    }
+    final ByteBuffer src = ByteBuffer.wrap(trajectory);
+    if (src.getShort() != VERSION) {
+      return false;
+    }
+    final short version = src.getShort();
+    final int count = src.getInt();
+    if (count < 0 || src.remaining() != count * TRAJECTORY_STATE_BYTES) {
+      return false;
+    }
+    List<Trajectory.State> states = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final double time = src.getFloat();
+      states.add(new Trajectory.State(time, 0, 0, getPose(src), 0));
+    }
+    m_loadedTrajectoryVersion = version;
+    m_trajectory = states.isEmpty() ? null : new Trajectory(states);
+    return true;
+  }
+
+  /**
+   * @param modules The value of the {@link PackedTelemetryFormat#MODULES_ENTRY}
+   * @return Whether the module locations were decoded
+   */
+  public boolean decodeModules(byte[] modules) {
+    if (modules == null || modules.length < MODULES_HEADER_BYTES) {
+      return false;
+    }
+    final ByteBuffer src = ByteBuffer.wrap(modules);
+    if (src.getShort() != VERSION) {
+      return false;
+    }
+    final int count = src.getShort();
+    if (count < 0 || src.remaining() != count * 2 * Float.BYTES) {
+      return false;
+    }
+    Translation2d[] locations = new Translation2d[count];
+    for (int i = 0; i < count; i++) {
+      locations[i] = new Translation2d(src.getFloat(), src.getFloat());
+    }
+    m_moduleLocations = locations;
+    return true;
+  }
+
+  /**
+   * @return The FPGA timestamp of the last frame, NaN before the first one
+   */
+  public double getTimestamp() {
+    return m_timestamp;
+  }
+
+  public Pose2d getPose() {
+    return m_pose;
+  }
+
+  public Pose2d getEstimatedPose() {
+    return m_estimatedPose;
+  }
+
+  public double getModuleSpeed(int index) {
+    return m_moduleSpeeds[index];
+  }
+
+  public Rotation2d getModuleAngle(int index) {
+    return new Rotation2d(m_moduleAngles[index]);
+  }
+
+  /**
+   * @return The module pose on the field, or null until the module locations
+   *         have been decoded
+   */
+  public Pose2d getModulePose(int index) {
+    if (index >= m_moduleLocations.length) {
+      return null;
+    }
+    final Rotation2d heading = m_pose.getRotation();
+    return new Pose2d(m_moduleLocations[index].rotateBy(heading).plus(m_pose.getTranslation()),
+        getModuleAngle(index).plus(heading));
+  }
+
+  /**
+   * @return The trajectory shown in the last frame, or null if none is shown or
+   *         its entry has not arrived yet
+   */
+  public Trajectory getTrajectory() {
+    if (m_trajectoryVersion == 0 || m_loadedTrajectoryVersion != m_trajectoryVersion) {
+      return null;
+    }
+    return m_trajectory;
+  }
+
+  private static Pose2d getPose(ByteBuffer src) {
+    final double x = src.getFloat();
+    final double y = src.getFloat();
+    return new Pose2d(x, y, new Rotation2d(src.getFloat()));
+  }
+}
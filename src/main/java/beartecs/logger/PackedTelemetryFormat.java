@@ -0,0 +1,146 @@
+package beartecs.logger;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * The fixed binary schema of the drive telemetry sent as raw NetworkTables
+ * entries in the {@link #TABLE} table, read by {@link PackedTelemetryDecoder}.
+ * Every value is big-endian and every length is in meters, seconds and
+ * radians.
+ *
+ * <p>
+ * The {@link #FRAME_ENTRY} is sent every loop and is always
+ * {@link #FRAME_BYTES} bytes:
+ * </p>
+ *
+ * <pre>
+ * short  version
+ * short  trajectory version, 0 when no trajectory is shown
+ * double timestamp (FPGA seconds)
+ * float  pose x, y, heading
+ * float  estimated pose x, y, heading
+ * {@link #MODULE_COUNT} x { float speed (m/s), float angle }
+ * </pre>
+ * <p>
+ * The {@link #TRAJECTORY_ENTRY} is only sent when the shown trajectory
+ * changes. Its trajectory version matches the frames sent while it is shown,
+ * so a dashboard can tell whether the trajectory it has is the current one:
+ * </p>
+ *
+ * <pre>
+ * short  version
+ * short  trajectory version
+ * int    state count
+ * state count x { float time, float x, float y, float heading }
+ * </pre>
+ * <p>
+ * The {@link #MODULES_ENTRY} is sent once and holds the module locations
+ * relative to the robot center, in the order of the module states:
+ * </p>
+ *
+ * <pre>
+ * short  version
+ * short  module count
+ * module count x { float x, float y }
+ * </pre>
+ */
+public final class PackedTelemetryFormat {
+  public static final String TABLE = "PackedTelemetry";
+  public static final String FRAME_ENTRY = "frame";
+  public static final String TRAJECTORY_ENTRY = "trajectory";
+  public static final String MODULES_ENTRY = "modules";
+
+  public static final short VERSION = 1;
+  public static final int MODULE_COUNT = 4;
+  public static final int FRAME_BYTES = 2 * Short.BYTES + Double.BYTES + 6 * Float.BYTES
+      + MODULE_COUNT * 2 * Float.BYTES;
+  public static final int TRAJECTORY_HEADER_BYTES = 2 * Short.BYTES + Integer.BYTES;
+  public static final int TRAJECTORY_STATE_BYTES = 4 * Float.BYTES;
+  public static final int MODULES_HEADER_BYTES = 2 * Short.BYTES;
+
+  private PackedTelemetryFormat() {
+  }
+
+  /**
+   * @param version The previous trajectory version
+   * @return The version to send the next trajectory with, never 0
+   */
+  public static short nextTrajectoryVersion(short version) {
+    return version == Short.MAX_VALUE ? 1 : (short) (version + 1);
+  }
+
+  /**
+   * Encodes a frame without allocating.
+   *
+   * @param dst               The buffer to write into, must have at least
+   *                          {@link #FRAME_BYTES} remaining
+   * @param trajectoryVersion The version of the shown trajectory, 0 for none
+   * @param timestamp         The FPGA timestamp in seconds
+   * @param pose              The robot pose
+   * @param estimatedPose     The estimated robot pose
+   * @param moduleStates      The {@link #MODULE_COUNT} module states, or null
+   *                          to send zeros
+   */
+  public static void encodeFrame(ByteBuffer dst, short trajectoryVersion, double timestamp, Pose2d pose,
+      Pose2d estimatedPose, SwerveModuleState[] moduleStates) {
+    dst.putShort(VERSION);
+    dst.putShort(trajectoryVersion);
+    dst.putDouble(timestamp);
+    putPose(dst, pose);
+    putPose(dst, estimatedPose);
+    for (int i = 0; i < MODULE_COUNT; i++) {
+      if (moduleStates == null || i >= moduleStates.length) {
+        dst.putFloat(0);
+        dst.putFloat(0);
+      } else {
+        dst.putFloat((float) moduleStates[i].speedMetersPerSecond);
+        dst.putFloat((float) moduleStates[i].angle.getRadians());
+      }
+    }
+  }
+
+  /**
+   * @param trajectoryVersion The version the trajectory is shown with
+   * @param trajectory        The trajectory, or null to clear it
+   * @return The encoded trajectory
+   */
+  public static byte[] encodeTrajectory(short trajectoryVersion, Trajectory trajectory) {
+    final List<Trajectory.State> states = trajectory == null ? List.of() : trajectory.getStates();
+    final ByteBuffer dst = ByteBuffer.allocate(TRAJECTORY_HEADER_BYTES + states.size() * TRAJECTORY_STATE_BYTES);
+    dst.putShort(VERSION);
+    dst.putShort(trajectoryVersion);
+    dst.putInt(states.size());
+    for (Trajectory.State state : states) {
+      dst.putFloat((float) state.timeSeconds);
+      putPose(dst, state.poseMeters);
+    }
+    return dst.array();
+  }
+
+  /**
+   * @param locations The module locations relative to the robot center
+   * @return The encoded module locations
+   */
+  public static byte[] encodeModules(Translation2d[] locations) {
+    final ByteBuffer dst = ByteBuffer.allocate(MODULES_HEADER_BYTES + locations.length * 2 * Float.BYTES);
+    dst.putShort(VERSION);
+    dst.putShort((short) locations.length);
+    for (Translation2d location : locations) {
+      dst.putFloat((float) location.getX());
+      dst.putFloat((float) location.getY());
+    }
+    return dst.array();
+  }
+
+  private static void putPose(ByteBuffer dst, Pose2d pose) {
+    dst.putFloat((float) pose.getX());
+    dst.putFloat((float) pose.getY());
+    dst.putFloat((float) pose.getRotation().getRadians());
+  }
+}
@@ -19,6 +19,8 @@ import java.util.logging.Logger;
 import beartecs.Constants;
 import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotController;
 import frc.robot.Robot;
 
 /**
@@ -36,6 +38,14 @@ import frc.robot.Robot;
  * disabled.
  * </p>
  * <p>
+ * Logging calls never format or write anything on the calling thread. Events
+ * are stamped with the FPGA time and queued into an {@link AsyncLogBuffer},
+ * whose writer thread forwards them to the console/file handlers and to
+ * memory-mapped binary log segments (see {@link MappedLogSink}) next to the
+ * text logs. The binary segments do not depend on {@link #flush()} and keep
+ * everything up to the last drained batch even if the robot loses power.
+ * </p>
+ * <p>
  * Note: Since the roboRIO has no external battery to power the RTC, its system
  * time will be reset every time power is lost. The system time is only
  * correctly updated after the Driver Station is connected. Therefore, you
@@ -53,6 +63,8 @@ import frc.robot.Robot;
  * @author Tyler Tian
  */
 public class RobotLogger {
+  private static RobotLogger instance;
+
   private ConsoleHandler consoleHandler;
   private FileHandler fileHandler;
   private Formatter formatter;
@@ -60,6 +72,8 @@ public class RobotLogger {
 
   private File logDir;
   private File logFile;
+  private MappedLogSink segmentSink;
+  private AsyncLogBuffer buffer;
 
   private boolean isInitialized = false;
 
@@ -85,12 +99,45 @@ public class RobotLogger {
     });
   }
 
+  /**
+   * Returns the robot's logger, initializing it on first use. On the robot the
+   * logs go to "/home/lvuser/frc-robot-logs", in simulation to a "logs"
+   * directory in the working directory.
+   *
+   * @return The shared logger
+   * @throws RuntimeException If the log directory could not be created
+   */
+  public static synchronized RobotLogger getInstance() {
+    if (instance == null) {
+      instance = new RobotLogger();
+      try {
+        if (Robot.isReal()) {
+          instance.init(Robot.class);
+        } else {
+          instance.init(Robot.class, new File(Filesystem.getOperatingDirectory(), "logs"));
+        }
+        instance.setLevel(Level.INFO);
+
+        instance.cleanLogs(Constants.LOG_EXPIRATION_IN_HRS);
+        instance.logInfo("Logger initialized");
+      } catch (IOException error) {
+        DriverStation.reportError("Failed to init logger!", false);
+        throw new RuntimeException(error);
+      }
+    }
+    return instance;
+  }
+
   /**
    * Formatter for the logger.
    * 
    * <p>
    * Messages are formatted in the format: (yyyy/MM/dd HH:mm:ss) [LEVEL] Message
    * </p>
+   * <p>
+   * Only ever called from the {@link AsyncLogBuffer} writer thread, so sharing
+   * the date format is safe.
+   * </p>
    */
   private static class RobotLoggerFormatter extends Formatter {
 
@@ -98,7 +145,7 @@ public class RobotLogger {
 
     @Override
     public String format(LogRecord record) {
-      StringBuilder builder = new StringBuilder(format.format(new Date()));
+      StringBuilder builder = new StringBuilder(format.format(new Date(record.getMillis())));
       builder.append(" [").append(record.getLevel().toString()).append("]: ").append(record.getMessage())
           .append("\n");
       return builder.toString();
@@ -210,14 +257,20 @@ public class RobotLogger {
     logger = Logger.getLogger(robotClass.getName());
     logger.setUseParentHandlers(false);
 
-    if (Constants.ENABLE_DS_LOG_SAVE) {
-      if (!Robot.isSimulation()) {
-        // Starts recording to data log
-        DataLogManager.start();
+    if ((Constants.ENABLE_DS_LOG_SAVE || Constants.ENABLE_SIGNAL_LOG) && !Robot.isSimulation()) {
+      // The signals already hold what replay needs, mirroring every NetworkTables
+      // change would only add write bandwidth
+      DataLogManager.logNetworkTables(false);
+      // Starts recording to data log
+      DataLogManager.start();
 
+      if (Constants.ENABLE_DS_LOG_SAVE) {
         // (alternatively) Record only DS control data
         DriverStation.startDataLog(DataLogManager.getLog(), false);
       }
+      if (Constants.ENABLE_SIGNAL_LOG) {
+        SignalLogger.getInstance().start(DataLogManager.getLog());
+      }
     }
 
     this.logDir = logDir;
@@ -254,6 +307,9 @@ public class RobotLogger {
       logger.addHandler(fileHandler);
     }
 
+    this.segmentSink = new MappedLogSink(logDir, dateFormat.format(date));
+    this.buffer = new AsyncLogBuffer(new JulLogSink(logger), segmentSink);
+
     isInitialized = true;
   }
 
@@ -296,7 +352,7 @@ public class RobotLogger {
   public void logError(String error) {
     if (isInitialized) {
       DriverStation.reportError(error, false);
-      logger.severe(error);
+      enqueue(Level.SEVERE, error);
 
       if (logHandler != null) {
         logHandler.accept(Level.SEVERE, error);
@@ -318,7 +374,7 @@ public class RobotLogger {
   public void logWarning(String warning) {
     if (isInitialized) {
       DriverStation.reportWarning(warning, false);
-      logger.warning(warning);
+      enqueue(Level.WARNING, warning);
 
       if (logHandler != null) {
         logHandler.accept(Level.WARNING, warning);
@@ -338,7 +394,7 @@ public class RobotLogger {
    */
   public void logInfo(String info) {
     if (isInitialized) {
-      logger.info(info);
+      enqueue(Level.INFO, info);
 
       if (logHandler != null) {
         logHandler.accept(Level.INFO, info);
@@ -346,6 +402,20 @@ public class RobotLogger {
     }
   }
 
+  private void enqueue(Level level, String message) {
+    if (logger.isLoggable(level)) {
+      buffer.offer(BinaryLogFormat.fromLevel(level), message, RobotController.getFPGATime());
+    }
+  }
+
+  /**
+   * @return The number of log events dropped because the writer thread fell
+   *         behind
+   */
+  public long getDroppedCount() {
+    return isInitialized ? buffer.getDroppedCount() : 0;
+  }
+
   /**
    * 
    * If @param useConsoleHandler is true - Writes the logs to console.
@@ -361,6 +431,7 @@ public class RobotLogger {
    */
   public void flush() {
     if (isInitialized) {
+      buffer.flush();
       if (useConsoleHandler) {
         consoleHandler.flush();
       } else {
@@ -373,8 +444,8 @@ public class RobotLogger {
    * Deletes all the logs that are more than a certain number of hours old.
    * 
    * <p>
-   * This method will only delete files that have an extension of .log, or
-   * .log.lck.
+   * This method will only delete files that have an extension of .log,
+   * .log.lck, .rlog or .rlogseg.
    * </p>
    * <p>
    * Note that unlike {@link #cleanLogs(File, double)}, this method will have no
@@ -395,8 +466,8 @@ public class RobotLogger {
    * Deletes all the logs that are more than a certain number of hours old.
    * 
    * <p>
-   * This method will only delete files that have an extension of .log, or
-   * .log.lck.
+   * This method will only delete files that have an extension of .log,
+   * .log.lck, .rlog or .rlogseg.
    * </p>
    * <p>
    * Unlike {@link #cleanLogs(double)}, this method still works even if the logger
@@ -423,10 +494,7 @@ public class RobotLogger {
       // Check only files that end in .log
       // Also make sure that it's not the file currently used
       try {
-        if (f.isFile()
-            && (f.getName().endsWith(".log") && !f.getCanonicalPath().equals(logFile.getCanonicalPath()))
-            || (f.getName().endsWith(".log.lck")
-                && !f.getCanonicalPath().equals(logFile.getCanonicalPath() + ".lck"))) {
+        if (f.isFile() && isExpirableLog(f)) {
           // Calculate time after last modified
           double diffHours = (now.getTime() - f.lastModified()) / 3600000.0;
           if (diffHours >= maxAgeHours) {
@@ -438,4 +506,23 @@ public class RobotLogger {
       }
     }
   }
+
+  private boolean isExpirableLog(File f) throws IOException {
+    final String name = f.getName();
+    final String path = f.getCanonicalPath();
+    if (name.endsWith(".log")) {
+      return logFile == null || !path.equals(logFile.getCanonicalPath());
+    }
+    if (name.endsWith(".log.lck")) {
+      return logFile == null || !path.equals(logFile.getCanonicalPath() + ".lck");
+    }
+    if (name.endsWith(".rlog")) {
+      return true;
+    }
+    if (name.endsWith(MappedLogSink.SEGMENT_EXTENSION)) {
+      // Only the active segment is still being written to, older ones of this run can go
+      return segmentSink == null || !path.equals(segmentSink.getCurrentSegment().getCanonicalPath());
+    }
+    return false;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,333 @@
+package beartecs.logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Records typed signals to a WPILib {@link DataLog} for post-match replay.
+ *
+ * <p>
+ * Signals are registered once, usually in a subsystem constructor, and either
+ * written with {@code set} from the loop that already has the value or given a
+ * supplier that is only called while recording. {@link #periodic()} appends
+ * every due signal with the same FPGA timestamp, so the values of one loop line
+ * up in the log. Nothing is allocated per loop: the values live in the signals
+ * and arrays are compared against a preallocated copy.
+ * </p>
+ * <p>
+ * A signal is only appended when it changed and at most once per its period,
+ * so {@link #getMaxBytesPerSecond()} bounds the write bandwidth. Poses are
+ * recorded as {@code double[]} of x, y and heading in radians.
+ * </p>
+ * <p>
+ * Signals can be registered before {@link #start(DataLog)}; until then
+ * nothing is recorded and suppliers are not called. Only meant to be used from
+ * the main robot thread.
+ * </p>
+ */
+public class SignalLogger {
+  public static final double LOOP_PERIOD_SEC = 0.02;
+  // A loop that starts a little early still records the signals due this loop
+  private static final long JITTER_TOLERANCE_MICROS = (long) (LOOP_PERIOD_SEC / 2 * 1e6);
+  // Worst case of the record header DataLog writes in front of every value
+  private static final int RECORD_HEADER_BYTES = 1 + 4 + 4 + 8;
+
+  private static SignalLogger instance;
+
+  private final List<Signal> m_signals = new ArrayList<>();
+  private DataLog m_log;
+
+  public static SignalLogger getInstance() {
+    if (instance == null) {
+      instance = new SignalLogger();
+    }
+    return instance;
+  }
+
+  /**
+   * Starts recording every registered and future signal.
+   *
+   * @param log The log to record to, e.g. {@code DataLogManager.getLog()}
+   */
+  public void start(DataLog log) {
+    if (m_log != null) {
+      return;
+    }
+    m_log = log;
+    final long now = RobotController.getFPGATime();
+    for (int i = 0; i < m_signals.size(); i++) {
+      m_signals.get(i).open(log, now);
+    }
+  }
+
+  public boolean isStarted() {
+    return m_log != null;
+  }
+
+  public DoubleSignal addDouble(String name) {
+    return addDouble(name, null, LOOP_PERIOD_SEC);
+  }
+
+  /**
+   * @param name      The name of the signal in the log, e.g. "Arm/Position"
+   * @param supplier  Reads the value when the signal is due, or null to
+   *                  {@link DoubleSignal#set} it
+   * @param periodSec The minimum time between two records
+   * @return The signal
+   */
+  public DoubleSignal addDouble(String name, DoubleSupplier supplier, double periodSec) {
+    return register(new DoubleSignal(name, supplier, periodSec));
+  }
+
+  public BooleanSignal addBoolean(String name) {
+    return addBoolean(name, null, LOOP_PERIOD_SEC);
+  }
+
+  /**
+   * @param name      The name of the signal in the log
+   * @param supplier  Reads the value when the signal is due, or null to
+   *                  {@link BooleanSignal#set} it
+   * @param periodSec The minimum time between two records
+   * @return The signal
+   */
+  public BooleanSignal addBoolean(String name, BooleanSupplier supplier, double periodSec) {
+    return register(new BooleanSignal(name, supplier, periodSec));
+  }
+
+  public DoubleArraySignal addDoubleArray(String name, int length) {
+    return addDoubleArray(name, length, LOOP_PERIOD_SEC);
+  }
+
+  /**
+   * @param name      The name of the signal in the log
+   * @param length    The fixed number of values
+   * @param periodSec The minimum time between two records
+   * @return The signal
+   */
+  public DoubleArraySignal addDoubleArray(String name, int length, double periodSec) {
+    return register(new DoubleArraySignal(name, length, periodSec));
+  }
+
+  public PoseSignal addPose(String name) {
+    return addPose(name, LOOP_PERIOD_SEC);
+  }
+
+  public PoseSignal addPose(String name, double periodSec) {
+    return register(new PoseSignal(name, periodSec));
+  }
+
+  /**
+   * Appends every due signal that changed. Call once per loop, after the
+   * subsystems have set their values.
+   */
+  public void periodic() {
+    if (m_log == null) {
+      return;
+    }
+    final long now = RobotController.getFPGATime();
+    for (int i = 0; i < m_signals.size(); i++) {
+      final Signal signal = m_signals.get(i);
+      if (now >= signal.m_nextTime - JITTER_TOLERANCE_MICROS) {
+        // From the deadline, not the call time, so the jitter of the loop does not add up
+        signal.m_nextTime += signal.m_periodMicros;
+        if (signal.m_nextTime <= now) {
+          signal.m_nextTime = now + signal.m_periodMicros; // More than a period behind, start over
+        }
+        signal.append(now);
+      }
+    }
+  }
+
+  /**
+   * @return The most bytes per second the registered signals can write if
+   *         every one of them changes every time it is due
+   */
+  public double getMaxBytesPerSecond() {
+    double bytes = 0;
+    for (Signal signal : m_signals) {
+      bytes += (RECORD_HEADER_BYTES + signal.getPayloadBytes()) * 1e6 / signal.m_periodMicros;
+    }
+    return bytes;
+  }
+
+  private <T extends Signal> T register(T signal) {
+    m_signals.add(signal);
+    if (m_log != null) {
+      signal.open(m_log, RobotController.getFPGATime());
+    }
+    return signal;
+  }
+
+  public abstract static class Signal {
+    protected final String m_name;
+    private final long m_periodMicros;
+    private long m_nextTime = 0;
+    protected boolean m_force = true;
+
+    private Signal(String name, double periodSec) {
+      m_name = name;
+      // Never faster than the loop, that is the rate set() values change at
+      m_periodMicros = (long) (Math.max(periodSec, LOOP_PERIOD_SEC) * 1e6);
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    abstract void open(DataLog log, long timestamp);
+
+    /**
+     * Appends the value unless it is the last one appended.
+     */
+    abstract void append(long timestamp);
+
+    abstract int getPayloadBytes();
+  }
+
+  public static final class DoubleSignal extends Signal {
+    private final DoubleSupplier m_supplier;
+    private DoubleLogEntry m_entry;
+    private double m_value = 0;
+    private double m_logged = 0;
+
+    private DoubleSignal(String name, DoubleSupplier supplier, double periodSec) {
+      super(name, periodSec);
+      m_supplier = supplier;
+    }
+
+    public void set(double value) {
+      m_value = value;
+    }
+
+    @Override
+    void open(DataLog log, long timestamp) {
+      m_entry = new DoubleLogEntry(log, m_name, timestamp);
+    }
+
+    @Override
+    void append(long timestamp) {
+      if (m_supplier != null) {
+        m_value = m_supplier.getAsDouble();
+      }
+      if (!m_force && Double.compare(m_value, m_logged) == 0) {
+        return;
+      }
+      m_entry.append(m_value, timestamp);
+      m_logged = m_value;
+      m_force = false;
+    }
+
+    @Override
+    int getPayloadBytes() {
+      return Double.BYTES;
+    }
+  }
+
+  public static final class BooleanSignal extends Signal {
+    private final BooleanSupplier m_supplier;
+    private BooleanLogEntry m_entry;
+    private boolean m_value = false;
+    private boolean m_logged = false;
+
+    private BooleanSignal(String name, BooleanSupplier supplier, double periodSec) {
+      super(name, periodSec);
+      m_supplier = supplier;
+    }
+
+    public void set(boolean value) {
+      m_value = value;
+    }
+
+    @Override
+    void open(DataLog log, long timestamp) {
+      m_entry = new BooleanLogEntry(log, m_name, timestamp);
+    }
+
+    @Override
+    void append(long timestamp) {
+      if (m_supplier != null) {
+        m_value = m_supplier.getAsBoolean();
+      }
+      if (!m_force && m_value == m_logged) {
+        return;
+      }
+      m_entry.append(m_value, timestamp);
+      m_logged = m_value;
+      m_force = false;
+    }
+
+    @Override
+    int getPayloadBytes() {
+      return 1;
+    }
+  }
+
+  public static class DoubleArraySignal extends Signal {
+    private final double[] m_values;
+    private final double[] m_logged;
+    private DoubleArrayLogEntry m_entry;
+
+    private DoubleArraySignal(String name, int length, double periodSec) {
+      super(name, periodSec);
+      m_values = new double[length];
+      m_logged = new double[length];
+    }
+
+    public void set(int index, double value) {
+      m_values[index] = value;
+    }
+
+    /**
+     * @param values The values to copy, at least as many as the signal has
+     */
+    public void set(double[] values) {
+      System.arraycopy(values, 0, m_values, 0, m_values.length);
+    }
+
+    public int getLength() {
+      return m_values.length;
+    }
+
+    @Override
+    void open(DataLog log, long timestamp) {
+      m_entry = new DoubleArrayLogEntry(log, m_name, timestamp);
+    }
+
+    @Override
+    void append(long timestamp) {
+      if (!m_force && Arrays.equals(m_values, m_logged)) {
+        return;
+      }
+      m_entry.append(m_values, timestamp);
+      System.arraycopy(m_values, 0, m_logged, 0, m_values.length);
+      m_force = false;
+    }
+
+    @Override
+    int getPayloadBytes() {
+      return m_values.length * Double.BYTES;
+    }
+  }
+
+  public static final class PoseSignal extends DoubleArraySignal {
+    private PoseSignal(String name, double periodSec) {
+      super(name, 3, periodSec);
+    }
+
+    public void set(Pose2d pose) {
+      set(0, pose.getX());
+      set(1, pose.getY());
+      set(2, pose.getRotation().getRadians());
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package beartecs.logger;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Publishes dashboard values at a limited rate and only when they change,
+ * instead of Shuffleboard calling a supplier for every widget on every loop.
+ *
+ * <p>
+ * Every field is a slot in preallocated arrays. Subsystems write the values
+ * they already read this loop with {@link Field#set}, which only stores them.
+ * {@link #periodic()} then sends a field when its period has passed and it
+ * moved more than its deadband since it was last sent. Fields that have no
+ * loop to set them, like the swerve module widgets, can be given a supplier
+ * instead; it is only called when the field is due.
+ * </p>
+ * <p>
+ * Only meant to be used from the main robot thread.
+ * </p>
+ */
+public class TelemetryPublisher {
+  public static final double DEFAULT_PERIOD_SEC = 0.1;
+  public static final double DEFAULT_DEADBAND = 1e-3;
+  private static final int INITIAL_CAPACITY = 64;
+  private static final double JITTER_TOLERANCE_SEC = 0.01; // Half a loop, a loop that starts early still sends
+
+  private static TelemetryPublisher instance;
+
+  private NetworkTableEntry[] m_entries = new NetworkTableEntry[INITIAL_CAPACITY];
+  private DoubleSupplier[] m_suppliers = new DoubleSupplier[INITIAL_CAPACITY];
+  private boolean[] m_isBoolean = new boolean[INITIAL_CAPACITY];
+  private double[] m_values = new double[INITIAL_CAPACITY];
+  private double[] m_published = new double[INITIAL_CAPACITY];
+  private double[] m_deadbands = new double[INITIAL_CAPACITY];
+  private double[] m_periods = new double[INITIAL_CAPACITY];
+  private double[] m_nextTimes = new double[INITIAL_CAPACITY];
+  private int m_count = 0;
+
+  public static TelemetryPublisher getInstance() {
+    if (instance == null) {
+      instance = new TelemetryPublisher();
+    }
+    return instance;
+  }
+
+  /**
+   * @param entry The entry to publish to, e.g. from
+   *              {@code container.add(name, 0.0).getEntry()}
+   * @return The field to write the value to every loop
+   */
+  public Field addNumber(NetworkTableEntry entry) {
+    return addNumber(entry, DEFAULT_DEADBAND, DEFAULT_PERIOD_SEC);
+  }
+
+  /**
+   * @param entry     The entry to publish to
+   * @param deadband  The smallest change that is published
+   * @param periodSec The shortest time between two publishes
+   * @return The field to write the value to every loop
+   */
+  public Field addNumber(NetworkTableEntry entry, double deadband, double periodSec) {
+    return add(entry, null, false, deadband, periodSec);
+  }
+
+  /**
+   * @param entry     The entry to publish to
+   * @param value     Called when the field is due, must not block
+   * @param deadband  The smallest change that is published
+   * @param periodSec The shortest time between two publishes
+   * @return The field
+   */
+  public Field addNumber(NetworkTableEntry entry, DoubleSupplier value, double deadband, double periodSec) {
+    return add(entry, value, false, deadband, periodSec);
+  }
+
+  public Field addBoolean(NetworkTableEntry entry) {
+    return add(entry, null, true, 0, DEFAULT_PERIOD_SEC);
+  }
+
+  public Field addBoolean(NetworkTableEntry entry, BooleanSupplier value, double periodSec) {
+    return add(entry, () -> value.getAsBoolean() ? 1 : 0, true, 0, periodSec);
+  }
+
+  /**
+   * Publishes every field that is due and has changed. Call once per loop.
+   */
+  public void periodic() {
+    final double now = Timer.getFPGATimestamp();
+    for (int i = 0; i < m_count; i++) {
+      if (now < m_nextTimes[i] - JITTER_TOLERANCE_SEC) {
+        continue;
+      }
+      // From the deadline, not the call time, so the jitter of the loop does not add up
+      m_nextTimes[i] += m_periods[i];
+      if (m_nextTimes[i] <= now) {
+        m_nextTimes[i] = now + m_periods[i]; // More than a period behind, start over
+      }
+      if (m_suppliers[i] != null) {
+        m_values[i] = m_suppliers[i].getAsDouble();
+      }
+      final double value = m_values[i];
+      // The first value is always sent, NaN never compares
+      if (!Double.isNaN(m_published[i]) && !(Math.abs(value - m_published[i]) > m_deadbands[i])) {
+        continue;
+      }
+      if (m_isBoolean[i]) {
+        m_entries[i].setBoolean(value != 0);
+      } else {
+        m_entries[i].setDouble(value);
+      }
+      m_published[i] = value;
+    }
+  }
+
+  /**
+   * @return The number of registered fields
+   */
+  public int getFieldCount() {
+    return m_count;
+  }
+
+  private Field add(NetworkTableEntry entry, DoubleSupplier supplier, boolean isBoolean, double deadband,
+      double periodSec) {
+    if (m_count == m_entries.length) {
+      final int capacity = m_count * 2;
+      m_entries = Arrays.copyOf(m_entries, capacity);
+      m_suppliers = Arrays.copyOf(m_suppliers, capacity);
+      m_isBoolean = Arrays.copyOf(m_isBoolean, capacity);
+      m_values = Arrays.copyOf(m_values, capacity);
+      m_published = Arrays.copyOf(m_published, capacity);
+      m_deadbands = Arrays.copyOf(m_deadbands, capacity);
+      m_periods = Arrays.copyOf(m_periods, capacity);
+      m_nextTimes = Arrays.copyOf(m_nextTimes, capacity);
+    }
+    final int index = m_count++;
+    m_entries[index] = entry;
+    m_suppliers[index] = supplier;
+    m_isBoolean[index] = isBoolean;
+    m_published[index] = Double.NaN;
+    m_deadbands[index] = deadband;
+    m_periods[index] = periodSec;
+    return new Field(index);
+  }
+
+  /**
+   * A handle to one published value.
+   */
+  public final class Field {
+    private final int m_index;
+
+    private Field(int index) {
+      m_index = index;
+    }
+
+    /**
+     * Stores the value, it is published by {@link TelemetryPublisher#periodic()}.
+     */
+    public void set(double value) {
+      m_values[m_index] = value;
+    }
+
+    public void set(boolean value) {
+      m_values[m_index] = value ? 1 : 0;
+    }
+  }
+}
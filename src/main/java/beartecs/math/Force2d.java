@@ -1,14 +1,23 @@
 package beartecs.math;
 
-import org.ejml.simple.SimpleMatrix;
-
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N2;
 
+/**
+ * A mutable 2D force stored as primitive components.
+ *
+ * <p>
+ * The operations that return a new force are kept for convenience, the
+ * simulation loop uses the in-place {@link #set}, {@link #accum},
+ * {@link #rotate} and {@link #scale} on reused instances so it never
+ * allocates.
+ * </p>
+ */
 public class Force2d {
-  Matrix<N2, N1> m;
+  public double x;
+  public double y;
 
   /**
    * Constructs a Force2d with X and Y components equal to zero.
@@ -25,9 +34,8 @@ public class Force2d {
    * @param y The y component of the force.
    */
   public Force2d(double x, double y) {
-    m = new Matrix<>(new SimpleMatrix(2, 1));
-    m.set(0, 0, x);
-    m.set(1, 0, y);
+    this.x = x;
+    this.y = y;
   }
 
   /**
@@ -47,7 +55,7 @@ public class Force2d {
    * @param m_in 2 row, 1 column input matrix
    */
   public Force2d(Matrix<N2, N1> m_in) {
-    m = m_in;
+    this(m_in.get(0, 0), m_in.get(1, 0));
   }
 
   /**
@@ -66,7 +74,7 @@ public class Force2d {
    */
 
   public double getX() {
-    return m.get(0, 0);
+    return x;
   }
 
   /**
@@ -76,7 +84,7 @@ public class Force2d {
    */
 
   public double getY() {
-    return m.get(1, 0);
+    return y;
   }
 
   /**
@@ -85,7 +93,7 @@ public class Force2d {
    * @return The norm of the force.
    */
   public double getNorm() {
-    return m.normF();
+    return Math.hypot(x, y);
   }
 
   /**
@@ -96,6 +104,53 @@ public class Force2d {
     return new Vector2d(this.getX() / this.getNorm(), this.getY() / this.getNorm());
   }
 
+  /**
+   * Sets both components of this force in-place.
+   *
+   * @param x The x component of the force.
+   * @param y The y component of the force.
+   * @return This force, for chaining.
+   */
+  public Force2d set(double x, double y) {
+    this.x = x;
+    this.y = y;
+    return this;
+  }
+
+  /**
+   * Copies another force into this force in-place.
+   *
+   * @param other The force to copy.
+   * @return This force, for chaining.
+   */
+  public Force2d set(Force2d other) {
+    return set(other.x, other.y);
+  }
+
+  /**
+   * Rotates this force in-place by the angle with the given cosine and sine, as
+   * in {@link #rotateBy(Rotation2d)}.
+   *
+   * @param cos The cosine of the angle.
+   * @param sin The sine of the angle.
+   * @return This force, for chaining.
+   */
+  public Force2d rotate(double cos, double sin) {
+    return set(x * cos - y * sin, x * sin + y * cos);
+  }
+
+  /**
+   * Multiplies this force by a scalar in-place.
+   *
+   * @param scalar The scalar to multiply by.
+   * @return This force, for chaining.
+   */
+  public Force2d scale(double scalar) {
+    x *= scalar;
+    y *= scalar;
+    return this;
+  }
+
   /**
    * Applies a rotation to the force in 2d space.
    *
@@ -127,7 +182,7 @@ public class Force2d {
    * @return The sum of the forces.
    */
   public Force2d plus(Force2d other) {
-    return new Force2d(this.m.plus(other.m));
+    return new Force2d(x + other.x, y + other.y);
   }
 
   /**
@@ -138,7 +193,18 @@ public class Force2d {
    * @return nothing (acts on this force in-place)
    */
   public void accum(Force2d other) {
-    this.m = this.m.plus(other.m);
+    accum(other.x, other.y);
+  }
+
+  /**
+   * Accumulates the given components into this force
+   *
+   * @param x The x component to add.
+   * @param y The y component to add.
+   */
+  public void accum(double x, double y) {
+    this.x += x;
+    this.y += y;
   }
 
   /**
@@ -152,7 +218,7 @@ public class Force2d {
    * @return The difference between the two forces.
    */
   public Force2d minus(Force2d other) {
-    return new Force2d(this.m.minus(other.m));
+    return new Force2d(x - other.x, y - other.y);
   }
 
   /**
@@ -163,7 +229,7 @@ public class Force2d {
    * @return The inverse of the current force.
    */
   public Force2d unaryMinus() {
-    return new Force2d(this.m.times(-1.0));
+    return new Force2d(-x, -y);
   }
 
   /**
@@ -175,7 +241,7 @@ public class Force2d {
    * @return The scaled force.
    */
   public Force2d times(double scalar) {
-    return new Force2d(this.m.times(scalar));
+    return new Force2d(x * scalar, y * scalar);
   }
 
   /**
@@ -187,7 +253,7 @@ public class Force2d {
    * @return The reference to the new mutated object.
    */
   public Force2d div(double scalar) {
-    return new Force2d(this.m.div(scalar));
+    return new Force2d(x / scalar, y / scalar);
   }
 
   /**
@@ -211,7 +277,7 @@ public class Force2d {
   @Override
   public boolean equals(Object obj) {
     if (obj instanceof Force2d) {
-      return this.m.isEqual(((Force2d) obj).m, 1E-9);
+      return Math.abs(((Force2d) obj).x - x) < 1E-9 && Math.abs(((Force2d) obj).y - y) < 1E-9;
     } else {
       return false;
     }
@@ -0,0 +1,98 @@
+package beartecs.math;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations with log-linear buckets, the layout HdrHistogram
+ * uses. Durations are counted in microseconds, exactly below
+ * {@value #SUB_BUCKETS} us and within about 6% above, so percentiles cost a
+ * walk over a few hundred counters. The counters are allocated once; recording
+ * never allocates.
+ *
+ * <p>
+ * Not thread safe, record and read from the same thread.
+ * </p>
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  public static final long MAX_MICROS = 1_000_000; // Longer durations are counted as this
+
+  private final long[] m_counts = new long[indexOf(MAX_MICROS) + 1];
+  private long m_count = 0;
+  private long m_totalNanos = 0;
+  private long m_maxNanos = 0;
+
+  /**
+   * @param nanos A duration from {@link System#nanoTime()}
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    m_counts[indexOf(Math.min(nanos / 1000, MAX_MICROS))]++;
+    m_count++;
+    m_totalNanos += nanos;
+    if (nanos > m_maxNanos) {
+      m_maxNanos = nanos;
+    }
+  }
+
+  public long getCount() {
+    return m_count;
+  }
+
+  public double getMaxMs() {
+    return m_maxNanos / 1e6;
+  }
+
+  public double getMeanMs() {
+    return m_count == 0 ? 0 : m_totalNanos / 1e6 / m_count;
+  }
+
+  /**
+   * @param percentile From 0 to 100
+   * @return The largest duration in the bucket holding the percentile, never
+   *         above the max, 0 if nothing was recorded
+   */
+  public double getPercentileMs(double percentile) {
+    if (m_count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * m_count));
+    long seen = 0;
+    for (int i = 0; i < m_counts.length; i++) {
+      seen += m_counts[i];
+      if (seen >= rank) {
+        return Math.min(valueOf(i) / 1e3, getMaxMs());
+      }
+    }
+    return getMaxMs();
+  }
+
+  public void reset() {
+    Arrays.fill(m_counts, 0);
+    m_count = 0;
+    m_totalNanos = 0;
+    m_maxNanos = 0;
+  }
+
+  private static int indexOf(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    // Keep the top SUB_BUCKET_BITS bits, each power of two gets half the sub buckets
+    final int shift = 64 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) ((micros >>> shift) - HALF_SUB_BUCKETS);
+  }
+
+  private static long valueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    final long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -3,6 +3,9 @@ package beartecs.math;
 import com.ctre.phoenix.motorcontrol.*;
 import com.ctre.phoenix.motorcontrol.can.BaseTalon;
 
+import beartecs.CAN.AsyncConfigWriter;
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.Constants.StatusFrames;
 import beartecs.configs.PidConfig;
 
 public class MotorUtils {
@@ -45,6 +48,25 @@ public class MotorUtils {
     }
   }
 
+  /**
+   * Moves the soft limits of a running CTRE Talon, Victor, or Falcon controlled
+   * motor without blocking the caller.
+   *
+   * <p>Only the thresholds are written, the limits must already be set up with
+   * {@link #setSoftLimits}. The write is queued on the
+   * {@link AsyncConfigWriter}, replacing a pending soft limit write for the same
+   * motor, and retried if the motor does not acknowledge it.</p>
+   *
+   * @param forward the maximum ticks in the forward/positive direction.
+   * @param reverse the minimum ticks in the reverse/backward/negative direction.
+   * @param motor   the motor to move the soft limits of.
+   */
+  public static void setSoftLimitsAsync(double forward, double reverse, BaseTalon motor) {
+    AsyncConfigWriter.getInstance().submit("soft limits of talon " + motor.getDeviceID(),
+        timeoutMs -> motor.configForwardSoftLimitThreshold(forward, timeoutMs),
+        timeoutMs -> motor.configReverseSoftLimitThreshold(reverse, timeoutMs));
+  }
+
   /**
     * Configures Motion Magic motion profiling on given CTRE
     * Talon, Victor, or Falcon controlled motors.
@@ -66,14 +88,35 @@ public class MotorUtils {
   @SafeVarargs
   public static <T extends BaseTalon> void setupMotionMagic(FeedbackDevice sensor, PidConfig pidConfig, int maxVel,
       T... motors) {
+    setupMotionMagic(CANBandwidthManager.RIO_BUS, sensor, pidConfig, maxVel, motors);
+  }
+
+  /**
+   * Same as {@link #setupMotionMagic(FeedbackDevice, PidConfig, int, BaseTalon...)}
+   * for motors on another CAN bus. The status frames used by the profile are
+   * registered with the {@link CANBandwidthManager} so they follow the robot mode.
+   *
+   * @param canBus    the CAN bus the motors are on.
+   * @param sensor    the sensor attached to the controller used for loop feedback.
+   * @param pidConfig the PIDF and range values to use on the controller.
+   * @param maxVel    maximum velocity of the profile in ticks per 100ms.
+   * @param motors    the motors for which Motion Magic is enabled on.
+   */
+  @SafeVarargs
+  public static <T extends BaseTalon> void setupMotionMagic(String canBus, FeedbackDevice sensor, PidConfig pidConfig,
+      int maxVel, T... motors) {
+    final CANBandwidthManager bandwidthManager = CANBandwidthManager.getInstance();
     for (T motor : motors) {
       motor.configFactoryDefault();
       motor.selectProfileSlot(0, 0);
-      motor.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, FRAME_PERIOD_MS, TIMEOUT_MS);
-      motor.setStatusFramePeriod(StatusFrame.Status_10_MotionMagic, FRAME_PERIOD_MS, TIMEOUT_MS);
+      final String name = "Talon " + motor.getDeviceID();
+      bandwidthManager.registerTalon(canBus, name, motor, StatusFrame.Status_13_Base_PIDF0, StatusFrames.MECHANISM);
+      bandwidthManager.registerTalon(canBus, name, motor, StatusFrame.Status_10_MotionMagic, StatusFrames.MECHANISM);
       if (sensor == FeedbackDevice.PulseWidthEncodedPosition || sensor == FeedbackDevice.IntegratedSensor) {
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_8_PulseWidth, FRAME_PERIOD_MS, TIMEOUT_MS);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_1_General, FRAME_PERIOD_MS, TIMEOUT_MS);
+        bandwidthManager.registerTalon(canBus, name, motor, StatusFrameEnhanced.Status_8_PulseWidth,
+            StatusFrames.MECHANISM);
+        bandwidthManager.registerTalon(canBus, name, motor, StatusFrameEnhanced.Status_1_General,
+            StatusFrames.MECHANISM);
       }
       motor.configSelectedFeedbackSensor(sensor, 0, TIMEOUT_MS);
 
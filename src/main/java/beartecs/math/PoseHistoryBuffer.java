@@ -0,0 +1,236 @@
+package beartecs.math;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * A time-indexed circular buffer of poses backed by parallel primitive arrays.
+ *
+ * <p>
+ * Unlike {@link InterpolatingTreeMap} no keys are boxed and nothing is
+ * allocated after construction: adding a sample overwrites the oldest slot once
+ * the buffer is full and lookups binary search the timestamps. The capacity is
+ * a fixed number of samples, so the memory bound cannot grow. An optional
+ * history size additionally drops samples that are too old.
+ * </p>
+ * <p>
+ * Sampling between two entries interpolates along the twist between them,
+ * the same as {@link Pose2d#interpolate(Pose2d, double)}.
+ * </p>
+ */
+public class PoseHistoryBuffer {
+  private final double[] m_time;
+  private final double[] m_x;
+  private final double[] m_y;
+  private final double[] m_theta;
+  private final double m_historySize;
+
+  private int m_head = 0; // Physical index of the oldest sample
+  private int m_size = 0;
+
+  /**
+   * Create a buffer holding at most {@code capacity} samples.
+   *
+   * @param capacity The maximum number of samples.
+   */
+  public PoseHistoryBuffer(int capacity) {
+    this(capacity, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Create a buffer holding at most {@code capacity} samples that are no older
+   * than {@code historySizeSeconds}.
+   *
+   * @param capacity           The maximum number of samples.
+   * @param historySizeSeconds The history size of the buffer.
+   */
+  public PoseHistoryBuffer(int capacity, double historySizeSeconds) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    m_time = new double[capacity];
+    m_x = new double[capacity];
+    m_y = new double[capacity];
+    m_theta = new double[capacity];
+    m_historySize = historySizeSeconds;
+  }
+
+  public int capacity() {
+    return m_time.length;
+  }
+
+  public int size() {
+    return m_size;
+  }
+
+  public boolean isEmpty() {
+    return m_size == 0;
+  }
+
+  /** Clear all samples. */
+  public void clear() {
+    m_head = 0;
+    m_size = 0;
+  }
+
+  /**
+   * Add a sample to the buffer.
+   *
+   * @param timeSeconds The timestamp of the sample.
+   * @param pose        The sample pose.
+   */
+  public void addSample(double timeSeconds, Pose2d pose) {
+    addSample(timeSeconds, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  /**
+   * Add a sample to the buffer. Samples must be added in time order, a sample
+   * older than the newest one is ignored and a sample with the same timestamp
+   * replaces it.
+   *
+   * @param timeSeconds The timestamp of the sample.
+   * @param x           The x position in meters.
+   * @param y           The y position in meters.
+   * @param theta       The heading in radians.
+   */
+  public void addSample(double timeSeconds, double x, double y, double theta) {
+    int index;
+    if (m_size > 0 && timeSeconds <= m_time[physical(m_size - 1)]) {
+      if (timeSeconds < m_time[physical(m_size - 1)]) {
+        return;
+      }
+      index = physical(m_size - 1);
+    } else if (m_size == m_time.length) {
+      index = m_head;
+      m_head = physical(1);
+    } else {
+      index = physical(m_size);
+      m_size++;
+    }
+    m_time[index] = timeSeconds;
+    m_x[index] = x;
+    m_y[index] = y;
+    m_theta[index] = theta;
+    cleanUp(timeSeconds);
+  }
+
+  /**
+   * Removes samples older than our current history size.
+   *
+   * @param time The current timestamp.
+   */
+  private void cleanUp(double time) {
+    while (m_size > 1 && time - m_time[m_head] >= m_historySize) {
+      m_head = physical(1);
+      m_size--;
+    }
+  }
+
+  /**
+   * Sample the buffer at the given time without allocating. Times outside the
+   * buffer are clamped to the oldest or newest sample.
+   *
+   * @param timeSeconds The time at which to sample.
+   * @param out         Receives {x, y, theta}; must have a length of at least 3.
+   * @return false if the buffer is empty and {@code out} was left untouched.
+   */
+  public boolean getSample(double timeSeconds, double[] out) {
+    if (m_size == 0) {
+      return false;
+    }
+
+    // Find the first sample at or after the requested time
+    int low = 0;
+    int high = m_size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (m_time[physical(mid)] < timeSeconds) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    if (low == m_size) {
+      copy(physical(m_size - 1), out);
+    } else if (low == 0 || m_time[physical(low)] == timeSeconds) {
+      copy(physical(low), out);
+    } else {
+      int bottom = physical(low - 1);
+      int top = physical(low);
+      interpolate(bottom, top, (timeSeconds - m_time[bottom]) / (m_time[top] - m_time[bottom]), out);
+    }
+    return true;
+  }
+
+  /**
+   * Sample the buffer at the given time. If the buffer is empty, this will return
+   * null. Allocates the result, use {@link #getSample(double, double[])} in
+   * loops.
+   *
+   * @param timeSeconds The time at which to sample.
+   * @return The interpolated value at that timestamp. Might be null.
+   */
+  public Pose2d getSample(double timeSeconds) {
+    double[] sample = new double[3];
+    if (!getSample(timeSeconds, sample)) {
+      return null;
+    }
+    return new Pose2d(sample[0], sample[1], new Rotation2d(sample[2]));
+  }
+
+  private int physical(int logical) {
+    int index = m_head + logical;
+    return index >= m_time.length ? index - m_time.length : index;
+  }
+
+  private void copy(int index, double[] out) {
+    out[0] = m_x[index];
+    out[1] = m_y[index];
+    out[2] = m_theta[index];
+  }
+
+  /**
+   * Primitive version of {@code start.exp(start.log(end).times(t))}.
+   */
+  private void interpolate(int start, int end, double t, double[] out) {
+    final double cos = Math.cos(m_theta[start]);
+    final double sin = Math.sin(m_theta[start]);
+
+    // log: end relative to start, in the start frame
+    final double dxField = m_x[end] - m_x[start];
+    final double dyField = m_y[end] - m_y[start];
+    final double tx = dxField * cos + dyField * sin;
+    final double ty = -dxField * sin + dyField * cos;
+    final double dtheta = Math.atan2(Math.sin(m_theta[end] - m_theta[start]),
+        Math.cos(m_theta[end] - m_theta[start]));
+
+    final double halfDtheta = dtheta / 2.0;
+    final double cosMinusOne = Math.cos(dtheta) - 1;
+    final double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1E-9
+        ? 1.0 - 1.0 / 12.0 * dtheta * dtheta
+        : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+    final double twistDx = (tx * halfThetaByTanOfHalfDtheta + ty * halfDtheta) * t;
+    final double twistDy = (ty * halfThetaByTanOfHalfDtheta - tx * halfDtheta) * t;
+    final double twistDtheta = dtheta * t;
+
+    // exp: apply the scaled twist to the start pose
+    final double sinTheta = Math.sin(twistDtheta);
+    final double cosTheta = Math.cos(twistDtheta);
+    final double s;
+    final double c;
+    if (Math.abs(twistDtheta) < 1E-9) {
+      s = 1.0 - 1.0 / 6.0 * twistDtheta * twistDtheta;
+      c = 0.5 * twistDtheta;
+    } else {
+      s = sinTheta / twistDtheta;
+      c = (1 - cosTheta) / twistDtheta;
+    }
+    final double localX = twistDx * s - twistDy * c;
+    final double localY = twistDx * c + twistDy * s;
+
+    out[0] = m_x[start] + localX * cos - localY * sin;
+    out[1] = m_y[start] + localX * sin + localY * cos;
+    out[2] = Math.atan2(Math.sin(m_theta[start] + twistDtheta), Math.cos(m_theta[start] + twistDtheta));
+  }
+}
@@ -0,0 +1,146 @@
+package beartecs.math;
+
+import java.util.function.Supplier;
+
+/**
+ * Solves a shot at a fixed field target from a moving robot.
+ *
+ * <p>
+ * The ball keeps the robot's field velocity when it is released, so the robot
+ * aims at a virtual target offset by the velocity times the time of flight.
+ * The time of flight depends on the distance to that virtual target, so the
+ * two are iterated from the table until the distance moves less than the
+ * tolerance, at most a fixed number of times. The robot position is first
+ * projected forward by the release delay, e.g. the time since the pose was
+ * measured plus the time until the ball leaves.
+ * </p>
+ * <p>
+ * The solver reuses its result fields and never allocates; read the result
+ * with the getters after {@link #solve}.
+ * </p>
+ */
+public class ShotSolver {
+  private final Supplier<ShotTable> m_table;
+  private final int m_maxIterations;
+  private final double m_tolerance;
+  private final double[] m_shot = new double[3];
+
+  private double m_turretAngle;
+  private double m_distance;
+  private double m_flywheelSpeed;
+  private double m_hoodAngle;
+  private double m_timeOfFlight;
+  private int m_iterations;
+  private boolean m_converged;
+
+  /**
+   * @param table           The shot table
+   * @param maxIterations   The most time of flight iterations per solve
+   * @param toleranceMeters Stop once the virtual target distance moves less
+   *                        than this
+   */
+  public ShotSolver(ShotTable table, int maxIterations, double toleranceMeters) {
+    this(() -> table, maxIterations, toleranceMeters);
+  }
+
+  /**
+   * @param table           Supplies the current shot table, read once per solve
+   *                        so it can be swapped while tuning
+   * @param maxIterations   The most time of flight iterations per solve
+   * @param toleranceMeters Stop once the virtual target distance moves less
+   *                        than this
+   */
+  public ShotSolver(Supplier<ShotTable> table, int maxIterations, double toleranceMeters) {
+    m_table = table;
+    m_maxIterations = Math.max(1, maxIterations);
+    m_tolerance = toleranceMeters;
+  }
+
+  /**
+   * @param robotX       The robot x in meters
+   * @param robotY       The robot y in meters
+   * @param heading      The robot heading in radians
+   * @param vx           The robot field velocity along x in m/s
+   * @param vy           The robot field velocity along y in m/s
+   * @param targetX      The target x in meters
+   * @param targetY      The target y in meters
+   * @param releaseDelay How far ahead to project the robot in seconds
+   * @return Whether the iterations converged; the result is usable either way
+   */
+  public boolean solve(double robotX, double robotY, double heading, double vx, double vy, double targetX,
+      double targetY, double releaseDelay) {
+    final ShotTable table = m_table.get();
+    final double x = robotX + vx * releaseDelay;
+    final double y = robotY + vy * releaseDelay;
+    final double dx = targetX - x;
+    final double dy = targetY - y;
+
+    double distance = Math.hypot(dx, dy);
+    double aimX = dx;
+    double aimY = dy;
+    m_converged = false;
+    m_iterations = 0;
+    while (m_iterations < m_maxIterations) {
+      m_iterations++;
+      final double timeOfFlight = table.getTimeOfFlight(distance);
+      aimX = dx - vx * timeOfFlight;
+      aimY = dy - vy * timeOfFlight;
+      final double virtualDistance = Math.hypot(aimX, aimY);
+      final double change = Math.abs(virtualDistance - distance);
+      distance = virtualDistance;
+      if (change < m_tolerance) {
+        m_converged = true;
+        break;
+      }
+    }
+
+    table.get(distance, m_shot);
+    m_distance = distance;
+    m_flywheelSpeed = m_shot[ShotTable.SPEED];
+    m_hoodAngle = m_shot[ShotTable.ANGLE];
+    m_timeOfFlight = m_shot[ShotTable.TIME_OF_FLIGHT];
+    m_turretAngle = MathUtils.angleWrap(Math.toDegrees(Math.atan2(aimY, aimX) - heading));
+    return m_converged;
+  }
+
+  /**
+   * @return The turret angle relative to the robot front in degrees, counter
+   *         clockwise positive
+   */
+  public double getTurretAngle() {
+    return m_turretAngle;
+  }
+
+  /**
+   * @return The distance to the virtual target in meters
+   */
+  public double getDistance() {
+    return m_distance;
+  }
+
+  public double getFlywheelSpeed() {
+    return m_flywheelSpeed;
+  }
+
+  /**
+   * @return The hood angle in degrees
+   */
+  public double getHoodAngle() {
+    return m_hoodAngle;
+  }
+
+  /**
+   * @return The time of flight in seconds
+   */
+  public double getTimeOfFlight() {
+    return m_timeOfFlight;
+  }
+
+  public int getIterations() {
+    return m_iterations;
+  }
+
+  public boolean isConverged() {
+    return m_converged;
+  }
+}
@@ -0,0 +1,156 @@
+package beartecs.math;
+
+/**
+ * A distance to flywheel speed, hood angle and time of flight table that
+ * linearly interpolates between measured shots.
+ *
+ * <p>
+ * Rows are kept in parallel primitive arrays sorted by distance and looked up
+ * with a binary search, so a lookup never allocates. Distances outside the
+ * table are clamped to the nearest row.
+ * </p>
+ */
+public class ShotTable {
+  public static final int SPEED = 0;
+  public static final int ANGLE = 1;
+  public static final int TIME_OF_FLIGHT = 2;
+
+  private final double[] m_distance;
+  private final double[] m_speed;
+  private final double[] m_angle;
+  private final double[] m_timeOfFlight;
+
+  /**
+   * @param rows Each row is {distance (m), flywheel speed, hood angle (deg),
+   *             time of flight (s)}, sorted by increasing distance
+   */
+  public ShotTable(double[]... rows) {
+    if (rows.length == 0) {
+      throw new IllegalArgumentException("A shot table needs at least one row");
+    }
+    m_distance = new double[rows.length];
+    m_speed = new double[rows.length];
+    m_angle = new double[rows.length];
+    m_timeOfFlight = new double[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      if (rows[i].length != 4) {
+        throw new IllegalArgumentException("Shot table row " + i + " needs 4 values");
+      }
+      if (i > 0 && rows[i][0] <= rows[i - 1][0]) {
+        throw new IllegalArgumentException("Shot table distances must be increasing");
+      }
+      m_distance[i] = rows[i][0];
+      m_speed[i] = rows[i][1];
+      m_angle[i] = rows[i][2];
+      m_timeOfFlight[i] = rows[i][3];
+    }
+  }
+
+  /**
+   * @param values Rows of {distance, speed, angle, time of flight} one after
+   *               the other, as published to NetworkTables by
+   *               {@link #toArray()}
+   * @return The table
+   */
+  public static ShotTable fromArray(double[] values) {
+    if (values.length % 4 != 0) {
+      throw new IllegalArgumentException("Shot table values must come in rows of 4");
+    }
+    double[][] rows = new double[values.length / 4][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new double[] { values[i * 4], values[i * 4 + 1], values[i * 4 + 2], values[i * 4 + 3] };
+    }
+    return new ShotTable(rows);
+  }
+
+  /**
+   * @return The rows of the table one after the other
+   */
+  public double[] toArray() {
+    double[] values = new double[m_distance.length * 4];
+    for (int i = 0; i < m_distance.length; i++) {
+      values[i * 4] = m_distance[i];
+      values[i * 4 + 1] = m_speed[i];
+      values[i * 4 + 2] = m_angle[i];
+      values[i * 4 + 3] = m_timeOfFlight[i];
+    }
+    return values;
+  }
+
+  public int size() {
+    return m_distance.length;
+  }
+
+  public double getMinDistance() {
+    return m_distance[0];
+  }
+
+  public double getMaxDistance() {
+    return m_distance[m_distance.length - 1];
+  }
+
+  /**
+   * @param distance The distance to the target in meters
+   * @param out      Receives {speed, angle, time of flight}, indexed by
+   *                 {@link #SPEED}, {@link #ANGLE} and {@link #TIME_OF_FLIGHT}
+   */
+  public void get(double distance, double[] out) {
+    final int last = m_distance.length - 1;
+    if (distance <= m_distance[0]) {
+      copy(0, out);
+      return;
+    }
+    if (distance >= m_distance[last]) {
+      copy(last, out);
+      return;
+    }
+
+    final int next = findNext(distance);
+    final int prev = next - 1;
+    final double t = (distance - m_distance[prev]) / (m_distance[next] - m_distance[prev]);
+    out[SPEED] = MathUtils.lerp(m_speed[prev], m_speed[next], t);
+    out[ANGLE] = MathUtils.lerp(m_angle[prev], m_angle[next], t);
+    out[TIME_OF_FLIGHT] = MathUtils.lerp(m_timeOfFlight[prev], m_timeOfFlight[next], t);
+  }
+
+  /**
+   * @param distance The distance to the target in meters
+   * @return The interpolated time of flight in seconds
+   */
+  public double getTimeOfFlight(double distance) {
+    final int last = m_distance.length - 1;
+    if (distance <= m_distance[0]) {
+      return m_timeOfFlight[0];
+    }
+    if (distance >= m_distance[last]) {
+      return m_timeOfFlight[last];
+    }
+    final int next = findNext(distance);
+    final int prev = next - 1;
+    return MathUtils.lerp(m_timeOfFlight[prev], m_timeOfFlight[next],
+        (distance - m_distance[prev]) / (m_distance[next] - m_distance[prev]));
+  }
+
+  /**
+   * @return The index of the first row farther than a distance inside the table
+   */
+  private int findNext(double distance) {
+    int low = 1;
+    int high = m_distance.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (m_distance[mid] <= distance) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void copy(int index, double[] out) {
+    out[SPEED] = m_speed[index];
+    out[ANGLE] = m_angle[index];
+    out[TIME_OF_FLIGHT] = m_timeOfFlight[index];
+  }
+}
@@ -1,5 +1,7 @@
 package beartecs.swerve;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface AbsoluteEncoder {
     /**
      * Gets the current angle reading of the encoder in radians.
@@ -11,4 +13,14 @@ public interface AbsoluteEncoder {
     // raw position * coefficient
     // raw velocity / 600 * coefficient
     void setAbsoluteEncoder(double rawPosition, double rawVelocity);
+
+    /**
+     * Completes once the encoder has been configured, so a steer motor can wait
+     * for it before seeding its position from {@link #getAbsoluteAngle()}.
+     *
+     * @return Completes with whether the configuration succeeded
+     */
+    default CompletableFuture<Boolean> getConfigured() {
+        return CompletableFuture.completedFuture(true);
+    }
 }
@@ -4,12 +4,13 @@ import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
 
 @FunctionalInterface
 public interface DriveControllerFactory<Controller extends DriveController, DriveConfiguration> {
+    /**
+     * Adds the entries that do not read the device. The measured velocity is
+     * published by the drivetrain from its sensor snapshot.
+     */
     default void addDashboardEntries(
             ShuffleboardContainer container,
             Controller controller) {
-        if (container != null) {
-            container.addNumber("Current Velocity", controller::getVelocity);
-        }
     }
 
     default Controller create(
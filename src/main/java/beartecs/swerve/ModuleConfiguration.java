@@ -15,6 +15,9 @@ import edu.wpi.first.math.system.plant.DCMotor;
  * ({@link SdsModuleConfigurations#MK3_STANDARD} and {@link SdsModuleConfigurations#MK3_FAST} respectively).
  */
 public class ModuleConfiguration {
+    public static final double DEFAULT_TREAD_STATIC_COEF_FRIC = 1.1;
+    public static final double DEFAULT_TREAD_KINETIC_COEF_FRIC = 0.8;
+
     private final double wheelDiameter;
     private final double driveReduction;
     private final boolean driveInverted;
@@ -88,18 +91,49 @@ public class ModuleConfiguration {
     }
 
     public SwerveModuleSim createSim(SwerveModule module, String namePrefix) {
-        return new SwerveModuleSim(
+        return createSim(
                 (DCMotor) module.getSteerController().getSteerMotor(),
                 (DCMotor) module.getDriveController().getDriveMotor(),
+                Constants.SWERVE_CONFIG.MASS,
+                namePrefix,
+                true);
+    }
+
+    /**
+     * Creates a module sim without a real module, e.g. for headless runs.
+     *
+     * @param steerMotor      The steer motor model.
+     * @param driveMotor      The drive motor model.
+     * @param robotMass       The robot mass in kilograms, spread evenly over the modules.
+     * @param namePrefix      Prefix of the telemetry entries.
+     * @param enableTelemetry Whether to publish the module state to NetworkTables.
+     */
+    public SwerveModuleSim createSim(DCMotor steerMotor, DCMotor driveMotor, double robotMass, String namePrefix,
+            boolean enableTelemetry) {
+        return createSim(steerMotor, driveMotor, robotMass, DEFAULT_TREAD_STATIC_COEF_FRIC,
+                DEFAULT_TREAD_KINETIC_COEF_FRIC, namePrefix, enableTelemetry);
+    }
+
+    /**
+     * Creates a module sim with the given tread friction, e.g. to randomize it.
+     *
+     * @param treadStaticCoefFric  Static friction coefficient of the tread.
+     * @param treadKineticCoefFric Kinetic friction coefficient of the tread.
+     */
+    public SwerveModuleSim createSim(DCMotor steerMotor, DCMotor driveMotor, double robotMass,
+            double treadStaticCoefFric, double treadKineticCoefFric, String namePrefix, boolean enableTelemetry) {
+        return new SwerveModuleSim(
+                steerMotor,
+                driveMotor,
                 getWheelDiameter() / 2,
                 1 / getSteerReduction(),
                 1 / getDriveReduction(),
                 1.0, // CANCoder is directly on the shaft
                 1 / getDriveReduction(),
-                1.1,
-                0.8,
-                Constants.SWERVE_CONFIG.MASS * 9.81 / QuadSwerveSim.NUM_MODULES,
-                0.01, namePrefix);
+                treadStaticCoefFric,
+                treadKineticCoefFric,
+                robotMass * 9.81 / QuadSwerveSim.NUM_MODULES,
+                0.01, namePrefix, enableTelemetry);
     }
 
     @Override
@@ -1,15 +1,20 @@
 package beartecs.swerve;
 
+import beartecs.logger.TelemetryPublisher;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
 
 @FunctionalInterface
 public interface SteerControllerFactory<Controller extends SteerController, SteerConfiguration> {
+    /**
+     * Adds the entries that do not read the device. The measured and absolute
+     * angles are published by the drivetrain from its sensor snapshot.
+     */
     default void addDashboardEntries(
             ShuffleboardContainer container,
             Controller controller) {
         if (container != null) {
-            container.addNumber("Current Angle", () -> Math.toDegrees(controller.getStateAngle()));
-            container.addNumber("Target Angle", () -> Math.toDegrees(controller.getReferenceAngle()));
+            TelemetryPublisher.getInstance().addNumber(container.add("Target Angle", 0.0).getEntry(),
+                    () -> Math.toDegrees(controller.getReferenceAngle()), 0.1, TelemetryPublisher.DEFAULT_PERIOD_SEC);
         }
     }
 
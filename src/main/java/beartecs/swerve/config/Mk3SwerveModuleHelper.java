@@ -1,5 +1,6 @@
 package beartecs.swerve.config;
 
+import beartecs.Constants;
 import beartecs.swerve.DriveControllerFactory;
 import beartecs.swerve.ModuleConfiguration;
 import beartecs.swerve.SteerControllerFactory;
@@ -32,7 +33,7 @@ public final class Mk3SwerveModuleHelper {
                                 .build(new CanCoderFactoryBuilder()
                                                 // 10ms is fastest update period
                                                 // 200ms is not the max but above causes noticable drift
-                                                .withReadingUpdatePeriod(100)
+                                                .withReadingUpdatePeriods(Constants.StatusFrames.CANCODER_SENSOR_DATA)
                                                 .withCanBusName(configuration.getEncoderCanBus())
                                                 .build());
         }
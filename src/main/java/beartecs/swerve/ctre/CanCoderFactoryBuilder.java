@@ -1,5 +1,7 @@
 package beartecs.swerve.ctre;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.ctre.phoenix.ErrorCode;
 import com.ctre.phoenix.sensors.AbsoluteSensorRange;
 import com.ctre.phoenix.sensors.CANCoderConfiguration;
@@ -9,15 +11,27 @@ import com.ctre.phoenix.sensors.WPI_CANCoder;
 import beartecs.swerve.AbsoluteEncoder;
 import beartecs.swerve.AbsoluteEncoderFactory;
 import beartecs.Constants;
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.DeviceConfigExecutor;
+import beartecs.configs.FrameRateConfig;
 import beartecs.math.MathUtils;
 
 public class CanCoderFactoryBuilder {
     private Direction direction = Direction.COUNTER_CLOCKWISE;
-    private int periodMilliseconds = 10;
+    private FrameRateConfig frameRates = new FrameRateConfig(10);
     private String canBusName = "rio";
 
     public CanCoderFactoryBuilder withReadingUpdatePeriod(int periodMilliseconds) {
-        this.periodMilliseconds = MathUtils.clamp(periodMilliseconds, 10, 200);
+        this.frameRates = new FrameRateConfig(MathUtils.clamp(periodMilliseconds, 10, 200));
+        return this;
+    }
+
+    /**
+     * Lets the reading update period follow the robot mode and the bus load
+     * through the {@link CANBandwidthManager}.
+     */
+    public CanCoderFactoryBuilder withReadingUpdatePeriods(FrameRateConfig frameRates) {
+        this.frameRates = frameRates;
         return this;
     }
 
@@ -42,12 +56,14 @@ public class CanCoderFactoryBuilder {
             final var encoderId = configuration.getId();
             if (encoderId != -1) {
                 WPI_CANCoder encoder = new WPI_CANCoder(configuration.getId(), canBusName);
-                CtreUtils.checkCtreError(encoder.configAllSettings(config, 30), "Failed to configure CANCoder");
-
-                CtreUtils.checkCtreError(
-                        encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, periodMilliseconds, 30),
-                        "Failed to configure CANCoder update rate");
-                return new EncoderImplementation(encoder);
+                CompletableFuture<Boolean> configured = DeviceConfigExecutor.getInstance()
+                        .configure(canBusName, "CANCoder " + encoderId)
+                        .ctre("settings", timeoutMs -> encoder.configAllSettings(config, timeoutMs))
+                        .submit();
+
+                CANBandwidthManager.getInstance().registerCANCoder(canBusName, "CANCoder " + encoderId, encoder,
+                        CANCoderStatusFrame.SensorData, frameRates);
+                return new EncoderImplementation(encoder, configured);
             } else {
                 return null;
             }
@@ -57,9 +73,16 @@ public class CanCoderFactoryBuilder {
 
     private static class EncoderImplementation implements AbsoluteEncoder {
         private final WPI_CANCoder encoder;
+        private final CompletableFuture<Boolean> configured;
 
-        private EncoderImplementation(WPI_CANCoder encoder) {
+        private EncoderImplementation(WPI_CANCoder encoder, CompletableFuture<Boolean> configured) {
             this.encoder = encoder;
+            this.configured = configured;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> getConfigured() {
+            return configured;
         }
 
         @Override
@@ -9,6 +9,9 @@ import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 
 import beartecs.Constants;
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.DeviceConfigExecutor;
+import beartecs.configs.FrameRateConfig;
 import beartecs.math.MotorUtils;
 import beartecs.swerve.DriveController;
 import beartecs.swerve.DriveControllerFactory;
@@ -17,9 +20,6 @@ import edu.wpi.first.wpilibj.RobotBase;
 import frc.robot.Robot;
 
 public final class Falcon500DriveControllerFactoryBuilder {
-    private static final int CAN_TIMEOUT_MS = 250;
-    private static final int STATUS_FRAME_GENERAL_PERIOD_MS = 250;
-
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
     private double proportionalConstant = Double.NaN;
@@ -92,9 +92,14 @@ public final class Falcon500DriveControllerFactoryBuilder {
                 motorConfiguration.supplyCurrLimit.enable = true;
             }
 
+            final String name = "Falcon Drive " + driveConfiguration;
             WPI_TalonFX motor = new WPI_TalonFX(driveConfiguration, canBusName);
-            motor.configAllSettings(motorConfiguration);
-            CtreUtils.checkCtreError(motor.configAllSettings(motorConfiguration), "Failed to configure Falcon 500");
+            // Sent in the background, checked before the robot is enabled
+            DeviceConfigExecutor.getInstance().configure(canBusName, name)
+                    .ctre("settings", timeoutMs -> motor.configAllSettings(motorConfiguration, timeoutMs))
+                    .ctre("feedback sensor", timeoutMs -> motor
+                            .configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, timeoutMs))
+                    .submit();
 
             if (hasVoltageCompensation()) {
                 // Enable voltage compensation
@@ -107,18 +112,18 @@ public final class Falcon500DriveControllerFactoryBuilder {
                     : TalonFXInvertType.CounterClockwise);
             motor.setSensorPhase(true);
 
-            CtreUtils.checkCtreError(
-                    motor.configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, CAN_TIMEOUT_MS),
-                    "Failed to set Falcon 500 feedback sensor");
-
-            // Reduce CAN status frame rates
-            CtreUtils.checkCtreError(
-                    motor.setStatusFramePeriod(
-                            StatusFrameEnhanced.Status_1_General,
-                            Robot.isSimulation() ? Constants.Sim.STATUS_FRAME_PERIOD_MS
-                                    : STATUS_FRAME_GENERAL_PERIOD_MS,
-                            CAN_TIMEOUT_MS),
-                    "Failed to configure Falcon status frame period");
+            // Status frame rates follow the robot mode and the bus load
+            final CANBandwidthManager frames = CANBandwidthManager.getInstance();
+            if (Robot.isSimulation()) {
+                final FrameRateConfig sim = new FrameRateConfig(Constants.Sim.STATUS_FRAME_PERIOD_MS);
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_1_General, sim);
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_2_Feedback0, sim);
+            } else {
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_1_General,
+                        Constants.StatusFrames.FALCON_GENERAL);
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_2_Feedback0,
+                        Constants.StatusFrames.FALCON_DRIVE_FEEDBACK);
+            }
 
             return new ControllerImplementation(motor, sensorPositionCoefficient, sensorVelocityCoefficient);
         }
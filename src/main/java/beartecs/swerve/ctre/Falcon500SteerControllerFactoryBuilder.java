@@ -1,22 +1,19 @@
 package beartecs.swerve.ctre;
 
-import static beartecs.swerve.ctre.CtreUtils.checkCtreError;
-
 import com.ctre.phoenix.motorcontrol.*;
 import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 
 import beartecs.Constants;
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.DeviceConfigExecutor;
+import beartecs.configs.FrameRateConfig;
 import beartecs.math.MotorUtils;
 import beartecs.swerve.*;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
 import frc.robot.Robot;
 
 public final class Falcon500SteerControllerFactoryBuilder {
-    private static final int CAN_TIMEOUT_MS = 250;
-    private static final int STATUS_FRAME_GENERAL_PERIOD_MS = 250;
-
     // PID configuration
     private double proportionalConstant = Double.NaN;
     private double integralConstant = Double.NaN;
@@ -93,18 +90,6 @@ public final class Falcon500SteerControllerFactoryBuilder {
             this.encoderFactory = encoderFactory;
         }
 
-        @Override
-        public void addDashboardEntries(ShuffleboardContainer container, ControllerImplementation controller) {
-            SteerControllerFactory.super.addDashboardEntries(container, controller);
-            final double absoluteAngle = controller.absoluteEncoder.getAbsoluteAngle();
-            if (!Double.isNaN(absoluteAngle)) {
-                if (container != null) {
-                    container.addNumber("Absolute Encoder Angle",
-                            () -> Math.toDegrees(controller.absoluteEncoder.getAbsoluteAngle()));
-                }
-            }
-        }
-
         @Override
         public ControllerImplementation create(Falcon500SteerConfiguration<T> steerConfiguration,
                 ModuleConfiguration moduleConfiguration) {
@@ -136,39 +121,45 @@ public final class Falcon500SteerControllerFactoryBuilder {
                 motorConfiguration.supplyCurrLimit.enable = true;
             }
 
+            final String name = "Falcon Steer " + steerConfiguration.getMotorPort();
             WPI_TalonFX motor = new WPI_TalonFX(steerConfiguration.getMotorPort(), canBusName);
-            checkCtreError(motor.configAllSettings(motorConfiguration, CAN_TIMEOUT_MS),
-                    "Failed to configure Falcon 500 settings");
-
             if (hasVoltageCompensation()) {
                 motor.enableVoltageCompensation(true);
             }
-            checkCtreError(
-                    motor.configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, CAN_TIMEOUT_MS),
-                    "Failed to set Falcon 500 feedback sensor");
             motor.setSensorPhase(!moduleConfiguration.isSteerInverted());
             motor.setInverted(moduleConfiguration.isSteerInverted() ? TalonFXInvertType.CounterClockwise
                     : TalonFXInvertType.Clockwise);
             motor.setNeutralMode(NeutralMode.Brake); // Meant to be in brake
 
-            double absoluteAngle = absoluteEncoder.getAbsoluteAngle();
-            if (Double.isNaN(absoluteAngle)) {
-                absoluteAngle = 0.0;
+            // Sent in the background once the absolute encoder is configured, checked before the robot is enabled
+            DeviceConfigExecutor.getInstance().configure(canBusName, name)
+                    .after(absoluteEncoder.getConfigured())
+                    .ctre("settings", timeoutMs -> motor.configAllSettings(motorConfiguration, timeoutMs))
+                    .ctre("feedback sensor", timeoutMs -> motor
+                            .configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, timeoutMs))
+                    .ctre("encoder position", timeoutMs -> {
+                        double absoluteAngle = absoluteEncoder.getAbsoluteAngle();
+                        if (Double.isNaN(absoluteAngle)) {
+                            absoluteAngle = 0.0;
+                        }
+                        return motor.setSelectedSensorPosition(absoluteAngle / sensorPositionCoefficient, 0,
+                                timeoutMs);
+                    })
+                    .submit();
+
+            // Status frame rates follow the robot mode and the bus load
+            final CANBandwidthManager frames = CANBandwidthManager.getInstance();
+            if (Robot.isSimulation()) {
+                final FrameRateConfig sim = new FrameRateConfig(Constants.Sim.STATUS_FRAME_PERIOD_MS);
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_1_General, sim);
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_2_Feedback0, sim);
+            } else {
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_1_General,
+                        Constants.StatusFrames.FALCON_GENERAL);
+                frames.registerTalon(canBusName, name, motor, StatusFrameEnhanced.Status_2_Feedback0,
+                        Constants.StatusFrames.FALCON_STEER_FEEDBACK);
             }
 
-            checkCtreError(
-                    motor.setSelectedSensorPosition(absoluteAngle / sensorPositionCoefficient, 0, CAN_TIMEOUT_MS),
-                    "Failed to set Falcon 500 encoder position");
-
-            // Reduce CAN status frame rates
-            CtreUtils.checkCtreError(
-                    motor.setStatusFramePeriod(
-                            StatusFrameEnhanced.Status_1_General,
-                            Robot.isSimulation() ? Constants.Sim.STATUS_FRAME_PERIOD_MS
-                                    : STATUS_FRAME_GENERAL_PERIOD_MS,
-                            CAN_TIMEOUT_MS),
-                    "Failed to configure Falcon status frame period");
-
             return new ControllerImplementation(motor,
                     sensorPositionCoefficient,
                     sensorVelocityCoefficient,
@@ -1,13 +1,13 @@
 package beartecs.swerve.rev;
 
-import static beartecs.swerve.rev.RevUtils.checkNeoError;
-
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.CANSparkMax.ControlType;
 
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.DeviceConfigExecutor;
 import beartecs.swerve.DriveController;
 import beartecs.swerve.DriveControllerFactory;
 import beartecs.swerve.ModuleConfiguration;
@@ -56,40 +56,39 @@ public final class NeoDriveControllerFactoryBuilder {
         @Override
         public ControllerImplementation create(Integer id, ModuleConfiguration moduleConfiguration) {
             CANSparkMax motor = new CANSparkMax(id, CANSparkMaxLowLevel.MotorType.kBrushless);
-            motor.setInverted(moduleConfiguration.isDriveInverted());
+            RelativeEncoder encoder = motor.getEncoder();
+            SparkMaxPIDController controller = motor.getPIDController();
+            double positionConversionFactor = Math.PI * moduleConfiguration.getWheelDiameter()
+                    * moduleConfiguration.getDriveReduction();
 
-            // Setup voltage compensation
+            // Sent in the background, checked before the robot is enabled
+            DeviceConfigExecutor.Device config = DeviceConfigExecutor.getInstance()
+                    .configure(CANBandwidthManager.RIO_BUS, "NEO Drive " + id)
+                    .run(() -> motor.setInverted(moduleConfiguration.isDriveInverted()));
             if (hasVoltageCompensation()) {
-                checkNeoError(motor.enableVoltageCompensation(nominalVoltage), "Failed to enable voltage compensation");
+                config.rev("voltage compensation", () -> motor.enableVoltageCompensation(nominalVoltage));
             }
-
             if (hasCurrentLimit()) {
-                checkNeoError(motor.setSmartCurrentLimit((int) currentLimit), "Failed to set current limit for NEO");
+                config.rev("current limit", () -> motor.setSmartCurrentLimit((int) currentLimit));
             }
-
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 100),
-                    "Failed to set periodic status frame 0 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20),
-                    "Failed to set periodic status frame 1 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20),
-                    "Failed to set periodic status frame 2 rate");
-            // Set neutral mode to brake
-            motor.setIdleMode(CANSparkMax.IdleMode.kBrake);
-
-            // Setup encoder
-            RelativeEncoder encoder = motor.getEncoder();
-            double positionConversionFactor = Math.PI * moduleConfiguration.getWheelDiameter()
-                    * moduleConfiguration.getDriveReduction();
-            encoder.setPositionConversionFactor(positionConversionFactor);
-            encoder.setVelocityConversionFactor(positionConversionFactor / 60.0);
-
-            SparkMaxPIDController controller = motor.getPIDController();
+            config.rev("status frame 0 rate",
+                    () -> motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 100))
+                    .rev("status frame 1 rate",
+                            () -> motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20))
+                    .rev("status frame 2 rate",
+                            () -> motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20))
+                    .rev("idle mode", () -> motor.setIdleMode(CANSparkMax.IdleMode.kBrake))
+                    .rev("encoder position conversion factor",
+                            () -> encoder.setPositionConversionFactor(positionConversionFactor))
+                    .rev("encoder velocity conversion factor",
+                            () -> encoder.setVelocityConversionFactor(positionConversionFactor / 60.0));
             if (hasPidConstants()) {
-                controller.setP(pidProportional);
-                controller.setI(pidIntegral);
-                controller.setD(pidDerivative);
+                config.rev("PID proportional constant", () -> controller.setP(pidProportional))
+                        .rev("PID integral constant", () -> controller.setI(pidIntegral))
+                        .rev("PID derivative constant", () -> controller.setD(pidDerivative));
             }
-            controller.setFeedbackDevice(encoder);
+            config.rev("PID feedback device", () -> controller.setFeedbackDevice(encoder))
+                    .submit();
 
             return new ControllerImplementation(motor, encoder);
         }
@@ -1,11 +1,10 @@
 package beartecs.swerve.rev;
 
-import static beartecs.swerve.rev.RevUtils.checkNeoError;
-
 import com.revrobotics.*;
 
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.DeviceConfigExecutor;
 import beartecs.swerve.*;
-import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
 
 public final class NeoSteerControllerFactoryBuilder {
     // PID configuration
@@ -58,15 +57,6 @@ public final class NeoSteerControllerFactoryBuilder {
             this.encoderFactory = encoderFactory;
         }
 
-        @Override
-        public void addDashboardEntries(ShuffleboardContainer container, ControllerImplementation controller) {
-            SteerControllerFactory.super.addDashboardEntries(container, controller);
-            if (container != null) {
-                container.addNumber("Absolute Encoder Angle",
-                        () -> Math.toDegrees(controller.absoluteEncoder.getAbsoluteAngle()));
-            }
-        }
-
         @Override
         public ControllerImplementation create(NeoSteerConfiguration<T> steerConfiguration,
                 ModuleConfiguration moduleConfiguration) {
@@ -74,41 +64,40 @@ public final class NeoSteerControllerFactoryBuilder {
 
             CANSparkMax motor = new CANSparkMax(steerConfiguration.getMotorPort(),
                     CANSparkMaxLowLevel.MotorType.kBrushless);
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 100),
-                    "Failed to set periodic status frame 0 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20),
-                    "Failed to set periodic status frame 1 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20),
-                    "Failed to set periodic status frame 2 rate");
-            checkNeoError(motor.setIdleMode(CANSparkMax.IdleMode.kBrake), "Failed to set NEO idle mode");
-            motor.setInverted(!moduleConfiguration.isSteerInverted());
+            RelativeEncoder integratedEncoder = motor.getEncoder();
+            SparkMaxPIDController controller = motor.getPIDController();
+
+            // Sent in the background once the absolute encoder is configured, checked before the robot is enabled
+            DeviceConfigExecutor.Device config = DeviceConfigExecutor.getInstance()
+                    .configure(CANBandwidthManager.RIO_BUS, "NEO Steer " + steerConfiguration.getMotorPort())
+                    .after(absoluteEncoder.getConfigured())
+                    .rev("status frame 0 rate",
+                            () -> motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 100))
+                    .rev("status frame 1 rate",
+                            () -> motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20))
+                    .rev("status frame 2 rate",
+                            () -> motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20))
+                    .rev("idle mode", () -> motor.setIdleMode(CANSparkMax.IdleMode.kBrake))
+                    .run(() -> motor.setInverted(!moduleConfiguration.isSteerInverted()));
             if (hasVoltageCompensation()) {
-                checkNeoError(motor.enableVoltageCompensation(nominalVoltage), "Failed to enable voltage compensation");
+                config.rev("voltage compensation", () -> motor.enableVoltageCompensation(nominalVoltage));
             }
             if (hasCurrentLimit()) {
-                checkNeoError(motor.setSmartCurrentLimit((int) Math.round(currentLimit)),
-                        "Failed to set NEO current limits");
+                config.rev("current limit", () -> motor.setSmartCurrentLimit((int) Math.round(currentLimit)));
             }
-
-            RelativeEncoder integratedEncoder = motor.getEncoder();
-            checkNeoError(
-                    integratedEncoder
-                            .setPositionConversionFactor(2.0 * Math.PI * moduleConfiguration.getSteerReduction()),
-                    "Failed to set NEO encoder conversion factor");
-            checkNeoError(
-                    integratedEncoder.setVelocityConversionFactor(
-                            2.0 * Math.PI * moduleConfiguration.getSteerReduction() / 60.0),
-                    "Failed to set NEO encoder conversion factor");
-            checkNeoError(integratedEncoder.setPosition(absoluteEncoder.getAbsoluteAngle()),
-                    "Failed to set NEO encoder position");
-
-            SparkMaxPIDController controller = motor.getPIDController();
+            final double positionConversionFactor = 2.0 * Math.PI * moduleConfiguration.getSteerReduction();
+            config.rev("encoder position conversion factor",
+                    () -> integratedEncoder.setPositionConversionFactor(positionConversionFactor))
+                    .rev("encoder velocity conversion factor",
+                            () -> integratedEncoder.setVelocityConversionFactor(positionConversionFactor / 60.0))
+                    .rev("encoder position", () -> integratedEncoder.setPosition(absoluteEncoder.getAbsoluteAngle()));
             if (hasPidConstants()) {
-                checkNeoError(controller.setP(pidProportional), "Failed to set NEO PID proportional constant");
-                checkNeoError(controller.setI(pidIntegral), "Failed to set NEO PID integral constant");
-                checkNeoError(controller.setD(pidDerivative), "Failed to set NEO PID derivative constant");
+                config.rev("PID proportional constant", () -> controller.setP(pidProportional))
+                        .rev("PID integral constant", () -> controller.setI(pidIntegral))
+                        .rev("PID derivative constant", () -> controller.setD(pidDerivative));
             }
-            checkNeoError(controller.setFeedbackDevice(integratedEncoder), "Failed to set NEO PID feedback device");
+            config.rev("PID feedback device", () -> controller.setFeedbackDevice(integratedEncoder))
+                    .submit();
 
             return new ControllerImplementation(motor, absoluteEncoder);
         }
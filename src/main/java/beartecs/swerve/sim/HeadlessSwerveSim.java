@@ -0,0 +1,200 @@
+package beartecs.swerve.sim;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import beartecs.Constants;
+import beartecs.configs.SwerveDrivetrainConfig;
+import beartecs.swerve.ModuleConfiguration;
+import beartecs.swerve.config.Mk3ModuleConfiguration;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+
+/**
+ * Steps {@link QuadSwerveSim} with a fixed dt as fast as the CPU allows, with
+ * no robot code, HAL or NetworkTables involved.
+ *
+ * <p>
+ * Only compile-time constants are read from {@link Constants}, so the
+ * dashboard entries it creates when initialized never are. Voltages come from
+ * a {@link VoltageSource}, either a {@link VoltageScript} or a controller, and
+ * the pose can be traced to a CSV file.
+ * </p>
+ *
+ * <pre>
+ * HeadlessSwerveSim &lt;voltages.csv&gt; [trace.csv] [dtSeconds] [traceEvery]
+ * </pre>
+ */
+public class HeadlessSwerveSim {
+    public static final double DEFAULT_DT_SEC = 0.001;
+
+    /** Supplies the module voltages for each step. */
+    @FunctionalInterface
+    public interface VoltageSource {
+        /**
+         * @param timeSeconds  Simulation time at the start of the step
+         * @param sim          The simulation, to read back its state
+         * @param voltages_out Receives drive and steer voltages per module, in
+         *                     FL, FR, BL, BR order
+         */
+        void getVoltages(double timeSeconds, HeadlessSwerveSim sim, double[] voltages_out);
+    }
+
+    private final QuadSwerveSim drivetrain;
+    private final List<SwerveModuleSim> modules;
+    private final double dtSeconds;
+    private final double[] voltages = new double[VoltageScript.VOLTAGES_PER_LINE];
+    private long steps = 0;
+
+    public HeadlessSwerveSim(double dtSeconds) {
+        this(Mk3ModuleConfiguration.STANDARD, DCMotor.getFalcon500(1), DCMotor.getFalcon500(1),
+                new SwerveDrivetrainConfig(Constants.TRACKWIDTH_METERS, Constants.WHEELBASE_METERS,
+                        Units.lbsToKilograms(Constants.ROBOT_MASS_LBS)),
+                dtSeconds);
+    }
+
+    public HeadlessSwerveSim(ModuleConfiguration moduleConfig, DCMotor steerMotor, DCMotor driveMotor,
+            SwerveDrivetrainConfig drivetrainConfig, double dtSeconds) {
+        this(moduleConfig, steerMotor, driveMotor, drivetrainConfig, ModuleConfiguration.DEFAULT_TREAD_STATIC_COEF_FRIC,
+                ModuleConfiguration.DEFAULT_TREAD_KINETIC_COEF_FRIC, dtSeconds);
+    }
+
+    public HeadlessSwerveSim(ModuleConfiguration moduleConfig, DCMotor steerMotor, DCMotor driveMotor,
+            SwerveDrivetrainConfig drivetrainConfig, double treadStaticCoefFric, double treadKineticCoefFric,
+            double dtSeconds) {
+        if (dtSeconds <= 0) {
+            throw new IllegalArgumentException("dtSeconds must be positive");
+        }
+        this.dtSeconds = dtSeconds;
+        modules = new ArrayList<>(QuadSwerveSim.NUM_MODULES);
+        for (String name : new String[] { "FL", "FR", "BL", "BR" }) {
+            modules.add(moduleConfig.createSim(steerMotor, driveMotor, drivetrainConfig.MASS, treadStaticCoefFric,
+                    treadKineticCoefFric, name, false));
+        }
+        drivetrain = new QuadSwerveSim(drivetrainConfig.TRACKWIDTH_METERS, drivetrainConfig.WHEELBASE_METERS,
+                drivetrainConfig.MASS, drivetrainConfig.INERTIA, modules);
+        reset(new Pose2d());
+    }
+
+    public void reset(Pose2d pose) {
+        drivetrain.modelReset(pose);
+        steps = 0;
+    }
+
+    /**
+     * Advances the simulation by one dt without allocating.
+     *
+     * @param voltages Drive and steer voltages per module, in FL, FR, BL, BR order
+     */
+    public void step(double[] voltages) {
+        for (int idx = 0; idx < QuadSwerveSim.NUM_MODULES; idx++) {
+            modules.get(idx).setInputVoltages(voltages[2 * idx], voltages[2 * idx + 1]);
+        }
+        drivetrain.update(dtSeconds);
+        steps++;
+    }
+
+    /**
+     * Runs the simulation for the given duration.
+     *
+     * @param durationSeconds How long to simulate
+     * @param source          Supplies the voltages for each step
+     * @param trace           Receives {@code time,x,y,heading} lines, or null
+     * @param traceEvery      Trace every n-th step
+     * @throws IOException If the trace could not be written
+     */
+    public void run(double durationSeconds, VoltageSource source, Appendable trace, int traceEvery)
+            throws IOException {
+        final long count = Math.round(durationSeconds / dtSeconds);
+        if (trace != null) {
+            trace.append("time,x,y,heading\n");
+            appendTrace(trace);
+        }
+        for (long i = 0; i < count; i++) {
+            source.getVoltages(getTime(), this, voltages);
+            step(voltages);
+            if (trace != null && (steps % traceEvery == 0 || i == count - 1)) {
+                appendTrace(trace);
+            }
+        }
+    }
+
+    private void appendTrace(Appendable trace) throws IOException {
+        trace.append(Double.toString(getTime())).append(',')
+                .append(Double.toString(getX())).append(',')
+                .append(Double.toString(getY())).append(',')
+                .append(Double.toString(getHeadingRadians())).append('\n');
+    }
+
+    public double getDtSeconds() {
+        return dtSeconds;
+    }
+
+    public double getTime() {
+        return steps * dtSeconds;
+    }
+
+    public double getX() {
+        return drivetrain.getX();
+    }
+
+    public double getY() {
+        return drivetrain.getY();
+    }
+
+    public double getHeadingRadians() {
+        return drivetrain.getHeadingRadians();
+    }
+
+    public Pose2d getPose() {
+        return drivetrain.getPose();
+    }
+
+    public SwerveModuleSim getModule(int idx) {
+        return modules.get(idx);
+    }
+
+    /**
+     * @return The position of the module relative to the robot center
+     */
+    public Translation2d getModuleTranslation(int idx) {
+        return drivetrain.robotToModuleTL.get(idx);
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessSwerveSim <voltages.csv> [trace.csv] [dtSeconds] [traceEvery]");
+            System.exit(1);
+        }
+        VoltageScript script = VoltageScript.load(new File(args[0]));
+        File traceFile = args.length > 1 ? new File(args[1]) : null;
+        double dtSeconds = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_DT_SEC;
+        int traceEvery = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        HeadlessSwerveSim sim = new HeadlessSwerveSim(dtSeconds);
+        final long start = System.nanoTime();
+        if (traceFile != null) {
+            File parent = traceFile.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(traceFile))) {
+                sim.run(script.getDuration(), script, writer, traceEvery);
+            }
+        } else {
+            sim.run(script.getDuration(), script, null, traceEvery);
+        }
+        final double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Simulated %.3fs in %d steps of %.4fs, took %.3fs (%.0fx real time)%n",
+                sim.getTime(), sim.steps, dtSeconds, wallSeconds, sim.getTime() / wallSeconds);
+        System.out.printf("Final pose: x=%.3f y=%.3f heading=%.1fdeg%n", sim.getX(), sim.getY(),
+                Math.toDegrees(sim.getHeadingRadians()));
+    }
+}
@@ -0,0 +1,402 @@
+package beartecs.swerve.sim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import beartecs.Constants;
+import beartecs.configs.SwerveDrivetrainConfig;
+import beartecs.swerve.ModuleConfiguration;
+import beartecs.swerve.config.Mk3ModuleConfiguration;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+
+/**
+ * Runs many randomized simulations of autonomous routines in parallel to see
+ * how robust they are.
+ *
+ * <p>
+ * Every run gets its own {@link HeadlessSwerveSim}, controller state and
+ * {@link Random}, so runs share nothing but the read-only trajectories and
+ * spread over every core of a {@link ForkJoinPool}. Each run perturbs the tread
+ * friction, robot mass, steer encoder offsets and start pose, then follows the
+ * routine's paths like {@code PPSwerveControllerCommand} at the loop rate,
+ * resetting its odometry to the start of each path like
+ * {@code AutoFollowPathCmd}. Pauses and intake actions take a fixed time and
+ * are not simulated.
+ * </p>
+ * <p>
+ * The feedback pose is the simulated pose, offset by the odometry resets, so
+ * the end pose error comes from the robot not tracking its paths rather than
+ * from odometry drift. A run completes once its odometry is within tolerance of
+ * the end of the last path, or fails after {@link #SETTLE_TIMEOUT_SEC}.
+ * </p>
+ */
+public class MonteCarloAutoEvaluator {
+    public static final double CONTROL_PERIOD_SEC = Constants.Sim.SAMPLE_RATE_SEC;
+    public static final double POSITION_TOLERANCE_M = 0.05;
+    public static final double HEADING_TOLERANCE_RAD = Math.toRadians(5.0);
+    public static final double SETTLE_TIMEOUT_SEC = 2.0;
+
+    // Module controllers standing in for the closed loops on the motor controllers
+    private static final double DRIVE_KP = 2.0; // Volts per m/s of error
+    private static final double STEER_KP = 20.0; // Volts per radian of error
+    private static final double STEER_KD = 0.4; // Volts per rad/s of azimuth speed
+    private static final double MAX_VOLTAGE = 12.0;
+
+    /** Standard deviations of the randomized parameters. */
+    public static class Perturbation {
+        public static final Perturbation DEFAULT = new Perturbation(0.15, 0.1, Math.toRadians(2.0), 0.05,
+                Math.toRadians(2.0));
+
+        public final double FRICTION_FRACTION;
+        public final double MASS_FRACTION;
+        public final double ENCODER_OFFSET_RAD;
+        public final double START_POSITION_M;
+        public final double START_HEADING_RAD;
+
+        public Perturbation(double frictionFraction, double massFraction, double encoderOffsetRad,
+                double startPositionM, double startHeadingRad) {
+            FRICTION_FRACTION = frictionFraction;
+            MASS_FRACTION = massFraction;
+            ENCODER_OFFSET_RAD = encoderOffsetRad;
+            START_POSITION_M = startPositionM;
+            START_HEADING_RAD = startHeadingRad;
+        }
+    }
+
+    /** The distributions over every run of one routine. */
+    public static class RoutineResult {
+        public final String name;
+        public final int runs;
+        public final int completed;
+        /** Sorted, one per run */
+        public final double[] positionErrors_m;
+        /** Sorted, one per run */
+        public final double[] headingErrors_rad;
+        /** Sorted, completed runs only */
+        public final double[] completionTimes_s;
+
+        RoutineResult(String name, double[] positionErrors, double[] headingErrors, double[] completionTimes) {
+            this.name = name;
+            this.runs = positionErrors.length;
+            this.positionErrors_m = positionErrors.clone();
+            this.headingErrors_rad = headingErrors.clone();
+            this.completionTimes_s = Arrays.stream(completionTimes).filter(t -> !Double.isNaN(t)).toArray();
+            this.completed = completionTimes_s.length;
+            Arrays.sort(positionErrors_m);
+            Arrays.sort(headingErrors_rad);
+            Arrays.sort(completionTimes_s);
+        }
+
+        public static double percentile(double[] sorted, double p) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.round(p / 100.0 * (sorted.length - 1)))];
+        }
+
+        public static String describe(double[] sorted, double scale) {
+            return String.format("p50 %.3f  p90 %.3f  p99 %.3f  max %.3f",
+                    percentile(sorted, 50) * scale, percentile(sorted, 90) * scale,
+                    percentile(sorted, 99) * scale, percentile(sorted, 100) * scale);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d/%d completed%n"
+                    + "  end position error (m):   %s%n"
+                    + "  end heading error (deg):  %s%n"
+                    + "  completion time (s):      %s",
+                    name, completed, runs,
+                    describe(positionErrors_m, 1),
+                    describe(headingErrors_rad, Math.toDegrees(1)),
+                    describe(completionTimes_s, 1));
+        }
+    }
+
+    private final Perturbation perturbation;
+    private final double dtSeconds;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param perturbation How much to randomize each run
+     * @param dtSeconds    The physics step, a divisor of {@link #CONTROL_PERIOD_SEC}
+     * @param parallelism  The number of worker threads
+     */
+    public MonteCarloAutoEvaluator(Perturbation perturbation, double dtSeconds, int parallelism) {
+        this.perturbation = perturbation;
+        this.dtSeconds = dtSeconds;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public MonteCarloAutoEvaluator() {
+        this(Perturbation.DEFAULT, HeadlessSwerveSim.DEFAULT_DT_SEC, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Simulates every routine {@code runs} times.
+     *
+     * @param routines The paths of each routine in the order they are driven
+     * @param runs     The number of randomized runs per routine
+     * @param seed     Makes the whole evaluation reproducible
+     * @return The result of each routine, in the order of {@code routines}
+     */
+    public Map<String, RoutineResult> evaluate(Map<String, List<PathPlannerTrajectory>> routines, int runs,
+            long seed) {
+        Map<String, RoutineResult> results = new LinkedHashMap<>();
+        int routineIndex = 0;
+        for (var routine : routines.entrySet()) {
+            double[] positionErrors = new double[runs];
+            double[] headingErrors = new double[runs];
+            double[] completionTimes = new double[runs];
+            final long routineSeed = seed + 1_000_003L * routineIndex++;
+            // Every run writes only its own slot of the arrays
+            pool.invoke(new RunBatch(routine.getValue(), routineSeed, 0, runs,
+                    positionErrors, headingErrors, completionTimes));
+            results.put(routine.getKey(), new RoutineResult(routine.getKey(), positionErrors, headingErrors,
+                    completionTimes));
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class RunBatch extends RecursiveAction {
+        private static final int RUNS_PER_TASK = 4;
+
+        private final List<PathPlannerTrajectory> paths;
+        private final long seed;
+        private final int from;
+        private final int to;
+        private final double[] positionErrors;
+        private final double[] headingErrors;
+        private final double[] completionTimes;
+
+        RunBatch(List<PathPlannerTrajectory> paths, long seed, int from, int to, double[] positionErrors,
+                double[] headingErrors, double[] completionTimes) {
+            this.paths = paths;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.positionErrors = positionErrors;
+            this.headingErrors = headingErrors;
+            this.completionTimes = completionTimes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > RUNS_PER_TASK) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new RunBatch(paths, seed, from, mid, positionErrors, headingErrors, completionTimes),
+                        new RunBatch(paths, seed, mid, to, positionErrors, headingErrors, completionTimes));
+                return;
+            }
+            final double[] result = new double[3];
+            for (int run = from; run < to; run++) {
+                new Run(paths, perturbation, dtSeconds, new Random(seed * 31 + run)).simulate(result);
+                positionErrors[run] = result[0];
+                headingErrors[run] = result[1];
+                completionTimes[run] = result[2];
+            }
+        }
+    }
+
+    /** One randomized run of a routine, sharing no state with any other run. */
+    private static class Run {
+        private final List<PathPlannerTrajectory> paths;
+        private final Random random;
+        private final HeadlessSwerveSim sim;
+        private final int stepsPerControl;
+        private final double maxSpeed = Constants.Motor.MAX_VELOCITY_MPS;
+        private final double startX;
+        private final double startY;
+        private final double startTheta;
+        private final double[] encoderOffsets = new double[QuadSwerveSim.NUM_MODULES];
+        private final double[] moduleX = new double[QuadSwerveSim.NUM_MODULES];
+        private final double[] moduleY = new double[QuadSwerveSim.NUM_MODULES];
+        private final double[] moduleSpeeds = new double[QuadSwerveSim.NUM_MODULES];
+        private final double[] moduleAngles = new double[QuadSwerveSim.NUM_MODULES];
+        private final double[] voltages = new double[VoltageScript.VOLTAGES_PER_LINE];
+
+        // Odometry resets map the sim pose at the reset onto the path start pose
+        private double resetSimX, resetSimY, resetSimTheta;
+        private double resetX, resetY, resetTheta;
+        private double estimateX, estimateY, estimateTheta;
+        private double prevErrorX, prevErrorY, prevErrorTheta;
+
+        Run(List<PathPlannerTrajectory> paths, Perturbation perturbation, double dtSeconds, Random random) {
+            this.paths = paths;
+            this.random = random;
+            final double friction = 1 + gaussian(perturbation.FRICTION_FRACTION);
+            final double mass = Units.lbsToKilograms(Constants.ROBOT_MASS_LBS)
+                    * (1 + gaussian(perturbation.MASS_FRACTION));
+            sim = new HeadlessSwerveSim(Mk3ModuleConfiguration.STANDARD, DCMotor.getFalcon500(1),
+                    DCMotor.getFalcon500(1),
+                    new SwerveDrivetrainConfig(Constants.TRACKWIDTH_METERS, Constants.WHEELBASE_METERS, mass),
+                    ModuleConfiguration.DEFAULT_TREAD_STATIC_COEF_FRIC * friction,
+                    ModuleConfiguration.DEFAULT_TREAD_KINETIC_COEF_FRIC * friction,
+                    dtSeconds);
+            stepsPerControl = Math.max(1, (int) Math.round(CONTROL_PERIOD_SEC / dtSeconds));
+            for (int idx = 0; idx < QuadSwerveSim.NUM_MODULES; idx++) {
+                encoderOffsets[idx] = gaussian(perturbation.ENCODER_OFFSET_RAD);
+                moduleX[idx] = sim.getModuleTranslation(idx).getX();
+                moduleY[idx] = sim.getModuleTranslation(idx).getY();
+            }
+
+            PathPlannerState initial = (PathPlannerState) paths.get(0).getInitialState();
+            startX = initial.poseMeters.getX() + gaussian(perturbation.START_POSITION_M);
+            startY = initial.poseMeters.getY() + gaussian(perturbation.START_POSITION_M);
+            startTheta = initial.holonomicRotation.getRadians() + gaussian(perturbation.START_HEADING_RAD);
+        }
+
+        private double gaussian(double standardDeviation) {
+            return random.nextGaussian() * standardDeviation;
+        }
+
+        /**
+         * @param result_out Receives the end position error, end heading error and
+         *                   completion time, NaN if the run never settled
+         */
+        void simulate(double[] result_out) {
+            sim.reset(new Pose2d(startX, startY, new Rotation2d(startTheta)));
+            double elapsed = 0;
+            PathPlannerState goal = null;
+            for (PathPlannerTrajectory path : paths) {
+                PathPlannerState initial = (PathPlannerState) path.getInitialState();
+                resetOdometry(initial);
+                for (double t = 0; t < path.getTotalTimeSeconds(); t += CONTROL_PERIOD_SEC) {
+                    control((PathPlannerState) path.sample(t));
+                    elapsed += CONTROL_PERIOD_SEC;
+                }
+                goal = (PathPlannerState) path.getEndState();
+            }
+
+            // Hold the last state until the robot thinks it has arrived
+            double completionTime = Double.NaN;
+            for (double t = 0; t <= SETTLE_TIMEOUT_SEC; t += CONTROL_PERIOD_SEC) {
+                updateEstimate();
+                if (Math.hypot(goal.poseMeters.getX() - estimateX, goal.poseMeters.getY() - estimateY)
+                        < POSITION_TOLERANCE_M
+                        && Math.abs(wrap(goal.holonomicRotation.getRadians() - estimateTheta))
+                                < HEADING_TOLERANCE_RAD) {
+                    completionTime = elapsed;
+                    break;
+                }
+                control(goal);
+                elapsed += CONTROL_PERIOD_SEC;
+            }
+
+            result_out[0] = Math.hypot(goal.poseMeters.getX() - sim.getX(), goal.poseMeters.getY() - sim.getY());
+            result_out[1] = Math.abs(wrap(goal.holonomicRotation.getRadians() - sim.getHeadingRadians()));
+            result_out[2] = completionTime;
+        }
+
+        private void resetOdometry(PathPlannerState initial) {
+            resetSimX = sim.getX();
+            resetSimY = sim.getY();
+            resetSimTheta = sim.getHeadingRadians();
+            resetX = initial.poseMeters.getX();
+            resetY = initial.poseMeters.getY();
+            resetTheta = initial.holonomicRotation.getRadians();
+            prevErrorX = prevErrorY = prevErrorTheta = 0;
+        }
+
+        private void updateEstimate() {
+            // Motion since the reset in the frame of the sim pose at the reset
+            final double dx = sim.getX() - resetSimX;
+            final double dy = sim.getY() - resetSimY;
+            final double localX = dx * Math.cos(resetSimTheta) + dy * Math.sin(resetSimTheta);
+            final double localY = -dx * Math.sin(resetSimTheta) + dy * Math.cos(resetSimTheta);
+            final double dtheta = sim.getHeadingRadians() - resetSimTheta;
+            estimateX = resetX + localX * Math.cos(resetTheta) - localY * Math.sin(resetTheta);
+            estimateY = resetY + localX * Math.sin(resetTheta) + localY * Math.cos(resetTheta);
+            estimateTheta = wrap(resetTheta + dtheta);
+        }
+
+        /** Runs one loop of the path follower and module controllers, then steps the sim until the next. */
+        private void control(PathPlannerState state) {
+            updateEstimate();
+
+            // Holonomic drive controller: path feedforward plus PD on the pose error
+            final double errorX = state.poseMeters.getX() - estimateX;
+            final double errorY = state.poseMeters.getY() - estimateY;
+            final double errorTheta = wrap(state.holonomicRotation.getRadians() - estimateTheta);
+            final double heading = state.poseMeters.getRotation().getRadians();
+            final double vx = state.velocityMetersPerSecond * Math.cos(heading)
+                    + Constants.Auto.PID_XY.P * errorX
+                    + Constants.Auto.PID_XY.D * (errorX - prevErrorX) / CONTROL_PERIOD_SEC;
+            final double vy = state.velocityMetersPerSecond * Math.sin(heading)
+                    + Constants.Auto.PID_XY.P * errorY
+                    + Constants.Auto.PID_XY.D * (errorY - prevErrorY) / CONTROL_PERIOD_SEC;
+            final double omega = Constants.Auto.PID_THETA.P * errorTheta
+                    + Constants.Auto.PID_THETA.D * (errorTheta - prevErrorTheta) / CONTROL_PERIOD_SEC;
+            prevErrorX = errorX;
+            prevErrorY = errorY;
+            prevErrorTheta = errorTheta;
+
+            // Field relative to robot relative, then inverse kinematics and desaturation
+            final double cos = Math.cos(estimateTheta);
+            final double sin = Math.sin(estimateTheta);
+            final double robotVx = vx * cos + vy * sin;
+            final double robotVy = -vx * sin + vy * cos;
+            double fastest = 0;
+            for (int idx = 0; idx < QuadSwerveSim.NUM_MODULES; idx++) {
+                final double moduleVx = robotVx - omega * moduleY[idx];
+                final double moduleVy = robotVy + omega * moduleX[idx];
+                moduleSpeeds[idx] = Math.hypot(moduleVx, moduleVy);
+                if (moduleSpeeds[idx] > 1E-6) {
+                    moduleAngles[idx] = Math.atan2(moduleVy, moduleVx);
+                }
+                fastest = Math.max(fastest, moduleSpeeds[idx]);
+            }
+            final double scale = fastest > maxSpeed ? maxSpeed / fastest : 1.0;
+            for (int idx = 0; idx < QuadSwerveSim.NUM_MODULES; idx++) {
+                moduleSpeeds[idx] *= scale;
+            }
+
+            // The module loops run on the motor controllers, so they update every sim step
+            for (int i = 0; i < stepsPerControl; i++) {
+                updateModuleVoltages();
+                sim.step(voltages);
+            }
+        }
+
+        /** Drive and steer closed loops, measuring the azimuth through the offset encoders. */
+        private void updateModuleVoltages() {
+            for (int idx = 0; idx < QuadSwerveSim.NUM_MODULES; idx++) {
+                SwerveModuleSim module = sim.getModule(idx);
+                double speed = moduleSpeeds[idx];
+                double steerError = wrap(moduleAngles[idx] - (module.getSteerAngleRadians() + encoderOffsets[idx]));
+                if (Math.abs(steerError) > Math.PI / 2.0) {
+                    steerError = wrap(steerError + Math.PI);
+                    speed = -speed;
+                }
+                final double steerRate = Units.rotationsPerMinuteToRadiansPerSecond(
+                        module.getAzimuthEncoderVelocityRPM());
+                voltages[2 * idx] = clampVoltage(
+                        speed / maxSpeed * MAX_VOLTAGE + DRIVE_KP * (speed - module.getWheelSpeedMps()));
+                voltages[2 * idx + 1] = clampVoltage(STEER_KP * steerError - STEER_KD * steerRate);
+            }
+        }
+
+        private static double clampVoltage(double voltage) {
+            return Math.max(-MAX_VOLTAGE, Math.min(MAX_VOLTAGE, voltage));
+        }
+
+        private static double wrap(double angle) {
+            return Math.atan2(Math.sin(angle), Math.cos(angle));
+        }
+    }
+}
@@ -1,30 +1,63 @@
 package beartecs.swerve.sim;
 
+import java.nio.ByteBuffer;
+
+import beartecs.logger.PackedTelemetryFormat;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
+/**
+ * Field widget poses. Each setter swaps in an immutable pose or a reference
+ * through a volatile field, so producers on any thread can publish while
+ * {@link #update()} runs on the main loop.
+ *
+ * <p>
+ * The poses and module states are sent every loop as one packed frame in the
+ * {@link PackedTelemetryFormat}. The trajectory is only encoded and sent when
+ * a different one is set.
+ * </p>
+ */
 public class PoseTelemetry {
 
   public static Field2d field = new Field2d();
 
   // Estimated position says where you think your robot is at
   // Based on encoders, motion, vision, etc.
-  Pose2d estimatedPose = new Pose2d();
+  volatile Pose2d estimatedPose = new Pose2d();
 
   // Actual position defines wherever the robot is actually at
   // at any time. It is unknowable in real life. The simulation
   // generates this as its primary output.
-  Pose2d actualPose = new Pose2d();
+  volatile Pose2d actualPose = new Pose2d();
+
+  // Swerve Module states, read only
+  volatile SwerveModuleState[] moduleStates = null;
 
-  // Swerve Module positions
-  Pose2d[] modulePoses = { null, null, null, null };
+  volatile Trajectory trajectory = null;
 
-  Trajectory trajectory = null;
+  private final NetworkTableEntry m_frameEntry;
+  private final NetworkTableEntry m_trajectoryEntry;
+  private final NetworkTableEntry m_modulesEntry;
+  private final byte[] m_frame = new byte[PackedTelemetryFormat.FRAME_BYTES];
+  private final ByteBuffer m_frameBuffer = ByteBuffer.wrap(m_frame);
+  private Trajectory m_shownTrajectory = null;
+  private short m_trajectoryVersion = 0;
+  private short m_shownTrajectoryVersion = 0;
 
   public PoseTelemetry() {
     SmartDashboard.putData("Field", field);
+    NetworkTable table = NetworkTableInstance.getDefault().getTable(PackedTelemetryFormat.TABLE);
+    m_frameEntry = table.getEntry(PackedTelemetryFormat.FRAME_ENTRY);
+    m_trajectoryEntry = table.getEntry(PackedTelemetryFormat.TRAJECTORY_ENTRY);
+    m_modulesEntry = table.getEntry(PackedTelemetryFormat.MODULES_ENTRY);
   }
 
   public void setActualPose(Pose2d act) {
@@ -35,8 +68,24 @@ public class PoseTelemetry {
     estimatedPose = est;
   }
 
-  public void setSwerveModulePoses(Pose2d[] mods) {
-    modulePoses = mods;
+  /**
+   * @param states The module states, must not change until the next
+   *               {@link #update()}, e.g. the states of the current sensor
+   *               frame
+   */
+  public void setSwerveModuleStates(SwerveModuleState[] states) {
+    moduleStates = states;
+  }
+
+  /**
+   * Sends the module locations once, a dashboard combines them with the pose
+   * to draw the modules.
+   *
+   * @param locations The module locations relative to the robot center, in the
+   *                  order of the module states
+   */
+  public void setModuleLocations(Translation2d[] locations) {
+    m_modulesEntry.setRaw(PackedTelemetryFormat.encodeModules(locations));
   }
 
   public void setTrajectory(Trajectory traj) {
@@ -44,9 +93,26 @@ public class PoseTelemetry {
   }
 
   public void update() {
-    field.setRobotPose(actualPose);
-    field.getObject("EstPose").setPose(estimatedPose);
-    field.getObject("ModPoses").setPoses(modulePoses);
-    field.getObject("Trajectory").setTrajectory(trajectory);
+    final Pose2d pose = actualPose;
+    field.setRobotPose(pose);
+
+    final Trajectory traj = trajectory;
+    if (traj != m_shownTrajectory) {
+      m_shownTrajectory = traj;
+      if (traj == null) {
+        m_shownTrajectoryVersion = 0;
+        field.getObject("Trajectory").setPoses();
+      } else {
+        m_trajectoryVersion = PackedTelemetryFormat.nextTrajectoryVersion(m_trajectoryVersion);
+        m_shownTrajectoryVersion = m_trajectoryVersion;
+        field.getObject("Trajectory").setTrajectory(traj);
+      }
+      m_trajectoryEntry.setRaw(PackedTelemetryFormat.encodeTrajectory(m_shownTrajectoryVersion, traj));
+    }
+
+    m_frameBuffer.clear();
+    PackedTelemetryFormat.encodeFrame(m_frameBuffer, m_shownTrajectoryVersion, Timer.getFPGATimestamp(), pose,
+        estimatedPose, moduleStates);
+    m_frameEntry.setRaw(m_frame);
   }
-}
\ No newline at end of file
+}
@@ -1,17 +1,13 @@
 package beartecs.swerve.sim;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import beartecs.math.Force2d;
-import beartecs.math.ForceAtPose2d;
-import beartecs.math.Vector2d;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.geometry.Twist2d;
 
 public class QuadSwerveSim {
 
@@ -23,19 +19,33 @@ public class QuadSwerveSim {
 
     List<SwerveModuleSim> modules;
 
-    Vector2d accel_prev = new Vector2d();
-    Vector2d vel_prev = new Vector2d();
+    // Field frame, primitive so update() never allocates
+    double accelX_prev = 0;
+    double accelY_prev = 0;
+    double velX_prev = 0;
+    double velY_prev = 0;
     double rotAccel_prev = 0;
     double rotVel_prev = 0;
 
     public final List<Translation2d> robotToModuleTL;
     public final List<Transform2d> robotToModuleTF;
+    private final double[] moduleOffsetX = new double[NUM_MODULES];
+    private final double[] moduleOffsetY = new double[NUM_MODULES];
 
-    Pose2d curPose = new Pose2d();
+    double curX = 0;
+    double curY = 0;
+    double curTheta = 0;
 
     double robotMass;
     double robotInertia;
 
+    // Scratch forces in the robot frame, reused every update
+    private final Force2d[] wheelMotiveForces = new Force2d[NUM_MODULES];
+    private final Force2d[] xtreadFricForces = new Force2d[NUM_MODULES];
+    private final Force2d preFricNetForce = new Force2d();
+    private final Force2d preFricForceAtModule = new Force2d();
+    private final Force2d forceOnRobotCenter = new Force2d();
+
     public QuadSwerveSim(
             double wheelBaseWidth_m,
             double wheelBaseLength_m,
@@ -56,101 +66,105 @@ public class QuadSwerveSim {
                 new Transform2d(robotToModuleTL.get(BL), new Rotation2d(0.0)),
                 new Transform2d(robotToModuleTL.get(BR), new Rotation2d(0.0)));
 
+        for (int idx = 0; idx < NUM_MODULES; idx++) {
+            moduleOffsetX[idx] = robotToModuleTL.get(idx).getX();
+            moduleOffsetY[idx] = robotToModuleTL.get(idx).getY();
+            wheelMotiveForces[idx] = new Force2d();
+            xtreadFricForces[idx] = new Force2d();
+        }
+
         this.robotMass = robotMass;
         this.robotInertia = robotInertia;
 
     }
 
     public void modelReset(Pose2d pose) {
-        accel_prev = new Vector2d();
-        vel_prev = new Vector2d();
+        accelX_prev = accelY_prev = 0;
+        velX_prev = velY_prev = 0;
         rotAccel_prev = 0;
         rotVel_prev = 0;
+        curX = pose.getX();
+        curY = pose.getY();
+        curTheta = pose.getRotation().getRadians();
+        final double cos = Math.cos(curTheta);
+        final double sin = Math.sin(curTheta);
         for (int idx = 0; idx < NUM_MODULES; idx++) {
-            modules.get(idx).reset(pose.transformBy(robotToModuleTF.get(idx)));
+            modules.get(idx).reset(
+                    curX + moduleOffsetX[idx] * cos - moduleOffsetY[idx] * sin,
+                    curY + moduleOffsetX[idx] * sin + moduleOffsetY[idx] * cos,
+                    curTheta);
         }
-        curPose = pose;
     }
 
+    /**
+     * Steps the simulation. Modules are mounted without rotation, so every module
+     * frame shares the robot heading and forces at the modules can be summed in
+     * the robot frame directly. Nothing is allocated.
+     */
     public void update(double dtSeconds) {
-
-        Pose2d fieldReferenceFrame = new Pose2d();// global origin
-        Transform2d fieldToRobotTrans = new Transform2d(fieldReferenceFrame, curPose);
+        final double cos = Math.cos(curTheta);
+        final double sin = Math.sin(curTheta);
 
         ////////////////////////////////////////////////////////////////
         // Component-Force Calculations to populate the free-body diagram
 
         // Calculate each module's new position, and step it through simulation.
         for (int idx = 0; idx < NUM_MODULES; idx++) {
-            Pose2d modPose = fieldReferenceFrame.transformBy(fieldToRobotTrans).transformBy(robotToModuleTF.get(idx));
-            modules.get(idx).setModulePose(modPose);
-            modules.get(idx).update(dtSeconds);
+            SwerveModuleSim mod = modules.get(idx);
+            mod.setModulePose(
+                    curX + moduleOffsetX[idx] * cos - moduleOffsetY[idx] * sin,
+                    curY + moduleOffsetX[idx] * sin + moduleOffsetY[idx] * cos,
+                    curTheta);
+            mod.update(dtSeconds);
         }
 
         // Force on frame from wheel motive forces (along-tread)
-        ArrayList<ForceAtPose2d> wheelMotiveForces = new ArrayList<ForceAtPose2d>(NUM_MODULES);
+        // First half of the somewhat-dubious friction model
+        preFricNetForce.set(0, 0);
         for (int idx = 0; idx < NUM_MODULES; idx++) {
-            wheelMotiveForces.add(modules.get(idx).getWheelMotiveForce());
+            modules.get(idx).getWheelMotiveForce(wheelMotiveForces[idx]);
+            preFricNetForce.accum(wheelMotiveForces[idx]); //Add up all the forces that friction gets a chance to fight against
         }
 
-        // First half of the somewhat-dubious friction model
-        Force2d preFricNetForce = new Force2d();
-        wheelMotiveForces.forEach((ForceAtPose2d mf) -> {
-            preFricNetForce.accum(mf.getForceInRefFrame(curPose)); //Add up all the forces that friction gets a chance to fight against
-        });
-
-        Force2d sidekickForce = new Force2d(0, 0);
-
-        preFricNetForce.accum(sidekickForce);
-
-        ForceAtPose2d preFricNetForceRobotCenter = new ForceAtPose2d(preFricNetForce, curPose);
-
         // Calculate the forces from cross-tread friction at each module
-        ArrayList<ForceAtPose2d> netXtreadFricForces = new ArrayList<ForceAtPose2d>(NUM_MODULES);
+        final double perWheelForceFrac = 1.0 / NUM_MODULES; //Assume force evenly applied to all modules.
         for (int idx = 0; idx < NUM_MODULES; idx++) {
-            SwerveModuleSim mod = modules.get(idx);
-            double perWheelForceFrac = 1.0 / NUM_MODULES; //Assume force evenly applied to all modules.
-            Force2d preFricForceAtModule = preFricNetForceRobotCenter.getForceInRefFrame(mod.getModulePose())
-                    .times(perWheelForceFrac);
-            netXtreadFricForces.add(mod.getCrossTreadFrictionalForce(preFricForceAtModule, dtSeconds));
+            preFricForceAtModule.set(preFricNetForce).scale(perWheelForceFrac);
+            modules.get(idx).getCrossTreadFrictionalForce(preFricForceAtModule, dtSeconds, xtreadFricForces[idx]);
         }
 
         ////////////////////////////////////////////////////////////////
         // Combine forces in free-body diagram
 
-        // Using all the above force components, do Sum of Forces
-        Force2d forceOnRobotCenter = preFricNetForce;
-
-        netXtreadFricForces.forEach((ForceAtPose2d f) -> {
-            forceOnRobotCenter.accum(f.getForceInRefFrame(curPose));
-        });
-
-        ForceAtPose2d netForce = new ForceAtPose2d(forceOnRobotCenter, curPose);
-
-        Force2d robotForceInFieldRefFrame = netForce.getForceInRefFrame(fieldReferenceFrame);
-
-        //Sum of Torques
+        // Using all the above force components, do Sum of Forces and Sum of Torques
+        forceOnRobotCenter.set(preFricNetForce);
         double netTorque = 0;
-
         for (int idx = 0; idx < NUM_MODULES; idx++) {
-            netTorque += wheelMotiveForces.get(idx).getTorque(curPose);
-            netTorque += netXtreadFricForces.get(idx).getTorque(curPose);
+            forceOnRobotCenter.accum(xtreadFricForces[idx]);
+            netTorque += torque(idx, wheelMotiveForces[idx]);
+            netTorque += torque(idx, xtreadFricForces[idx]);
         }
 
+        // Into the field reference frame
+        forceOnRobotCenter.rotate(cos, sin);
+
         ////////////////////////////////////////////////////////////////
         // Apply Newton's 2nd law to get motion from forces
 
         //a = F/m in field frame
-        Vector2d accel = robotForceInFieldRefFrame.times(1 / robotMass).getVector2d();
+        final double accelX = forceOnRobotCenter.x / robotMass;
+        final double accelY = forceOnRobotCenter.y / robotMass;
 
-        Vector2d velocity = new Vector2d(vel_prev.x + (accel.x + accel_prev.x) / 2 * dtSeconds, //Trapezoidal integration
-                vel_prev.y + (accel.y + accel_prev.y) / 2 * dtSeconds);
+        final double velX = velX_prev + (accelX + accelX_prev) / 2 * dtSeconds; //Trapezoidal integration
+        final double velY = velY_prev + (accelY + accelY_prev) / 2 * dtSeconds;
 
-        Translation2d posChange = new Translation2d((velocity.x + vel_prev.x) / 2 * dtSeconds, //Trapezoidal integration
-                (velocity.y + vel_prev.y) / 2 * dtSeconds);
+        final double posChangeX = (velX + velX_prev) / 2 * dtSeconds; //Trapezoidal integration
+        final double posChangeY = (velY + velY_prev) / 2 * dtSeconds;
 
-        vel_prev = velocity;
-        accel_prev = accel;
+        velX_prev = velX;
+        velY_prev = velY;
+        accelX_prev = accelX;
+        accelY_prev = accelY;
 
         //alpha = T/I in field frame
         double rotAccel = netTorque / robotInertia;
@@ -160,15 +174,46 @@ public class QuadSwerveSim {
         rotVel_prev = rotVel;
         rotAccel_prev = rotAccel;
 
-        posChange = posChange.rotateBy(curPose.getRotation().unaryMinus()); //Twist needs to be relative to robot reference frame
+        //Twist needs to be relative to robot reference frame
+        final double dx = posChangeX * cos + posChangeY * sin;
+        final double dy = -posChangeX * sin + posChangeY * cos;
+
+        // Pose2d.exp of the twist
+        final double s;
+        final double c;
+        if (Math.abs(rotPosChange) < 1E-9) {
+            s = 1.0 - 1.0 / 6.0 * rotPosChange * rotPosChange;
+            c = 0.5 * rotPosChange;
+        } else {
+            s = Math.sin(rotPosChange) / rotPosChange;
+            c = (1 - Math.cos(rotPosChange)) / rotPosChange;
+        }
+        final double localX = dx * s - dy * c;
+        final double localY = dx * c + dy * s;
+        curX += localX * cos - localY * sin;
+        curY += localX * sin + localY * cos;
+        curTheta = Math.atan2(Math.sin(curTheta + rotPosChange), Math.cos(curTheta + rotPosChange));
+    }
+
+    /** Torque about the robot center of a robot frame force acting at a module, positive is counter-clockwise */
+    private double torque(int idx, Force2d force) {
+        return moduleOffsetX[idx] * force.y - moduleOffsetY[idx] * force.x;
+    }
 
-        Twist2d motionThisLoop = new Twist2d(posChange.getX(), posChange.getY(), rotPosChange);
+    public double getX() {
+        return curX;
+    }
+
+    public double getY() {
+        return curY;
+    }
 
-        curPose = curPose.exp(motionThisLoop);
+    public double getHeadingRadians() {
+        return curTheta;
     }
 
     public Pose2d getPose() {
-        return curPose;
+        return new Pose2d(curX, curY, new Rotation2d(curTheta));
     }
 
 }
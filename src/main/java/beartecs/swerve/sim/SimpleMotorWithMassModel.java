@@ -1,31 +1,44 @@
 package beartecs.swerve.sim;
 
-import edu.wpi.first.wpilibj.simulation.FlywheelSim;
 import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
 
 class SimpleMotorWithMassModel {
 
     double curDisplacement_Rev;
 
     private final double gearing;
+    private final DCMotor motor;
 
-    FlywheelSim fwSim;
+    // Flywheel plant dw/dt = a * w + b * V, the same model FlywheelSim builds
+    private final double a;
+    private final double b;
+
+    private double curSpeed_radPerSec;
+    private double curVoltage;
 
     /**
-     * So far - this is just a wrapper around FlywheelSim to get position as an output
+     * A rotating mass driven by a motor, with position as an output.
+     * <p>
+     * Uses the same single-state system as FlywheelSim, but discretized exactly
+     * with primitives instead of matrices so an update does not allocate.
+     * </p>
      * @param motor
      * @param gearing
      * @param moi
      */
     SimpleMotorWithMassModel(DCMotor motor, double gearing, double moi) {
-        fwSim = new FlywheelSim(motor, gearing, moi);
+        this.motor = motor;
         this.gearing = gearing;
+        this.a = -gearing * gearing * motor.KtNMPerAmp / (motor.KvRadPerSecPerVolt * motor.rOhms * moi);
+        this.b = gearing * motor.KtNMPerAmp / (motor.rOhms * moi);
     }
 
     void update(double motorVoltage, double dtSeconds) {
-        fwSim.setInputVoltage(motorVoltage);
-        fwSim.update(dtSeconds);
-        curDisplacement_Rev += fwSim.getAngularVelocityRPM() / 60 * dtSeconds; //Add additional state of displacement in a hacky-ish calculation
+        curVoltage = motorVoltage;
+        final double decay = Math.exp(a * dtSeconds);
+        curSpeed_radPerSec = decay * curSpeed_radPerSec + (decay - 1.0) / a * b * motorVoltage;
+        curDisplacement_Rev += getMechanismSpeed_RPM() / 60 * dtSeconds; //Add additional state of displacement in a hacky-ish calculation
     }
 
     /**
@@ -33,7 +46,7 @@ class SimpleMotorWithMassModel {
      * @return The present speed of the rotating mass
      */
     double getMechanismSpeed_RPM() {
-        return fwSim.getAngularVelocityRPM();
+        return Units.radiansPerSecondToRotationsPerMinute(curSpeed_radPerSec);
     }
 
     /**
@@ -41,7 +54,7 @@ class SimpleMotorWithMassModel {
      * @return The present current draw of the mechanism
      */
     double getCurrent_A() {
-        return fwSim.getCurrentDrawAmps();
+        return motor.getCurrent(curSpeed_radPerSec * gearing, curVoltage) * Math.signum(curVoltage);
     }
 
     /**
@@ -65,6 +78,6 @@ class SimpleMotorWithMassModel {
      * @return The present motor shaft speed
      */
     double getMotorSpeed_RPM() {
-        return fwSim.getAngularVelocityRPM() * gearing;
+        return getMechanismSpeed_RPM() * gearing;
     }
-}
\ No newline at end of file
+}
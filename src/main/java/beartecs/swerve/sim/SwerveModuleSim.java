@@ -1,12 +1,11 @@
 package beartecs.swerve.sim;
 
+import beartecs.logger.TelemetryPublisher;
 import beartecs.math.Force2d;
-import beartecs.math.ForceAtPose2d;
-import beartecs.math.Vector2d;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.system.plant.DCMotor;
-import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 
@@ -21,10 +20,17 @@ public class SwerveModuleSim {
     private final double treadKineticFricForce;
     private final double wheelGearboxLossFactor = 0.01;
 
-    Pose2d prevModulePose = null;
-    Pose2d curModulePose = null;
+    // Module poses in the field frame, primitive so update() never allocates
+    boolean hasModulePose = false;
+    double prevModuleX = 0;
+    double prevModuleY = 0;
+    double curModuleX = 0;
+    double curModuleY = 0;
+    double curModuleTheta = 0;
     double curLinearSpeed_mps = 0; //Positive = in curAngle_deg, Negative = opposite of curAngle_deg
-    Rotation2d cursteerAngle = Rotation2d.fromDegrees(0); //0 = toward front, 90 = toward left, 180 = toward back, 270 = toward right
+    double cursteerAngle_rad = 0; //0 = toward front, pi/2 = toward left, pi = toward back, 3pi/2 = toward right
+    double cursteerCos = 1;
+    double cursteerSin = 0;
 
     double crossTreadFricForceMag = 0;
     double crossTreadVelMag = 0;
@@ -33,12 +39,12 @@ public class SwerveModuleSim {
     double wheelVoltage;
     double steerVoltage;
 
-    private ShuffleboardTab tab = Shuffleboard.getTab("SimSwerve");
-    private NetworkTableEntry azmthVoltageEntry;
-    private NetworkTableEntry wheelVoltageEntry;
-    private NetworkTableEntry azmthSpeedEntry;
-    private NetworkTableEntry azmthPosEntry;
-    private NetworkTableEntry wheelSpeedEntry;
+    private final boolean enableTelemetry;
+    private TelemetryPublisher.Field azmthVoltageField;
+    private TelemetryPublisher.Field wheelVoltageField;
+    private TelemetryPublisher.Field azmthSpeedField;
+    private TelemetryPublisher.Field azmthPosField;
+    private TelemetryPublisher.Field wheelSpeedField;
 
     public SwerveModuleSim(
             DCMotor azimuthMotor,
@@ -53,6 +59,28 @@ public class SwerveModuleSim {
             double moduleNormalForce,
             double azimuthEffectiveMOI,
             String namePrefix) {
+        this(azimuthMotor, driveMotor, wheelRadius_m, azimuthGearRatio, wheelGearRatio, azimuthEncGearRatio,
+                wheelEncGearRatio, treadStaticCoefFric, treadKineticCoefFric, moduleNormalForce, azimuthEffectiveMOI,
+                namePrefix, true);
+    }
+
+    /**
+     * @param enableTelemetry false to never touch NetworkTables, for headless runs
+     */
+    public SwerveModuleSim(
+            DCMotor azimuthMotor,
+            DCMotor driveMotor,
+            double wheelRadius_m,
+            double azimuthGearRatio,
+            double wheelGearRatio,
+            double azimuthEncGearRatio,
+            double wheelEncGearRatio,
+            double treadStaticCoefFric,
+            double treadKineticCoefFric,
+            double moduleNormalForce,
+            double azimuthEffectiveMOI,
+            String namePrefix,
+            boolean enableTelemetry) {
         this.steerMotor = new SimpleMotorWithMassModel(azimuthMotor, azimuthGearRatio, azimuthEffectiveMOI);
         this.driveMotor = new MotorGearboxWheelSim(driveMotor, wheelGearRatio, wheelRadius_m, wheelGearboxLossFactor);
 
@@ -61,11 +89,16 @@ public class SwerveModuleSim {
         this.treadStaticFricForce = treadStaticCoefFric * moduleNormalForce;
         this.treadKineticFricForce = treadKineticCoefFric * moduleNormalForce;
 
-        this.azmthVoltageEntry = tab.add(namePrefix + "Azmth Voltage V", 0).getEntry();
-        this.wheelVoltageEntry = tab.add(namePrefix + "Wheel Voltage V", 0).getEntry();
-        this.azmthSpeedEntry = tab.add(namePrefix + "Azmth Speed RPM", 0).getEntry();
-        this.azmthPosEntry = tab.add(namePrefix + "Azmth Pos Deg", 0).getEntry();
-        this.wheelSpeedEntry = tab.add(namePrefix + "Wheel Speed RPM", 0).getEntry();
+        this.enableTelemetry = enableTelemetry;
+        if (enableTelemetry) {
+            ShuffleboardTab tab = Shuffleboard.getTab("SimSwerve");
+            TelemetryPublisher publisher = TelemetryPublisher.getInstance();
+            this.azmthVoltageField = publisher.addNumber(tab.add(namePrefix + "Azmth Voltage V", 0).getEntry());
+            this.wheelVoltageField = publisher.addNumber(tab.add(namePrefix + "Wheel Voltage V", 0).getEntry());
+            this.azmthSpeedField = publisher.addNumber(tab.add(namePrefix + "Azmth Speed RPM", 0).getEntry());
+            this.azmthPosField = publisher.addNumber(tab.add(namePrefix + "Azmth Pos Deg", 0).getEntry());
+            this.wheelSpeedField = publisher.addNumber(tab.add(namePrefix + "Wheel Speed RPM", 0).getEntry());
+        }
     }
 
     public void setInputVoltages(double wheelVoltage, double steerVoltage) {
@@ -97,58 +130,86 @@ public class SwerveModuleSim {
         return steerMotor.getMechanismSpeed_RPM() * wheelEncGearRatio;
     }
 
-    void reset(Pose2d initModulePose) {
-        prevModulePose = curModulePose = initModulePose;
+    /**
+     * @return The idealized azimuth angle of the module in radians, not wrapped
+     */
+    public double getSteerAngleRadians() {
+        return cursteerAngle_rad;
+    }
+
+    /**
+     * @return The speed of the wheel's contact patch along the tread
+     */
+    public double getWheelSpeedMps() {
+        return Units.rotationsPerMinuteToRadiansPerSecond(driveMotor.wheelSpeed_RPM) * driveMotor.wheelRadius_m;
+    }
+
+    void reset(double x, double y, double theta) {
+        prevModuleX = curModuleX = x;
+        prevModuleY = curModuleY = y;
+        curModuleTheta = theta;
+        hasModulePose = true;
         curLinearSpeed_mps = 0;
-        cursteerAngle = Rotation2d.fromDegrees(0);
+        setSteerAngle(0);
     }
 
     void update(double dtSeconds) {
 
-        Vector2d azimuthUnitVec = new Vector2d(1, 0);
-        azimuthUnitVec.rotate(cursteerAngle.getDegrees());
-
         // Assume the wheel does not lose traction along its wheel direction (on-tread)
-        double velocityAlongAzimuth = getModuleRelativeTranslationVelocity(dtSeconds).dot(azimuthUnitVec);
+        double velocityAlongAzimuth = getModuleRelativeVelocityX(dtSeconds) * cursteerCos
+                + getModuleRelativeVelocityY(dtSeconds) * cursteerSin;
 
         driveMotor.update(velocityAlongAzimuth, wheelVoltage, dtSeconds);
         steerMotor.update(steerVoltage, dtSeconds);
 
         // Assume idealized azimuth control - no "twist" force at contact patch from friction or robot motion.
-        cursteerAngle = Rotation2d.fromDegrees(steerMotor.getMechanismPosition_Rev() * 360);
+        setSteerAngle(steerMotor.getMechanismPosition_Rev() * 2.0 * Math.PI);
+
+        if (enableTelemetry) {
+            // Only stored, published at the dashboard rate
+            this.azmthVoltageField.set(steerVoltage);
+            this.wheelVoltageField.set(wheelVoltage);
+            this.azmthSpeedField.set(steerMotor.getMechanismSpeed_RPM());
+            this.azmthPosField.set(steerMotor.getMechanismPosition_Rev() * 360.0);
+            this.wheelSpeedField.set(driveMotor.wheelSpeed_RPM);
+        }
+    }
+
+    private void setSteerAngle(double angle_rad) {
+        cursteerAngle_rad = angle_rad;
+        cursteerCos = Math.cos(angle_rad);
+        cursteerSin = Math.sin(angle_rad);
+    }
 
-        this.azmthVoltageEntry.setDouble(steerVoltage);
-        this.wheelVoltageEntry.setDouble(wheelVoltage);
-        this.azmthSpeedEntry.setDouble(steerMotor.getMechanismSpeed_RPM());
-        this.azmthPosEntry.setDouble(steerMotor.getMechanismPosition_Rev() * 360.0);
-        this.wheelSpeedEntry.setDouble(driveMotor.wheelSpeed_RPM);
+    /** X component of the velocity of the module's contact patch moving across the field, in the module frame. */
+    double getModuleRelativeVelocityX(double dtSeconds) {
+        double xVel = (curModuleX - prevModuleX) / dtSeconds;
+        double yVel = (curModuleY - prevModuleY) / dtSeconds;
+        return xVel * Math.cos(curModuleTheta) + yVel * Math.sin(curModuleTheta);
     }
 
-    /** Get a vector of the velocity of the module's contact patch moving across the field. */
-    Vector2d getModuleRelativeTranslationVelocity(double dtSeconds) {
-        double xVel = (curModulePose.getTranslation().getX() - prevModulePose.getTranslation().getX()) / dtSeconds;
-        double yVel = (curModulePose.getTranslation().getY() - prevModulePose.getTranslation().getY()) / dtSeconds;
-        Vector2d moduleTranslationVec = new Vector2d(xVel, yVel);
-        moduleTranslationVec.rotate(-1.0 * curModulePose.getRotation().getDegrees());
-        return moduleTranslationVec;
+    /** Y component of the velocity of the module's contact patch moving across the field, in the module frame. */
+    double getModuleRelativeVelocityY(double dtSeconds) {
+        double xVel = (curModuleX - prevModuleX) / dtSeconds;
+        double yVel = (curModuleY - prevModuleY) / dtSeconds;
+        return -xVel * Math.sin(curModuleTheta) + yVel * Math.cos(curModuleTheta);
     }
 
     /**
      * Given a net force on a particular module, calculate the friction force
      * generated by the tread interacting with the ground in the direction
      * perpendicular to the wheel's rotation.
-     * @param netForce_in
-     * @return 
+     * @param netForce_in Net force on the module, in the module frame
+     * @param fricForce_out Receives the frictional force, in the module frame
      */
-    ForceAtPose2d getCrossTreadFrictionalForce(Force2d netForce_in, double dtSeconds) {
+    void getCrossTreadFrictionalForce(Force2d netForce_in, double dtSeconds, Force2d fricForce_out) {
 
         //Project net force onto cross-tread vector
-        Vector2d crossTreadUnitVector = new Vector2d(0, 1);
-        crossTreadUnitVector.rotate(cursteerAngle.getDegrees());
-        crossTreadVelMag = getModuleRelativeTranslationVelocity(dtSeconds).dot(crossTreadUnitVector);
-        crossTreadForceMag = netForce_in.getVector2d().dot(crossTreadUnitVector);
-
-        Force2d fricForce = new Force2d();
+        final double crossTreadX = -cursteerSin;
+        final double crossTreadY = cursteerCos;
+        crossTreadVelMag = getModuleRelativeVelocityX(dtSeconds) * crossTreadX
+                + getModuleRelativeVelocityY(dtSeconds) * crossTreadY;
+        crossTreadForceMag = netForce_in.x * crossTreadX + netForce_in.y * crossTreadY;
 
         if (Math.abs(crossTreadForceMag) > treadStaticFricForce || Math.abs(crossTreadVelMag) > 0.001) {
             // Force is great enough to overcome static friction, or we're already moving
@@ -159,31 +220,37 @@ public class SwerveModuleSim {
             crossTreadFricForceMag = -1.0 * crossTreadForceMag;
         }
 
-        fricForce = new Force2d(crossTreadUnitVector);
-        fricForce = fricForce.times(crossTreadFricForceMag);
-
-        return new ForceAtPose2d(fricForce, curModulePose);
+        fricForce_out.set(crossTreadX * crossTreadFricForceMag, crossTreadY * crossTreadFricForceMag);
     }
 
-    /** Gets the modules on-axis (along wheel direction) force, which comes from the rotation of the motor. */
-    ForceAtPose2d getWheelMotiveForce() {
-        return new ForceAtPose2d(new Force2d(driveMotor.getGroundForce_N(), cursteerAngle), curModulePose);
+    /**
+     * Gets the modules on-axis (along wheel direction) force, which comes from the rotation of the motor.
+     * @param force_out Receives the force, in the module frame
+     */
+    void getWheelMotiveForce(Force2d force_out) {
+        final double groundForce = driveMotor.getGroundForce_N();
+        force_out.set(groundForce * cursteerCos, groundForce * cursteerSin);
     }
 
     /** Set the motion of each module in the field reference frame */
-    void setModulePose(Pose2d curPos) {
+    void setModulePose(double x, double y, double theta) {
         //Handle init'ing module position history to current on first pass
-        if (prevModulePose == null) {
-            prevModulePose = curPos;
+        if (!hasModulePose) {
+            prevModuleX = x;
+            prevModuleY = y;
+            hasModulePose = true;
         } else {
-            prevModulePose = curModulePose;
+            prevModuleX = curModuleX;
+            prevModuleY = curModuleY;
         }
 
-        curModulePose = curPos;
+        curModuleX = x;
+        curModuleY = y;
+        curModuleTheta = theta;
     }
 
     Pose2d getModulePose() {
-        return curModulePose;
+        return new Pose2d(curModuleX, curModuleY, new Rotation2d(curModuleTheta));
     }
 
 }
@@ -0,0 +1,107 @@
+package beartecs.swerve.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A schedule of module voltages for {@link HeadlessSwerveSim}, read from a CSV
+ * file where every line is
+ *
+ * <pre>
+ * time,flDrive,flSteer,frDrive,frSteer,blDrive,blSteer,brDrive,brSteer
+ * </pre>
+ * <p>
+ * Times are in seconds and must increase, voltages hold until the next line.
+ * Blank lines, lines starting with {@code #} and a header line are skipped.
+ * </p>
+ */
+public class VoltageScript implements HeadlessSwerveSim.VoltageSource {
+    public static final int VOLTAGES_PER_LINE = 2 * QuadSwerveSim.NUM_MODULES;
+
+    private final double[] times;
+    private final double[] voltages;
+    private int cursor = 0;
+
+    /**
+     * @param times    Start time of each line in seconds
+     * @param voltages {@link #VOLTAGES_PER_LINE} voltages per line, flattened
+     */
+    public VoltageScript(double[] times, double[] voltages) {
+        if (times.length == 0 || voltages.length != times.length * VOLTAGES_PER_LINE) {
+            throw new IllegalArgumentException("Expected " + VOLTAGES_PER_LINE + " voltages per time");
+        }
+        this.times = times;
+        this.voltages = voltages;
+    }
+
+    public static VoltageScript load(File file) throws IOException {
+        List<double[]> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || (lines.isEmpty() && Character.isLetter(line.charAt(0)))) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != VOLTAGES_PER_LINE + 1) {
+                    throw new IOException(file + ":" + lineNumber + ": expected " + (VOLTAGES_PER_LINE + 1) + " columns");
+                }
+                double[] values = new double[fields.length];
+                try {
+                    for (int i = 0; i < fields.length; i++) {
+                        values[i] = Double.parseDouble(fields[i].trim());
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (!lines.isEmpty() && values[0] <= lines.get(lines.size() - 1)[0]) {
+                    throw new IOException(file + ":" + lineNumber + ": times must increase");
+                }
+                lines.add(values);
+            }
+        }
+        if (lines.isEmpty()) {
+            throw new IOException(file + " has no voltages");
+        }
+
+        double[] times = new double[lines.size()];
+        double[] voltages = new double[lines.size() * VOLTAGES_PER_LINE];
+        for (int i = 0; i < lines.size(); i++) {
+            times[i] = lines.get(i)[0];
+            System.arraycopy(lines.get(i), 1, voltages, i * VOLTAGES_PER_LINE, VOLTAGES_PER_LINE);
+        }
+        return new VoltageScript(times, voltages);
+    }
+
+    /**
+     * @return The time of the last line, the script is over once it is reached
+     */
+    public double getDuration() {
+        return times[times.length - 1];
+    }
+
+    @Override
+    public void getVoltages(double timeSeconds, HeadlessSwerveSim sim, double[] voltages_out) {
+        // Time usually only moves forward, so walk from the last line instead of searching
+        if (timeSeconds < times[cursor]) {
+            cursor = 0;
+        }
+        while (cursor + 1 < times.length && times[cursor + 1] <= timeSeconds) {
+            cursor++;
+        }
+        if (timeSeconds < times[cursor]) {
+            for (int i = 0; i < VOLTAGES_PER_LINE; i++) {
+                voltages_out[i] = 0;
+            }
+        } else {
+            System.arraycopy(voltages, cursor * VOLTAGES_PER_LINE, voltages_out, 0, VOLTAGES_PER_LINE);
+        }
+    }
+}
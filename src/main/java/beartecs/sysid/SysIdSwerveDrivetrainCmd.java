@@ -1,5 +1,7 @@
 package beartecs.sysid;
 
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.CANBandwidthManager.Mode;
 import beartecs.logger.RobotLogger;
 import beartecs.swerve.SwerveModule;
 import edu.wpi.first.wpilibj.Timer;
@@ -13,6 +15,7 @@ public class SysIdSwerveDrivetrainCmd extends CommandBase {
   private RobotLogger m_logger = RobotContainer.getLogger();
   private Double m_prevAngle = 0.0;
   private Double m_prevTime = 0.0;
+  private Mode m_prevCanMode;
 
   public SysIdSwerveDrivetrainCmd(DrivetrainSubsystem drivetrainSubsystem) {
     m_drivetrainSubsystem = drivetrainSubsystem;
@@ -30,6 +33,10 @@ public class SysIdSwerveDrivetrainCmd extends CommandBase {
     m_drivetrainSubsystem.zeroGyro();
     m_drivetrainSubsystem.resetPose(m_drivetrainSubsystem.getPose());
 
+    // Characterization needs the drive feedback frames at full rate
+    m_prevCanMode = CANBandwidthManager.getInstance().getMode();
+    CANBandwidthManager.getInstance().setMode(Mode.SYSID);
+
     m_sysIdLogger = new SysIdSwerveDrivetrainLogger();
     m_sysIdLogger.updateThreadPriority();
     m_sysIdLogger.initLogging();
@@ -58,6 +65,11 @@ public class SysIdSwerveDrivetrainCmd extends CommandBase {
   public void end(boolean interrupted) {
     m_logger.logInfo("Characterization done; disabled");
     m_drivetrainSubsystem.drive(0, 0, 0);
+    // Disabling cancels the command after Robot already switched to the disabled rates, keep those
+    final CANBandwidthManager canManager = CANBandwidthManager.getInstance();
+    if (canManager.getMode() == Mode.SYSID) {
+      canManager.setMode(m_prevCanMode);
+    }
     m_sysIdLogger.sendData();
   }
 
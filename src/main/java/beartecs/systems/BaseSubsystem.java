@@ -1,20 +1,57 @@
 package beartecs.systems;
 
+import beartecs.logger.LoopProfiler;
 import beartecs.logger.RobotLogger;
+import beartecs.math.LatencyHistogram;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.shuffleboard.*;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Robot;
-import frc.robot.RobotContainer;
 
 public class BaseSubsystem extends SubsystemBase {
   public enum RobotMode {
     DISABLED, AUTO, TELEOP
   }
 
-  protected final RobotLogger m_logger = RobotContainer.getLogger();
+  protected final RobotLogger m_logger = RobotLogger.getInstance();
+  private final LatencyHistogram m_periodicTime = LoopProfiler.getInstance().register(getName() + ".periodic");
+  private final LoopBudget.Task m_deferrable;
+
+  public BaseSubsystem() {
+    this(LoopBudget.Priority.CRITICAL);
+  }
+
+  /**
+   * @param priority Whether {@link #onPeriodic()} may be skipped or decimated
+   *                 by the {@link LoopBudget} when the loop runs late
+   */
+  protected BaseSubsystem(LoopBudget.Priority priority) {
+    m_deferrable = priority == LoopBudget.Priority.DEFERRABLE ? LoopBudget.getInstance().register(getName())
+        : null;
+  }
+
+  /**
+   * Runs {@link #onPeriodic()}, unless the subsystem is deferrable and the loop
+   * budget sheds it this cycle, and records how long it took in the
+   * {@link LoopProfiler}.
+   */
+  @Override
+  public final void periodic() {
+    if (m_deferrable != null && !m_deferrable.shouldRun()) {
+      return;
+    }
+    final long start = System.nanoTime();
+    onPeriodic();
+    m_periodicTime.record(System.nanoTime() - start);
+  }
+
+  /**
+   * Called once per scheduler run, override instead of {@link #periodic()}.
+   */
+  protected void onPeriodic() {
+  }
 
   public boolean isSim() {
     return Robot.isSimulation();
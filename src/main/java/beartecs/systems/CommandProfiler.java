@@ -0,0 +1,74 @@
+package beartecs.systems;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import beartecs.logger.LoopProfiler;
+import beartecs.math.LatencyHistogram;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Records how long the {@code execute()} of every scheduled command took in
+ * the {@link LoopProfiler}, under the name of the command.
+ *
+ * <p>
+ * The scheduler only calls its hooks after a command ran, so the time of an
+ * execute is measured from the previous scheduler event: the button polling
+ * before the first command, or the execute, end or interruption of the command
+ * before. That also counts the {@code isFinished()} of the previous command,
+ * and buttons bound after {@link #install()} count towards the first command;
+ * both are only a condition check. Command groups report their current
+ * children as part of their own execute.
+ * </p>
+ * <p>
+ * Only meant to be used from the main robot thread.
+ * </p>
+ */
+public class CommandProfiler {
+  private static CommandProfiler instance;
+
+  private final Map<String, LatencyHistogram> m_executeTimes = new HashMap<>();
+  private long m_lastEventNanos = System.nanoTime();
+  private boolean m_installed = false;
+
+  public static CommandProfiler getInstance() {
+    if (instance == null) {
+      instance = new CommandProfiler();
+    }
+    return instance;
+  }
+
+  /**
+   * Hooks into the {@link CommandScheduler}. Call once, after the button
+   * bindings made at startup.
+   */
+  public void install() {
+    if (m_installed) {
+      return;
+    }
+    m_installed = true;
+    final CommandScheduler scheduler = CommandScheduler.getInstance();
+    // Polled after the buttons bound so far, right before the commands run
+    scheduler.addButton(this::mark);
+    scheduler.onCommandInitialize(command -> mark());
+    scheduler.onCommandExecute(this::recordExecute);
+    scheduler.onCommandFinish(command -> mark());
+    scheduler.onCommandInterrupt(command -> mark());
+  }
+
+  private void mark() {
+    m_lastEventNanos = System.nanoTime();
+  }
+
+  private void recordExecute(Command command) {
+    final long now = System.nanoTime();
+    LatencyHistogram executeTime = m_executeTimes.get(command.getName());
+    if (executeTime == null) {
+      executeTime = LoopProfiler.getInstance().register(command.getName() + ".execute");
+      m_executeTimes.put(command.getName(), executeTime);
+    }
+    executeTime.record(now - m_lastEventNanos);
+    m_lastEventNanos = now;
+  }
+}
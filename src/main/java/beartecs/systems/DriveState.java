@@ -0,0 +1,135 @@
+package beartecs.systems;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * An immutable snapshot of the drivetrain state published through a
+ * {@link DriveStateHolder}.
+ *
+ * <p>
+ * WPILib's {@link ChassisSpeeds} and {@link SwerveModuleState} have mutable
+ * fields, so they are copied in and only copies are handed out. The pose and
+ * the module angles are immutable and are shared.
+ * </p>
+ */
+public final class DriveState {
+  private final long m_version;
+  private final double m_timestamp;
+  private final Pose2d m_pose;
+  private final double m_vx;
+  private final double m_vy;
+  private final double m_omega;
+  private final double[] m_moduleSpeeds;
+  private final Rotation2d[] m_moduleAngles;
+
+  DriveState(long version, double timestamp, Pose2d pose, double vx, double vy, double omega,
+      double[] moduleSpeeds, Rotation2d[] moduleAngles) {
+    m_version = version;
+    m_timestamp = timestamp;
+    m_pose = pose;
+    m_vx = vx;
+    m_vy = vy;
+    m_omega = omega;
+    m_moduleSpeeds = moduleSpeeds;
+    m_moduleAngles = moduleAngles;
+  }
+
+  DriveState withPose(double timestamp, Pose2d pose) {
+    return new DriveState(m_version + 1, timestamp, pose, m_vx, m_vy, m_omega, m_moduleSpeeds, m_moduleAngles);
+  }
+
+  DriveState withChassisSpeeds(double vx, double vy, double omega) {
+    return new DriveState(m_version + 1, m_timestamp, m_pose, vx, vy, omega, m_moduleSpeeds, m_moduleAngles);
+  }
+
+  DriveState withModuleStates(double[] moduleSpeeds, Rotation2d[] moduleAngles) {
+    return new DriveState(m_version + 1, m_timestamp, m_pose, m_vx, m_vy, m_omega, moduleSpeeds, moduleAngles);
+  }
+
+  /**
+   * @return Incremented by every publish, to tell whether anything changed
+   *         since a previous snapshot
+   */
+  public long getVersion() {
+    return m_version;
+  }
+
+  /**
+   * @return The FPGA timestamp in seconds of the pose
+   */
+  public double getTimestamp() {
+    return m_timestamp;
+  }
+
+  public Pose2d getPose() {
+    return m_pose;
+  }
+
+  /**
+   * @return A copy of the chassis speeds
+   */
+  public ChassisSpeeds getChassisSpeeds() {
+    return new ChassisSpeeds(m_vx, m_vy, m_omega);
+  }
+
+  public double getVxMetersPerSecond() {
+    return m_vx;
+  }
+
+  public double getVyMetersPerSecond() {
+    return m_vy;
+  }
+
+  public double getOmegaRadiansPerSecond() {
+    return m_omega;
+  }
+
+  /**
+   * @return The chassis velocity along the field x axis in m/s, rotated by the
+   *         pose heading
+   */
+  public double getFieldVxMetersPerSecond() {
+    return m_vx * m_pose.getRotation().getCos() - m_vy * m_pose.getRotation().getSin();
+  }
+
+  /**
+   * @return The chassis velocity along the field y axis in m/s, rotated by the
+   *         pose heading
+   */
+  public double getFieldVyMetersPerSecond() {
+    return m_vx * m_pose.getRotation().getSin() + m_vy * m_pose.getRotation().getCos();
+  }
+
+  /**
+   * @return Whether all the chassis speeds are zero
+   */
+  public boolean isStopped() {
+    return m_vx == 0 && m_vy == 0 && m_omega == 0;
+  }
+
+  public int getModuleCount() {
+    return m_moduleSpeeds.length;
+  }
+
+  public double getModuleSpeed(int index) {
+    return m_moduleSpeeds[index];
+  }
+
+  public Rotation2d getModuleAngle(int index) {
+    return m_moduleAngles[index];
+  }
+
+  /**
+   * @return Copies of the module states
+   */
+  public SwerveModuleState[] getModuleStates() {
+    SwerveModuleState[] states = new SwerveModuleState[m_moduleSpeeds.length];
+    for (int i = 0; i < states.length; i++) {
+      states[i] = new SwerveModuleState(m_moduleSpeeds[i], m_moduleAngles[i]);
+    }
+    return states;
+  }
+}
@@ -0,0 +1,71 @@
+package beartecs.systems;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Publishes the drivetrain pose, chassis speeds and module states across
+ * threads without locks.
+ *
+ * <p>
+ * Every publish swaps in a new immutable {@link DriveState} with a
+ * compare-and-set, so producers on different threads (odometry, vision,
+ * simulation, the scheduler) never overwrite each other's part of the state
+ * and readers always get a consistent snapshot from {@link #get()}.
+ * </p>
+ */
+public class DriveStateHolder {
+  private final AtomicReference<DriveState> m_state;
+
+  /**
+   * @param moduleCount The number of swerve modules
+   * @param pose        The initial pose
+   */
+  public DriveStateHolder(int moduleCount, Pose2d pose) {
+    double[] speeds = new double[moduleCount];
+    Rotation2d[] angles = new Rotation2d[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      angles[i] = new Rotation2d();
+    }
+    m_state = new AtomicReference<>(new DriveState(0, 0, pose, 0, 0, 0, speeds, angles));
+  }
+
+  /**
+   * @return The latest state, never blocks
+   */
+  public DriveState get() {
+    return m_state.get();
+  }
+
+  /**
+   * @param timestamp The FPGA timestamp in seconds of the pose
+   * @param pose      The new pose
+   */
+  public void publishPose(double timestamp, Pose2d pose) {
+    m_state.updateAndGet(state -> state.withPose(timestamp, pose));
+  }
+
+  public void publishChassisSpeeds(ChassisSpeeds speeds) {
+    final double vx = speeds.vxMetersPerSecond;
+    final double vy = speeds.vyMetersPerSecond;
+    final double omega = speeds.omegaRadiansPerSecond;
+    m_state.updateAndGet(state -> state.withChassisSpeeds(vx, vy, omega));
+  }
+
+  /**
+   * @param states The module states, copied
+   */
+  public void publishModuleStates(SwerveModuleState[] states) {
+    final double[] speeds = new double[states.length];
+    final Rotation2d[] angles = new Rotation2d[states.length];
+    for (int i = 0; i < states.length; i++) {
+      speeds[i] = states[i].speedMetersPerSecond;
+      angles[i] = states[i].angle;
+    }
+    m_state.updateAndGet(state -> state.withModuleStates(speeds, angles));
+  }
+}
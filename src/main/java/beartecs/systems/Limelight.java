@@ -2,9 +2,27 @@ package beartecs.systems;
 
 import beartecs.math.MathUtils;
 import edu.wpi.first.networktables.*;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.drive.Vector2d;
 
+/**
+ * A Limelight client. The target values are assembled into one immutable
+ * {@link LimelightFrame} by a NetworkTables listener whenever any of tv, tx,
+ * ty, ta or tl changes. The getters all read the latest frame, so values read
+ * from one {@link #getFrame()} do not change while they are used.
+ *
+ * <p>
+ * The entries are read when the listener runs, not atomically with the update
+ * that triggered it, so a frame can mix values of two consecutive images when
+ * they arrive close together. An update that leaves all five values the same
+ * as the latest frame does not make a new frame, and NetworkTables does not
+ * send values that did not change at all, so an image identical to the
+ * previous one is not seen as a new frame.
+ * </p>
+ */
 public final class Limelight {
+  public static final double CAPTURE_LATENCY_MS = 11.0; // Added by the image capture on top of tl
+
   private final NetworkTable table;
 
   private final NetworkTableEntry tv;
@@ -23,6 +41,9 @@ public final class Limelight {
   private final NetworkTableEntry stream;
   private final NetworkTableEntry snapshot;
 
+  private volatile LimelightFrame frame = LimelightFrame.EMPTY;
+  private long frameId = 0; // Only touched by the listener thread
+
   /**
    * Creates an instance of the Limelight, assuming the name is "limelight".
    */
@@ -64,6 +85,51 @@ public final class Limelight {
     pipeline = table.getEntry("pipeline");
     stream = table.getEntry("stream");
     snapshot = table.getEntry("snapshot");
+
+    final int flags = EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate;
+    for (NetworkTableEntry entry : new NetworkTableEntry[] { tv, tx, ty, ta, tl }) {
+      entry.addListener(notification -> readFrame(), flags);
+    }
+  }
+
+  /**
+   * Runs on the NetworkTables listener thread. One image usually changes
+   * several entries, the first notification reads them all and the others find
+   * nothing new.
+   */
+  private void readFrame() {
+    final boolean hasTarget = MathUtils.epsilonEquals(tv.getDouble(0), 1);
+    final double targetX = Math.toRadians(tx.getDouble(0));
+    final double targetY = Math.toRadians(ty.getDouble(0));
+    final double area = ta.getDouble(0);
+    final double latency = tl.getDouble(0);
+    final LimelightFrame last = frame;
+    if (frameId > 0 && hasTarget == last.hasTarget() && targetX == last.getTargetX()
+        && targetY == last.getTargetY() && area == last.getTargetArea() && latency == last.getPipelineLatency()) {
+      return;
+    }
+    frameId++;
+    frame = new LimelightFrame(
+        frameId,
+        Timer.getFPGATimestamp(),
+        hasTarget,
+        targetX,
+        targetY,
+        area,
+        ts.getDouble(0),
+        latency,
+        tcornx.getDoubleArray(LimelightFrame.DEFAULT_CORNERS),
+        tcorny.getDoubleArray(LimelightFrame.DEFAULT_CORNERS));
+  }
+
+  /**
+   * Gets the latest frame. Compare {@link LimelightFrame#getId()} with the
+   * previous frame to skip work when nothing new arrived.
+   *
+   * @returns The latest frame, never null.
+   */
+  public LimelightFrame getFrame() {
+    return frame;
   }
 
   /**
@@ -72,7 +138,7 @@ public final class Limelight {
    * @returns Whether the Limelight has a target.
    */
   public boolean hasTarget() {
-    return MathUtils.epsilonEquals(tv.getDouble(0), 1);
+    return frame.hasTarget();
   }
 
   /**
@@ -81,7 +147,7 @@ public final class Limelight {
    * @returns A value from 0.0 to 1.0 representing the target area.
    */
   public double getTargetArea() {
-    return ta.getDouble(0);
+    return frame.getTargetArea();
   }
 
   /**
@@ -90,7 +156,8 @@ public final class Limelight {
    * @returns The position of the target.
    */
   public Vector2d getTargetPosition() {
-    return new Vector2d(Math.toRadians(tx.getDouble(0)), Math.toRadians(ty.getDouble(0)));
+    final LimelightFrame current = frame;
+    return new Vector2d(current.getTargetX(), current.getTargetY());
   }
 
   /**
@@ -99,7 +166,7 @@ public final class Limelight {
    * @returns The target's skew from -90 to 0 in degrees.
    */
   public double getTargetSkew() {
-    return ts.getDouble(0);
+    return frame.getTargetSkew();
   }
 
   /**
@@ -108,28 +175,28 @@ public final class Limelight {
    * @returns The latency of the pipeline in ms.
    */
   public double getPipelineLatency() {
-    return tl.getDouble(0.0);
+    return frame.getPipelineLatency();
   }
 
   /**
    * Gets the distance
    */
   public double getDistance(double height, double targetHeight, double radianAngle) {
-    return ((targetHeight - height) / Math.tan(radianAngle + Math.toRadians(ty.getDouble(0))));
+    return ((targetHeight - height) / Math.tan(radianAngle + frame.getTargetY()));
   }
 
   /**
-   * Gets the vertices of the target.
+   * Gets the vertices of the target. Allocates, use the corner getters of
+   * {@link #getFrame()} in loops.
    * 
    * @returns The vertices of the target.
    */
   public double[][] getCorners() {
-    double[] x = tcornx.getDoubleArray(new double[] { 0.0, 0.0 });
-    double[] y = tcorny.getDoubleArray(new double[] { 0.0, 0.0 });
-    double[][] corners = new double[x.length][2];
-    for (int i = 0; i < x.length; i++) {
-      corners[i][0] = x[i];
-      corners[i][1] = y[i];
+    final LimelightFrame current = frame;
+    double[][] corners = new double[current.getCornerCount()][2];
+    for (int i = 0; i < corners.length; i++) {
+      corners[i][0] = current.getCornerX(i);
+      corners[i][1] = current.getCornerY(i);
     }
     return corners;
   }
@@ -0,0 +1,111 @@
+package beartecs.systems;
+
+/**
+ * One Limelight result, read from NetworkTables when the Limelight published
+ * it. Frames are immutable, so their values do not change while they are used,
+ * but see {@link Limelight} for when they can mix two images.
+ */
+public final class LimelightFrame {
+  // Two zero corners until the Limelight sends some, the same as reading the missing entries used to return
+  static final double[] DEFAULT_CORNERS = { 0.0, 0.0 };
+  static final LimelightFrame EMPTY = new LimelightFrame(0, 0, false, 0, 0, 0, 0, 0, DEFAULT_CORNERS,
+      DEFAULT_CORNERS);
+
+  private final long m_id;
+  private final double m_timestamp;
+  private final boolean m_hasTarget;
+  private final double m_tx;
+  private final double m_ty;
+  private final double m_area;
+  private final double m_skew;
+  private final double m_latencyMs;
+  private final double[] m_cornerX;
+  private final double[] m_cornerY;
+
+  LimelightFrame(long id, double timestamp, boolean hasTarget, double tx, double ty, double area, double skew,
+      double latencyMs, double[] cornerX, double[] cornerY) {
+    m_id = id;
+    m_timestamp = timestamp;
+    m_hasTarget = hasTarget;
+    m_tx = tx;
+    m_ty = ty;
+    m_area = area;
+    m_skew = skew;
+    m_latencyMs = latencyMs;
+    m_cornerX = cornerX;
+    m_cornerY = cornerY;
+  }
+
+  /**
+   * @return Increases by one with every frame, 0 before the first one
+   */
+  public long getId() {
+    return m_id;
+  }
+
+  /**
+   * @return The FPGA timestamp in seconds the frame was received at
+   */
+  public double getTimestamp() {
+    return m_timestamp;
+  }
+
+  /**
+   * @return The FPGA timestamp in seconds the image was captured at
+   */
+  public double getCaptureTimestamp() {
+    return m_timestamp - (m_latencyMs + Limelight.CAPTURE_LATENCY_MS) / 1000.0;
+  }
+
+  public boolean hasTarget() {
+    return m_hasTarget;
+  }
+
+  /**
+   * @return The horizontal offset of the target in radians, positive to the
+   *         right
+   */
+  public double getTargetX() {
+    return m_tx;
+  }
+
+  /**
+   * @return The vertical offset of the target in radians, positive up
+   */
+  public double getTargetY() {
+    return m_ty;
+  }
+
+  /**
+   * @return The target area from 0 to 100 percent of the image
+   */
+  public double getTargetArea() {
+    return m_area;
+  }
+
+  /**
+   * @return The skew of the target from -90 to 0 degrees
+   */
+  public double getTargetSkew() {
+    return m_skew;
+  }
+
+  /**
+   * @return The pipeline latency in ms, without the image capture latency
+   */
+  public double getPipelineLatency() {
+    return m_latencyMs;
+  }
+
+  public int getCornerCount() {
+    return Math.min(m_cornerX.length, m_cornerY.length);
+  }
+
+  public double getCornerX(int index) {
+    return m_cornerX[index];
+  }
+
+  public double getCornerY(int index) {
+    return m_cornerY[index];
+  }
+}
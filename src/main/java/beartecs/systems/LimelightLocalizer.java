@@ -0,0 +1,163 @@
+package beartecs.systems;
+
+import beartecs.Constants.Vision;
+import beartecs.configs.CameraConfig;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Turns Limelight hub targets into latency compensated field poses for a pose
+ * estimator's {@code addVisionMeasurement}.
+ *
+ * <p>
+ * The capture time of a frame is its pipeline latency plus the fixed image
+ * capture latency before it was received. The robot heading at that time comes from the
+ * pose history, the distance from the target pitch, and the robot position
+ * from walking back from the hub along the field bearing of the target and
+ * removing the mounting offset of the camera. The
+ * heading of the measurement is the historical one, so vision only corrects
+ * translation.
+ * </p>
+ * <p>
+ * Frames without a target, frames already seen, frames older than
+ * {@link Vision#MAX_LATENCY_SEC} or not newer than the last measurement, and
+ * measurements more than {@link Vision#MAX_CORRECTION_METERS} from odometry are
+ * rejected. Polling only reads the latest {@link LimelightFrame}, so it never
+ * waits on the camera.
+ * </p>
+ */
+public class LimelightLocalizer {
+  /** Looks up a past pose, e.g. {@code PoseHistoryBuffer::getSample}. */
+  @FunctionalInterface
+  public interface PoseLookup {
+    /**
+     * @param timestamp The FPGA timestamp in seconds
+     * @param out       Receives {x, y, theta}
+     * @return false if there is no history
+     */
+    boolean getPose(double timestamp, double[] out);
+  }
+
+  private final Limelight m_limelight;
+  private final CameraConfig m_camera;
+  private final PoseLookup m_history;
+  private final Translation2d m_target;
+  private final double[] m_historicalPose = new double[3];
+
+  private long m_lastFrameId = 0;
+  private double m_lastTimestamp = Double.NEGATIVE_INFINITY;
+  private Pose2d m_pose = new Pose2d();
+  private LimelightFrame m_measurementFrame = LimelightFrame.EMPTY;
+  private int m_rejected = 0;
+
+  /**
+   * @param limelight The Limelight tracking the hub, mounted as
+   *                  {@link Vision#CAMERA}
+   * @param history   The pose history of the drivetrain
+   * @param target    The field position of the hub center
+   */
+  public LimelightLocalizer(Limelight limelight, PoseLookup history, Translation2d target) {
+    this(limelight, Vision.CAMERA, history, target);
+  }
+
+  /**
+   * @param limelight The Limelight tracking the hub
+   * @param camera    Where the Limelight is mounted
+   * @param history   The pose history of the drivetrain
+   * @param target    The field position of the hub center
+   */
+  public LimelightLocalizer(Limelight limelight, CameraConfig camera, PoseLookup history, Translation2d target) {
+    m_limelight = limelight;
+    m_camera = camera;
+    m_history = history;
+    m_target = target;
+  }
+
+  /**
+   * Reads the latest Limelight frame.
+   *
+   * @return Whether there is a new measurement in {@link #getPose()} and
+   *         {@link #getTimestamp()}
+   */
+  public boolean poll() {
+    final LimelightFrame frame = m_limelight.getFrame();
+    if (frame.getId() == m_lastFrameId || !frame.hasTarget()) {
+      return false;
+    }
+    m_lastFrameId = frame.getId();
+
+    final double now = Timer.getFPGATimestamp();
+    final double timestamp = frame.getCaptureTimestamp();
+    if (now - timestamp > Vision.MAX_LATENCY_SEC || timestamp <= m_lastTimestamp) {
+      return reject();
+    }
+    if (!m_history.getPose(timestamp, m_historicalPose)) {
+      return reject();
+    }
+
+    final double pitch = Math.toRadians(m_camera.PITCH_DEGREES) + frame.getTargetY();
+    if (pitch <= 0) {
+      return reject();
+    }
+    final double distance = (Vision.TARGET_HEIGHT_METERS - m_camera.HEIGHT_METERS) / Math.tan(pitch)
+        + Vision.TARGET_RADIUS_METERS;
+
+    // tx is positive to the right of the crosshair, field angles are positive counter clockwise
+    final double heading = m_historicalPose[2];
+    final double bearing = heading + Math.toRadians(m_camera.YAW_DEGREES) - frame.getTargetX();
+    final double cos = Math.cos(heading);
+    final double sin = Math.sin(heading);
+    final double x = m_target.getX() - distance * Math.cos(bearing)
+        - (m_camera.OFFSET.getX() * cos - m_camera.OFFSET.getY() * sin);
+    final double y = m_target.getY() - distance * Math.sin(bearing)
+        - (m_camera.OFFSET.getX() * sin + m_camera.OFFSET.getY() * cos);
+
+    if (Math.hypot(x - m_historicalPose[0], y - m_historicalPose[1]) > Vision.MAX_CORRECTION_METERS) {
+      return reject();
+    }
+
+    m_pose = new Pose2d(x, y, new Rotation2d(heading));
+    m_lastTimestamp = timestamp;
+    m_measurementFrame = frame;
+    return true;
+  }
+
+  public Limelight getLimelight() {
+    return m_limelight;
+  }
+
+  /**
+   * @return The frame of the latest measurement
+   */
+  public LimelightFrame getMeasurementFrame() {
+    return m_measurementFrame;
+  }
+
+  /**
+   * @return The robot pose of the latest measurement
+   */
+  public Pose2d getPose() {
+    return m_pose;
+  }
+
+  /**
+   * @return The FPGA timestamp in seconds the latest measurement was captured at
+   */
+  public double getTimestamp() {
+    return m_lastTimestamp;
+  }
+
+  /**
+   * @return How many frames with a target were rejected
+   */
+  public int getRejectedCount() {
+    return m_rejected;
+  }
+
+  private boolean reject() {
+    m_rejected++;
+    return false;
+  }
+}
@@ -0,0 +1,179 @@
+package beartecs.systems;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.TimedRobot;
+
+/**
+ * Tracks how much of the loop period is left and sheds deferrable work when the
+ * loop runs late, so control keeps its timing.
+ *
+ * <p>
+ * {@link #startCycle()} runs at the start of every loop. The deadline of a
+ * cycle follows the {@link TimedRobot} schedule, so a late start eats into its
+ * budget, and a cycle that starts more than {@link #OVERRUN_TOLERANCE_MS} after
+ * the previous deadline counts as an overrun of the previous one.
+ * </p>
+ * <p>
+ * A deferrable {@link Task} asks {@link Task#shouldRun()} once per cycle. It is
+ * skipped while less than {@link #MIN_REMAINING_MS} is left, and runs only
+ * every {@link #DECIMATION} cycles for {@link #RECOVERY_CYCLES} cycles after an
+ * overrun. It is never skipped more than {@link #MAX_SKIPPED_CYCLES} times in a
+ * row. Critical work does not go through the budget at all.
+ * </p>
+ */
+public class LoopBudget {
+  public enum Priority {
+    CRITICAL, DEFERRABLE
+  }
+
+  public static final double MIN_REMAINING_MS = 4.0;
+  public static final double OVERRUN_TOLERANCE_MS = 1.0; // Notifier wakeup jitter
+  public static final int DECIMATION = 5;
+  public static final int MAX_SKIPPED_CYCLES = 25;
+  public static final int RECOVERY_CYCLES = 50;
+
+  private static LoopBudget instance;
+
+  private final long m_periodNanos;
+  private final long m_toleranceNanos = (long) (OVERRUN_TOLERANCE_MS * 1e6);
+  private final NetworkTableEntry m_overrunEntry;
+  private final NetworkTableEntry m_degradedEntry;
+  private final Task m_telemetry;
+  private long m_cycle = 0;
+  private long m_deadline;
+  private int m_cyclesSinceOverrun = RECOVERY_CYCLES;
+  private long m_overruns = 0;
+  private boolean m_degraded = false;
+
+  public static LoopBudget getInstance() {
+    if (instance == null) {
+      instance = new LoopBudget(TimedRobot.kDefaultPeriod);
+    }
+    return instance;
+  }
+
+  /**
+   * @param periodSeconds The loop period
+   */
+  public LoopBudget(double periodSeconds) {
+    m_periodNanos = (long) (periodSeconds * 1e9);
+    NetworkTable table = NetworkTableInstance.getDefault().getTable("LoopBudget");
+    m_overrunEntry = table.getEntry("overruns");
+    m_degradedEntry = table.getEntry("degraded");
+    m_overrunEntry.setDouble(0);
+    m_degradedEntry.setBoolean(false);
+    m_telemetry = register("Telemetry");
+  }
+
+  /**
+   * Starts the budget of a new loop. Call first thing every loop.
+   */
+  public void startCycle() {
+    final long now = System.nanoTime();
+    if (m_cycle > 0 && now - m_deadline > m_toleranceNanos) {
+      m_overruns++;
+      m_cyclesSinceOverrun = 0;
+      m_overrunEntry.setDouble(m_overruns);
+    } else if (m_cyclesSinceOverrun < RECOVERY_CYCLES) {
+      m_cyclesSinceOverrun++;
+    }
+    final boolean degraded = m_cyclesSinceOverrun < RECOVERY_CYCLES;
+    if (degraded != m_degraded) {
+      m_degraded = degraded;
+      m_degradedEntry.setBoolean(degraded);
+    }
+
+    // Resynchronize after a stall longer than a period, like the scheduler does
+    m_deadline = m_cycle == 0 || now - m_deadline > m_periodNanos ? now + m_periodNanos
+        : m_deadline + m_periodNanos;
+    m_cycle++;
+  }
+
+  /**
+   * @return The time left until the end of the current cycle, negative once it
+   *         is late
+   */
+  public double getRemainingMs() {
+    return (m_deadline - System.nanoTime()) / 1e6;
+  }
+
+  /**
+   * @return Whether the loop overran recently
+   */
+  public boolean isDegraded() {
+    return m_degraded;
+  }
+
+  public long getOverrunCount() {
+    return m_overruns;
+  }
+
+  /**
+   * @param name The name of the work, for diagnostics
+   * @return A handle deciding each cycle whether the work runs
+   */
+  public Task register(String name) {
+    return new Task(name);
+  }
+
+  /**
+   * @return The task that gates the {@code TelemetryPublisher}
+   */
+  public Task getTelemetryTask() {
+    return m_telemetry;
+  }
+
+  public class Task {
+    private final String m_name;
+    private long m_decidedCycle = -1;
+    private boolean m_decision = true;
+    private int m_skipped = 0;
+    private long m_skippedTotal = 0;
+
+    private Task(String name) {
+      m_name = name;
+    }
+
+    /**
+     * Decides once per cycle whether the work runs, later calls in the same
+     * cycle return the same answer.
+     *
+     * @return Whether to run the work this cycle
+     */
+    public boolean shouldRun() {
+      if (m_decidedCycle == m_cycle) {
+        return m_decision;
+      }
+      m_decidedCycle = m_cycle;
+      if (m_skipped >= MAX_SKIPPED_CYCLES) {
+        m_decision = true;
+      } else if (getRemainingMs() < MIN_REMAINING_MS) {
+        m_decision = false;
+      } else if (m_degraded) {
+        m_decision = m_skipped >= DECIMATION - 1;
+      } else {
+        m_decision = true;
+      }
+      if (m_decision) {
+        m_skipped = 0;
+      } else {
+        m_skipped++;
+        m_skippedTotal++;
+      }
+      return m_decision;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    /**
+     * @return The number of cycles the work was skipped since boot
+     */
+    public long getSkippedCount() {
+      return m_skippedTotal;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package beartecs.systems;
+
+import java.util.Arrays;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * The drivetrain sensor readings of one loop, filled in by
+ * {@link SensorSnapshot}.
+ *
+ * <p>
+ * A frame is only written while it is not the current frame, so a reference
+ * taken during a loop keeps the same values until the end of the next loop.
+ * The only exception is the gyro rotation, which is read again when the gyro
+ * is zeroed. The module states are shared between all readers and must not be modified.
+ * </p>
+ */
+public final class SensorFrame {
+  private final SwerveModuleState[] m_moduleStates;
+  private final double[] m_absoluteAngles;
+  private double m_timestamp;
+  private Rotation2d m_gyroRotation = new Rotation2d();
+  private double m_accelerationX;
+  private double m_accelerationY;
+
+  SensorFrame(int moduleCount) {
+    m_moduleStates = new SwerveModuleState[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      m_moduleStates[i] = new SwerveModuleState();
+    }
+    m_absoluteAngles = new double[moduleCount];
+    Arrays.fill(m_absoluteAngles, Double.NaN);
+  }
+
+  void setModuleState(int index, double velocityMetersPerSecond, double angleRadians) {
+    m_moduleStates[index].speedMetersPerSecond = velocityMetersPerSecond;
+    m_moduleStates[index].angle = new Rotation2d(angleRadians);
+  }
+
+  void setAbsoluteAngle(int index, double angleRadians) {
+    m_absoluteAngles[index] = angleRadians;
+  }
+
+  void set(double timestamp, Rotation2d gyroRotation, double accelerationX, double accelerationY) {
+    m_timestamp = timestamp;
+    m_gyroRotation = gyroRotation;
+    m_accelerationX = accelerationX;
+    m_accelerationY = accelerationY;
+  }
+
+  void setGyroRotation(Rotation2d gyroRotation) {
+    m_gyroRotation = gyroRotation;
+  }
+
+  /**
+   * @return The FPGA timestamp in seconds the frame was sampled at
+   */
+  public double getTimestamp() {
+    return m_timestamp;
+  }
+
+  /**
+   * @return The module states in the order the modules were given to
+   *         {@link SensorSnapshot}, read only
+   */
+  public SwerveModuleState[] getModuleStates() {
+    return m_moduleStates;
+  }
+
+  public SwerveModuleState getModuleState(int index) {
+    return m_moduleStates[index];
+  }
+
+  /**
+   * @return The steer absolute encoder angle in radians, read every
+   *         {@link SensorSnapshot#ABSOLUTE_ANGLE_PERIOD_LOOPS} loops, NaN if the
+   *         module has no absolute encoder
+   */
+  public double getAbsoluteAngle(int index) {
+    return m_absoluteAngles[index];
+  }
+
+  public Rotation2d getGyroRotation() {
+    return m_gyroRotation;
+  }
+
+  /**
+   * @return The acceleration along the x axis in g
+   */
+  public double getAccelerationX() {
+    return m_accelerationX;
+  }
+
+  /**
+   * @return The acceleration along the y axis in g
+   */
+  public double getAccelerationY() {
+    return m_accelerationY;
+  }
+}
@@ -0,0 +1,88 @@
+package beartecs.systems;
+
+import beartecs.swerve.AbsoluteEncoder;
+import beartecs.swerve.Gyroscope;
+import beartecs.swerve.SwerveModule;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.interfaces.Accelerometer;
+
+/**
+ * Reads every swerve module, the gyroscope and the accelerometer once per loop
+ * into a {@link SensorFrame}.
+ *
+ * <p>
+ * Each of those reads goes through JNI to the device, so everything that
+ * needs them in a loop should use {@link #getFrame()} instead of asking the
+ * devices again. Two frames are reused: {@link #sample()} fills the one that
+ * is not current and then makes it current.
+ * </p>
+ */
+public class SensorSnapshot {
+  // Reading an absolute encoder can retry on the bus, so only twice a second
+  public static final int ABSOLUTE_ANGLE_PERIOD_LOOPS = 25;
+
+  private final SwerveModule[] m_modules;
+  private final Gyroscope m_gyro;
+  private final Accelerometer m_accelerometer;
+  private SensorFrame m_frame;
+  private SensorFrame m_nextFrame;
+  private int m_absoluteAngleLoops = 0;
+
+  /**
+   * Samples the first frame.
+   *
+   * @param modules       The swerve modules, in the order of the module states
+   * @param gyro          The gyroscope
+   * @param accelerometer The accelerometer
+   */
+  public SensorSnapshot(SwerveModule[] modules, Gyroscope gyro, Accelerometer accelerometer) {
+    m_modules = modules.clone();
+    m_gyro = gyro;
+    m_accelerometer = accelerometer;
+    m_frame = new SensorFrame(modules.length);
+    m_nextFrame = new SensorFrame(modules.length);
+    sample();
+  }
+
+  /**
+   * Reads all the sensors into a new current frame. Call once at the top of the
+   * loop and nowhere else, the frame of the previous loop is reused.
+   */
+  public void sample() {
+    final SensorFrame frame = m_nextFrame;
+    final boolean readAbsolute = m_absoluteAngleLoops-- <= 0;
+    if (readAbsolute) {
+      m_absoluteAngleLoops = ABSOLUTE_ANGLE_PERIOD_LOOPS - 1;
+    }
+    for (int i = 0; i < m_modules.length; i++) {
+      frame.setModuleState(i, m_modules[i].getDriveVelocity(), m_modules[i].getSteerAngle());
+      frame.setAbsoluteAngle(i, readAbsolute ? readAbsoluteAngle(m_modules[i]) : m_frame.getAbsoluteAngle(i));
+    }
+    frame.set(Timer.getFPGATimestamp(), m_gyro.getGyroRotation(), m_accelerometer.getX(),
+        m_accelerometer.getY());
+
+    m_nextFrame = m_frame;
+    m_frame = frame;
+  }
+
+  /**
+   * Reads the gyroscope again into the current frame, e.g. after zeroing it.
+   * Unlike {@link #sample()} this does not reuse the previous frame, so frames
+   * held by the rest of the loop stay valid.
+   */
+  public void resampleGyro() {
+    m_frame.setGyroRotation(m_gyro.getGyroRotation());
+  }
+
+  /**
+   * @return The most recently sampled frame
+   */
+  public SensorFrame getFrame() {
+    return m_frame;
+  }
+
+  private static double readAbsoluteAngle(SwerveModule module) {
+    final AbsoluteEncoder encoder = module.getSteerEncoder();
+    return encoder == null ? Double.NaN : encoder.getAbsoluteAngle();
+  }
+}
@@ -0,0 +1,135 @@
+package beartecs.systems;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import beartecs.json.JsonReader;
+import beartecs.math.ShotTable;
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Holds the current {@link ShotTable}, loaded from the deploy directory and
+ * editable from NetworkTables while tuning.
+ *
+ * <p>
+ * A table file is either a CSV with one {@code distance,speed,angle,tof} row
+ * per line, where blank lines, {@code #} comments and a header are skipped, or
+ * a JSON object {@code {"rows": [[distance, speed, angle, tof], ...]}}. If it
+ * cannot be read the fallback table is used.
+ * </p>
+ * <p>
+ * The table is published as a flat array to {@code /Shooter/<name>}. When the
+ * dashboard writes a new array it is parsed on the NetworkTables listener
+ * thread and swapped in whole, so a solve never sees half of an edit. Invalid
+ * edits are reported and ignored.
+ * </p>
+ */
+public class ShotTableSource implements Supplier<ShotTable> {
+  private final NetworkTableEntry m_entry;
+  private volatile ShotTable m_table;
+
+  /**
+   * @param name     The NetworkTables key to publish under
+   * @param file     The CSV or JSON table, usually in the deploy directory
+   * @param fallback The table to use if the file cannot be read
+   */
+  public ShotTableSource(String name, File file, ShotTable fallback) {
+    ShotTable table;
+    try {
+      table = load(file);
+    } catch (IOException | RuntimeException e) {
+      DriverStation.reportWarning("Using the default shot table, could not load " + file + ": " + e.getMessage(),
+          false);
+      table = fallback;
+    }
+    m_table = table;
+
+    m_entry = NetworkTableInstance.getDefault().getTable("Shooter").getEntry(name);
+    m_entry.setDoubleArray(table.toArray());
+    // Only remote updates, our own publish does not come back
+    m_entry.addListener(notification -> reload(notification.getEntry().getDoubleArray(new double[0])),
+        EntryListenerFlags.kUpdate);
+  }
+
+  /**
+   * @return The current table, never blocks
+   */
+  @Override
+  public ShotTable get() {
+    return m_table;
+  }
+
+  private void reload(double[] values) {
+    try {
+      m_table = ShotTable.fromArray(values);
+    } catch (IllegalArgumentException e) {
+      DriverStation.reportWarning("Ignoring shot table edit: " + e.getMessage(), false);
+    }
+  }
+
+  /**
+   * @param file A CSV or JSON table
+   * @return The table
+   * @throws IOException If the file could not be read
+   */
+  public static ShotTable load(File file) throws IOException {
+    if (file.getName().endsWith(".json")) {
+      return loadJson(file);
+    }
+    return loadCsv(file);
+  }
+
+  private static ShotTable loadCsv(File file) throws IOException {
+    List<double[]> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] values = line.split(",");
+        if (rows.isEmpty() && !values[0].trim().matches("[-+0-9.].*")) {
+          continue; // Header
+        }
+        double[] row = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+          row[i] = Double.parseDouble(values[i].trim());
+        }
+        rows.add(row);
+      }
+    }
+    return new ShotTable(rows.toArray(new double[0][]));
+  }
+
+  private static ShotTable loadJson(File file) throws IOException {
+    final JSONObject json;
+    try (FileReader reader = new FileReader(file)) {
+      json = JsonReader.getJsonDataFromReader(reader);
+    }
+    if (json == null || !(json.get("rows") instanceof JSONArray)) {
+      throw new IOException("Expected {\"rows\": [[distance, speed, angle, tof], ...]}");
+    }
+    JSONArray jsonRows = (JSONArray) json.get("rows");
+    double[][] rows = new double[jsonRows.size()][];
+    for (int i = 0; i < rows.length; i++) {
+      JSONArray jsonRow = (JSONArray) jsonRows.get(i);
+      rows[i] = new double[jsonRow.size()];
+      for (int j = 0; j < rows[i].length; j++) {
+        rows[i][j] = ((Number) jsonRow.get(j)).doubleValue();
+      }
+    }
+    return new ShotTable(rows);
+  }
+}
@@ -12,6 +12,7 @@ import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj2.command.Command;
 
@@ -20,10 +21,14 @@ import com.pathplanner.lib.commands.PPSwerveControllerCommand;
 
 import beartecs.Constants;
 import beartecs.Constants.*;
+import beartecs.logger.SignalLogger;
+import beartecs.math.PoseHistoryBuffer;
 import beartecs.swerve.*;
 import beartecs.swerve.sim.*;
 
 public class SwerveDrivetrainSystem {
+  private static final int POSE_HISTORY_ENTRIES = 50; // 1s at 50hz, longer than Vision.MAX_LATENCY_SEC
+
   QuadSwerveSim swerveDt;
   ArrayList<SwerveModule> realModules = new ArrayList<SwerveModule>(QuadSwerveSim.NUM_MODULES);
   ArrayList<SwerveModuleSim> simModules = new ArrayList<SwerveModuleSim>(QuadSwerveSim.NUM_MODULES);
@@ -39,10 +44,14 @@ public class SwerveDrivetrainSystem {
   PoseTelemetry dtPoseView;
 
   SwerveDrivePoseEstimator m_poseEstimator;
-  Pose2d curPose = new Pose2d();
+  // Estimated pose and commanded module states, published for readers on other threads
+  DriveStateHolder driveState = new DriveStateHolder(QuadSwerveSim.NUM_MODULES, new Pose2d());
   Pose2d fieldPose = new Pose2d(); // Field-referenced orign
-  double curSpeed = 0;
-  SwerveModuleState[] states;
+  PoseHistoryBuffer poseHistory = new PoseHistoryBuffer(POSE_HISTORY_ENTRIES);
+  VisionManager vision = new VisionManager(poseHistory::getSample, Field.HUB_CENTER_TRANSLATION);
+  SignalLogger.PoseSignal visionPoseSignal = SignalLogger.getInstance().addPose("Vision/Pose");
+  SignalLogger.DoubleSignal visionTimestampSignal = SignalLogger.getInstance().addDouble("Vision/CaptureTimestamp");
+  volatile double curSpeed = 0;
   PIDController xyController = Auto.PID_XY.getPidController();
   ProfiledPIDController thetaController = Auto.PID_THETA.getProfiledPidController();
 
@@ -60,6 +69,7 @@ public class SwerveDrivetrainSystem {
     thetaController.enableContinuousInput(-Math.PI, Math.PI);
 
     field = PoseTelemetry.field;
+    final Pose2d curPose = driveState.get().getPose();
     field.setRobotPose(curPose);
     endPose = curPose;
     dtPoseView = new PoseTelemetry();
@@ -79,9 +89,10 @@ public class SwerveDrivetrainSystem {
     var localMeasurementStdDevs = VecBuilder.fill(Units.degreesToRadians(0.1));
 
     // Trustworthiness of the vision system
-    // Measured in expected standard deviation (meters of position and degrees of
-    // rotation)
-    var visionMeasurementStdDevs = VecBuilder.fill(0.01, 0.01, Units.degreesToRadians(0.1));
+    // Measured in expected standard deviation (meters of position and radians of
+    // rotation), scaled per measurement by the VisionManager
+    var visionMeasurementStdDevs = VecBuilder.fill(Vision.STD_DEV_METERS, Vision.STD_DEV_METERS,
+        Vision.STD_DEV_RADIANS);
 
     m_poseEstimator = new SwerveDrivePoseEstimator(getGyroRotation(), curPose,
         Constants.SWERVE_CONFIG.KINEMATICS, stateStdDevs, localMeasurementStdDevs, visionMeasurementStdDevs,
@@ -103,11 +114,21 @@ public class SwerveDrivetrainSystem {
   }
 
   /**
-   * Advance the simulation forward by one step
+   * Advance the simulation forward by one loop
    * @param isDisabled
    * @param batteryVoltage
    */
   public void update(boolean isDisabled, double batteryVoltage) {
+    update(isDisabled, batteryVoltage, Sim.SAMPLE_RATE_SEC);
+  }
+
+  /**
+   * Advance the simulation forward by one step
+   * @param isDisabled
+   * @param batteryVoltage
+   * @param dtSeconds The length of the step
+   */
+  public void update(boolean isDisabled, double batteryVoltage, double dtSeconds) {
 
     // Check if the user moved the robot with the Field2D
     // widget, and reset the model if so.
@@ -131,7 +152,7 @@ public class SwerveDrivetrainSystem {
     }
 
     //Update the main drivetrain plant model
-    swerveDt.update(Sim.SAMPLE_RATE_SEC);
+    swerveDt.update(dtSeconds);
     endPose = swerveDt.getPose();
 
     // Update each encoder
@@ -155,14 +176,62 @@ public class SwerveDrivetrainSystem {
 
     // Based on gyro and measured module speeds and positions, estimate where our
     // robot should have moved to.
-    Pose2d prevPose = curPose;
-    if (states != null) {
-      curPose = m_poseEstimator.update(getGyroRotation(), states[0], states[1], states[2], states[3]);
-
-      // Calculate a "speedometer" velocity in ft/sec
-      Transform2d chngPose = new Transform2d(prevPose, curPose);
-      curSpeed = Units.metersToFeet(chngPose.getTranslation().getNorm()) / Sim.SAMPLE_RATE_SEC;
+    final DriveState state = driveState.get();
+    final Pose2d prevPose = state.getPose();
+    final SwerveModuleState[] states = state.getModuleStates();
+    final Pose2d curPose = m_poseEstimator.update(getGyroRotation(), states[0], states[1], states[2], states[3]);
+    final double now = Timer.getFPGATimestamp();
+    driveState.publishPose(now, curPose);
+    poseHistory.addSample(now, curPose);
+
+    // Correct the estimate at the time each camera frame was captured
+    if (vision.update()) {
+      for (VisionManager.Measurement measurement : vision.getMeasurements()) {
+        addVisionMeasurement(measurement.getPose(), measurement.getTimestamp(), measurement.getStdDevMeters());
+      }
+      visionPoseSignal.set(vision.getPose());
+      visionTimestampSignal.set(vision.getTimestamp());
     }
+
+    // Calculate a "speedometer" velocity in ft/sec
+    Transform2d chngPose = new Transform2d(prevPose, curPose);
+    curSpeed = Units.metersToFeet(chngPose.getTranslation().getNorm()) / dtSeconds;
+  }
+
+  /**
+   * Fuses Limelight hub targets into the pose estimate from now on.
+   *
+   * @param limelight The Limelight tracking the hub, mounted as
+   *                  {@link Vision#CAMERA}
+   */
+  public void setVisionSource(Limelight limelight) {
+    vision.addCamera("limelight", limelight, Vision.CAMERA, Vision.PIPELINES);
+  }
+
+  /**
+   * @return The cameras fused into the pose estimate, add more with
+   *         {@link VisionManager#addCamera}
+   */
+  public VisionManager getVisionManager() {
+    return vision;
+  }
+
+  /**
+   * @param visionPose The robot pose measured by vision
+   * @param timestamp  The FPGA timestamp in seconds the image was captured at
+   */
+  public void addVisionMeasurement(Pose2d visionPose, double timestamp) {
+    addVisionMeasurement(visionPose, timestamp, Vision.STD_DEV_METERS);
+  }
+
+  /**
+   * @param visionPose   The robot pose measured by vision
+   * @param timestamp    The FPGA timestamp in seconds the image was captured at
+   * @param stdDevMeters The expected translation error of the measurement
+   */
+  public void addVisionMeasurement(Pose2d visionPose, double timestamp, double stdDevMeters) {
+    m_poseEstimator.addVisionMeasurement(visionPose, timestamp,
+        VecBuilder.fill(stdDevMeters, stdDevMeters, Vision.STD_DEV_RADIANS));
   }
 
   /**
@@ -171,11 +240,22 @@ public class SwerveDrivetrainSystem {
    * @param desiredStates The desired SwerveModule states.
    */
   public void setModuleStates(SwerveModuleState[] desiredStates) {
-    this.states = desiredStates;
+    driveState.publishModuleStates(desiredStates);
   }
 
+  /**
+   * @return Copies of the last commanded module states
+   */
   public SwerveModuleState[] getModuleStates() {
-    return states;
+    return driveState.get().getModuleStates();
+  }
+
+  /**
+   * @return A consistent snapshot of the estimated pose and module states, safe
+   *         to read from any thread
+   */
+  public DriveState getDriveState() {
+    return driveState.get();
   }
 
   public Pose2d getPose() {
@@ -190,7 +270,8 @@ public class SwerveDrivetrainSystem {
     resetWheelEncoders();
     // No need to reset gyro, pose estimator does that.
     m_poseEstimator.resetPosition(in, getGyroRotation());
-    curPose = in;
+    poseHistory.clear();
+    driveState.publishPose(Timer.getFPGATimestamp(), in);
   }
 
   public void zeroGyro() {
@@ -205,7 +286,7 @@ public class SwerveDrivetrainSystem {
     if (RobotBase.isSimulation()) {
       dtPoseView.setActualPose(getPose());
     }
-    dtPoseView.setEstimatedPose(curPose);
+    dtPoseView.setEstimatedPose(driveState.get().getPose());
   }
 
   public void resetWheelEncoders() {
@@ -0,0 +1,155 @@
+package beartecs.systems;
+
+import beartecs.logger.RobotLogger;
+import beartecs.swerve.Gyroscope;
+import beartecs.swerve.SwerveModule;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Swerve odometry that can be integrated on its own {@link Notifier} thread,
+ * faster than the main loop.
+ *
+ * <p>
+ * Until {@link #start(double)} is called the owner feeds it from the main loop
+ * with {@link #update(double, Rotation2d, SwerveModuleState[])}. Once started
+ * the thread reads the modules and the gyroscope itself and the main loop only
+ * reads {@link #getPose()}.
+ * </p>
+ * <p>
+ * Every update publishes the pose to a {@link DriveStateHolder}, so reading it
+ * never blocks. Updates and resets are serialized on a
+ * lock that is never held while reading the sensors, and an update whose
+ * sensors were read before a reset is dropped so a stale gyro angle cannot be
+ * integrated against the new pose.
+ * </p>
+ */
+public class ThreadedOdometry implements AutoCloseable {
+  private static final int THREAD_PRIORITY = 15; // Above the main robot thread, below the CAN and HAL threads
+
+  private final RobotLogger m_logger = RobotLogger.getInstance();
+  private final SwerveDriveOdometry m_odometry;
+  private final SwerveModule[] m_modules;
+  private final Gyroscope m_gyro;
+  private final SwerveModuleState[] m_states; // Only touched by the odometry thread
+  private final Object m_lock = new Object();
+  private final DriveStateHolder m_state;
+  private volatile int m_resetCount = 0;
+  private Notifier m_notifier;
+  private boolean m_priorityChecked = false;
+
+  /**
+   * @param kinematics  The drivetrain kinematics
+   * @param modules     The swerve modules, in the order of the kinematics
+   * @param gyro        The gyroscope
+   * @param initialPose The starting pose
+   * @param state       Receives every pose
+   */
+  public ThreadedOdometry(SwerveDriveKinematics kinematics, SwerveModule[] modules, Gyroscope gyro,
+      Pose2d initialPose, DriveStateHolder state) {
+    m_modules = modules.clone();
+    m_gyro = gyro;
+    m_states = new SwerveModuleState[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      m_states[i] = new SwerveModuleState();
+    }
+    m_odometry = new SwerveDriveOdometry(kinematics, gyro.getGyroRotation(), initialPose);
+    m_state = state;
+    m_state.publishPose(Timer.getFPGATimestamp(), initialPose);
+  }
+
+  /**
+   * Starts integrating on a separate thread.
+   *
+   * @param periodSeconds The period of the odometry thread
+   */
+  public void start(double periodSeconds) {
+    if (m_notifier != null) {
+      return;
+    }
+    m_notifier = new Notifier(this::run);
+    m_notifier.setName("Odometry");
+    m_notifier.startPeriodic(periodSeconds);
+  }
+
+  public boolean isRunning() {
+    return m_notifier != null;
+  }
+
+  /**
+   * Integrates states read by the caller. Ignored while the odometry thread is
+   * running.
+   *
+   * @param timestamp    The FPGA timestamp in seconds the states were read at
+   * @param gyroRotation The gyroscope rotation
+   * @param states       The module states
+   */
+  public void update(double timestamp, Rotation2d gyroRotation, SwerveModuleState[] states) {
+    if (m_notifier == null) {
+      integrate(m_resetCount, timestamp, gyroRotation, states);
+    }
+  }
+
+  /**
+   * @return The latest pose, without blocking
+   */
+  public Pose2d getPose() {
+    return m_state.get().getPose();
+  }
+
+  /**
+   * Resets the pose. Any update that read its sensors before the reset is
+   * dropped.
+   *
+   * @param pose         The new pose
+   * @param gyroRotation The current gyroscope rotation
+   */
+  public void resetPose(Pose2d pose, Rotation2d gyroRotation) {
+    synchronized (m_lock) {
+      m_resetCount++;
+      m_odometry.resetPosition(pose, gyroRotation);
+      m_state.publishPose(Timer.getFPGATimestamp(), pose);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (m_notifier != null) {
+      m_notifier.close();
+      m_notifier = null;
+    }
+  }
+
+  private void run() {
+    if (!m_priorityChecked) {
+      m_priorityChecked = true;
+      if (!RobotBase.isSimulation() && !Threads.setCurrentThreadPriority(true, THREAD_PRIORITY)) {
+        m_logger.logInfo("Setting the odometry thread RT priority failed");
+      }
+    }
+
+    final int resetCount = m_resetCount;
+    for (int i = 0; i < m_modules.length; i++) {
+      m_states[i].speedMetersPerSecond = m_modules[i].getDriveVelocity();
+      m_states[i].angle = new Rotation2d(m_modules[i].getSteerAngle());
+    }
+    final Rotation2d gyroRotation = m_gyro.getGyroRotation();
+    integrate(resetCount, Timer.getFPGATimestamp(), gyroRotation, m_states);
+  }
+
+  private void integrate(int resetCount, double timestamp, Rotation2d gyroRotation, SwerveModuleState[] states) {
+    synchronized (m_lock) {
+      if (resetCount != m_resetCount) {
+        return;
+      }
+      m_state.publishPose(timestamp, m_odometry.updateWithTime(timestamp, gyroRotation, states));
+    }
+  }
+}
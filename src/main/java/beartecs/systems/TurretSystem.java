@@ -4,15 +4,31 @@ import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import beartecs.Constants.Shooter;
 import beartecs.configs.GearRatioConfig;
 import beartecs.configs.LimitConfig;
 import beartecs.configs.ProfiledPidConfig;
 import beartecs.math.MathUtils;
 import beartecs.math.MotorUtils;
+import beartecs.math.PoseHistoryBuffer;
+import beartecs.math.ShotSolver;
 import beartecs.swerve.Gyroscope;
 import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 
+/**
+ * A turret on a Talon FX. Turret angles are in degrees from the robot front,
+ * counter clockwise positive like the gyro, so adding the robot heading gives
+ * the field angle.
+ */
 public class TurretSystem {
+  public static final double WRAP_CHECK_PERIOD_SEC = 0.4;
+  private static final int ANGLE_HISTORY_SIZE = 32; // Samples, one per loop, well beyond the vision latency
+
   private final WPI_TalonFX m_turretMotor;
   private final Gyroscope m_gyroscope;
   private final Limelight m_vision;
@@ -22,9 +38,21 @@ public class TurretSystem {
   private final GearRatioConfig m_gearRatio;
   private final double m_startAngle;
   private final double m_tickTolerance;
-  private double m_errorOffset;
-  private int m_errorCounter;
+  private volatile double m_errorOffset; // Written by the wrap check thread
+  private Notifier m_wrapCheck;
   private final ProfiledPIDController m_rotationController;
+  private final double[] m_capturePose = new double[3];
+  private final double[] m_captureAngle = new double[3];
+  // The turret angle in the heading of a pose, so lookups interpolate it the short way around
+  private final PoseHistoryBuffer m_angleHistory = new PoseHistoryBuffer(ANGLE_HISTORY_SIZE);
+  private long m_lastFrameId = 0;
+  private boolean m_hasFieldTarget = false;
+  private double m_fieldTargetX;
+  private double m_fieldTargetY;
+  private ShotSolver m_shotSolver;
+  private LimelightLocalizer.PoseLookup m_poseHistory;
+  private Supplier<DriveState> m_driveState;
+  private DoubleSupplier m_hoodAngle;
 
   public TurretSystem(
       WPI_TalonFX motor,
@@ -85,9 +113,10 @@ public class TurretSystem {
   * @return a double array containing a distance and angle.
   */
   public double[] getTurretCalculations(double extraDistance, double hoodAngle) {
+    final LimelightFrame frame = m_vision.getFrame(); // Both angles from the same image
     double initialD = m_targetHeight
-        / Math.tan(Math.toRadians(m_vision.getTargetPosition().y + (hoodAngle)));
-    double tx = Math.toRadians(m_vision.getTargetPosition().x);
+        / Math.tan(Math.toRadians(frame.getTargetY() + (hoodAngle)));
+    double tx = Math.toRadians(frame.getTargetX());
     double xInitialD = Math.sin(tx) * initialD;
     double yInitialD = Math.cos(tx) * initialD + extraDistance;
     double dist = Math.sqrt(xInitialD * xInitialD + yInitialD * yInitialD);
@@ -95,6 +124,82 @@ public class TurretSystem {
     return new double[] { dist, MathUtils.angleWrap(Math.toDegrees(tx) + getAngle(true)) };
   }
 
+  /*
+  * Solves a shot while the robot moves. The target is located on the field from
+  * the latest Limelight frame and the robot pose and turret angle when that
+  * frame was captured, so the robot and turret motion during the vision latency
+  * do not move the aim point. The last located target is reused while no new
+  * frame arrives. Does not allocate.
+  *
+  * @param solver the solver, read the turret angle and flywheel setpoint from it.
+  * @param history the drivetrain pose history, e.g. getLagCompPose.
+  * @param x the current robot x in meters.
+  * @param y the current robot y in meters.
+  * @param heading the current robot heading in radians.
+  * @param vx the robot field velocity along x in m/s.
+  * @param vy the robot field velocity along y in m/s.
+  * @param hoodAngle angle of the hood (camera) in degrees.
+  * @param releaseDelay time from now until the ball leaves in seconds.
+  * @return false if no target has been seen yet.
+  */
+  public boolean solveMovingShot(ShotSolver solver, LimelightLocalizer.PoseLookup history, double x, double y,
+      double heading, double vx, double vy, double hoodAngle, double releaseDelay) {
+    final LimelightFrame frame = m_vision.getFrame();
+    if (frame.getId() != m_lastFrameId && frame.hasTarget()
+        && history.getPose(frame.getCaptureTimestamp(), m_capturePose)) {
+      m_lastFrameId = frame.getId();
+      final double distance = m_targetHeight / Math.tan(frame.getTargetY() + Math.toRadians(hoodAngle));
+      final double turretAngle = m_angleHistory.getSample(frame.getCaptureTimestamp(), m_captureAngle)
+          ? m_captureAngle[2]
+          : Math.toRadians(getAngle(false));
+      // tx is positive to the right of the crosshair, the turret and field angles counter clockwise, the same as
+      // LimelightLocalizer
+      final double bearing = m_capturePose[2] + turretAngle - frame.getTargetX();
+      m_fieldTargetX = m_capturePose[0] + distance * Math.cos(bearing);
+      m_fieldTargetY = m_capturePose[1] + distance * Math.sin(bearing);
+      m_hasFieldTarget = true;
+    }
+    if (!m_hasFieldTarget) {
+      return false;
+    }
+    solver.solve(x, y, heading, vx, vy, m_fieldTargetX, m_fieldTargetY, releaseDelay);
+    return true;
+  }
+
+  /*
+  * Aims the turret at the moving shot solution in every onPeriodic, see
+  * solveMovingShot. The flywheel and hood setpoints are read from the solver.
+  *
+  * @param solver the solver.
+  * @param history the drivetrain pose history, e.g. getLagCompPose.
+  * @param driveState the latest drive state, e.g. getDriveState.
+  * @param hoodAngle the current angle of the hood (camera) in degrees.
+  */
+  public void setMovingShot(ShotSolver solver, LimelightLocalizer.PoseLookup history,
+      Supplier<DriveState> driveState, DoubleSupplier hoodAngle) {
+    m_shotSolver = solver;
+    m_poseHistory = history;
+    m_driveState = driveState;
+    m_hoodAngle = hoodAngle;
+  }
+
+  public ShotSolver getShotSolver() {
+    return m_shotSolver;
+  }
+
+  private void aimMovingShot() {
+    final DriveState state = m_driveState.get();
+    final double heading = state.getPose().getRotation().getRadians();
+    // The pose is from the last odometry update, project it to when the ball leaves
+    final double releaseDelay = Timer.getFPGATimestamp() - state.getTimestamp() + Shooter.RELEASE_DELAY_SEC;
+    if (solveMovingShot(m_shotSolver, m_poseHistory, state.getPose().getX(), state.getPose().getY(), heading,
+        state.getFieldVxMetersPerSecond(), state.getFieldVyMetersPerSecond(), m_hoodAngle.getAsDouble(),
+        releaseDelay)) {
+      // The solver angle is counter clockwise from the robot front, the same as the turret
+      setAngle(m_shotSolver.getTurretAngle(), false);
+    }
+  }
+
   /*
   * Set the position of the turret. Uses position PID loop configuration.
   *
@@ -146,6 +251,7 @@ public class TurretSystem {
   * Checks for turret overshoot / undershoot encoder issue.
   * Encoder will jump +/- res ticks (full rotation) during runtime.
   * Fixes by offsetting returned values and modifying soft limits.
+  * Runs on the wrap check thread, the soft limits are written in the background.
   */
   private void checkWrapError() {
     final double lastWrapOffset = m_errorOffset;
@@ -156,19 +262,28 @@ public class TurretSystem {
         : isUnderRotated ? m_gearRatio.TICK_RESOLUTION : 0;
 
     if (lastWrapOffset != m_errorOffset) {
-      MotorUtils.setSoftLimits(
+      MotorUtils.setSoftLimitsAsync(
           m_gearRatio.fromDegrees(m_maxAngle) - m_errorOffset,
           m_gearRatio.fromDegrees(m_minAngle) - m_errorOffset,
           m_turretMotor);
     }
   }
 
+  /*
+  * Records the turret angle for solveMovingShot and aims at the moving shot
+  * once setMovingShot was called. Starts the wrap check on its own thread on
+  * the first call, it then runs every WRAP_CHECK_PERIOD_SEC without the main
+  * loop. Call once per loop.
+  */
   public void onPeriodic() {
-    // Runs every 0.4s after init (0.4s/0.02s=20x)
-    m_errorCounter++;
-    if (m_errorCounter >= 20) {
-      checkWrapError();
-      m_errorCounter = 0;
+    if (m_wrapCheck == null) {
+      m_wrapCheck = new Notifier(this::checkWrapError);
+      m_wrapCheck.setName("TurretWrapCheck");
+      m_wrapCheck.startPeriodic(WRAP_CHECK_PERIOD_SEC);
+    }
+    m_angleHistory.addSample(Timer.getFPGATimestamp(), 0, 0, Math.toRadians(getAngle(false)));
+    if (m_shotSolver != null) {
+      aimMovingShot();
     }
   }
 }
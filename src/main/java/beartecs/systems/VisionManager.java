@@ -0,0 +1,280 @@
+package beartecs.systems;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import beartecs.Constants.Vision;
+import beartecs.configs.CameraConfig;
+import beartecs.systems.BaseSubsystem.RobotMode;
+import beartecs.systems.Limelight.LedMode;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Runs several Limelights together.
+ *
+ * <p>
+ * Each camera has a pipeline per {@link RobotMode}. While disabled or
+ * {@link #setIdle(boolean) idle} the LEDs of every camera are turned off,
+ * otherwise the pipeline controls them. Pipelines and LED modes are only
+ * written when they change.
+ * </p>
+ * <p>
+ * {@link #update()} polls every camera. Every camera that produced a
+ * measurement this cycle is handed out through {@link #getMeasurements()} in
+ * capture order, each with its own capture timestamp, so the pose estimator
+ * fuses all of them at the time they were seen. A measurement is trusted less
+ * the smaller the target and the older the image, see
+ * {@link Measurement#getStdDevMeters()}. {@link #getPose()} is the measurement
+ * seeing the largest target, ties going to the most recent capture.
+ * {@link #getLatestTarget()} is the most recently captured frame with a target
+ * from any camera, for aiming.
+ * </p>
+ */
+public class VisionManager {
+  /** A pose measured by one camera. */
+  public static final class Measurement {
+    private final String m_cameraName;
+    private final Pose2d m_pose;
+    private final double m_timestamp;
+    private final double m_stdDevMeters;
+    private final LimelightFrame m_frame;
+
+    Measurement(String cameraName, Pose2d pose, double timestamp, double stdDevMeters, LimelightFrame frame) {
+      m_cameraName = cameraName;
+      m_pose = pose;
+      m_timestamp = timestamp;
+      m_stdDevMeters = stdDevMeters;
+      m_frame = frame;
+    }
+
+    public String getCameraName() {
+      return m_cameraName;
+    }
+
+    public Pose2d getPose() {
+      return m_pose;
+    }
+
+    /**
+     * @return The FPGA timestamp in seconds the image was captured at
+     */
+    public double getTimestamp() {
+      return m_timestamp;
+    }
+
+    /**
+     * {@link Vision#STD_DEV_METERS} at {@link Vision#REFERENCE_TARGET_AREA},
+     * growing with the inverse square root of the target area and doubling over
+     * {@link Vision#MAX_LATENCY_SEC} of age.
+     *
+     * @return The expected translation error in meters
+     */
+    public double getStdDevMeters() {
+      return m_stdDevMeters;
+    }
+
+    LimelightFrame getFrame() {
+      return m_frame;
+    }
+  }
+
+  private static class Camera {
+    final String name;
+    final LimelightLocalizer localizer;
+    final int[] pipelines;
+    int pipeline = -1;
+    LedMode ledMode;
+
+    Camera(String name, LimelightLocalizer localizer, int[] pipelines) {
+      this.name = name;
+      this.localizer = localizer;
+      this.pipelines = pipelines.clone();
+    }
+  }
+
+  private static final double MIN_TARGET_AREA = 1e-3; // Percent of the image, keeps the weight finite
+
+  private final List<Camera> m_cameras = new ArrayList<>();
+  private final LimelightLocalizer.PoseLookup m_history;
+  private final Translation2d m_target;
+  private RobotMode m_mode = RobotMode.DISABLED;
+  private boolean m_idle = false;
+
+  private final List<Measurement> m_measurements = new ArrayList<>();
+  private final List<Measurement> m_measurementsView = Collections.unmodifiableList(m_measurements);
+  private Measurement m_best;
+  private LimelightFrame m_latestTarget = LimelightFrame.EMPTY;
+
+  /**
+   * @param history The pose history of the drivetrain
+   * @param target  The field position of the hub center
+   */
+  public VisionManager(LimelightLocalizer.PoseLookup history, Translation2d target) {
+    m_history = history;
+    m_target = target;
+  }
+
+  /**
+   * Adds the Limelight published as {@code limelight-<name>}.
+   *
+   * @param name      The name of the Limelight
+   * @param camera    Where it is mounted
+   * @param pipelines The pipeline to use while disabled, in autonomous and in
+   *                  teleop
+   */
+  public void addCamera(String name, CameraConfig camera, int... pipelines) {
+    addCamera(name, new Limelight(name), camera, pipelines);
+  }
+
+  /**
+   * @param name      A name for the camera
+   * @param limelight The Limelight
+   * @param camera    Where it is mounted
+   * @param pipelines The pipeline to use while disabled, in autonomous and in
+   *                  teleop
+   */
+  public void addCamera(String name, Limelight limelight, CameraConfig camera, int... pipelines) {
+    if (pipelines.length != RobotMode.values().length) {
+      throw new IllegalArgumentException("Camera " + name + " needs a pipeline for each of "
+          + RobotMode.values().length + " robot modes");
+    }
+    Camera added = new Camera(name, new LimelightLocalizer(limelight, camera, m_history, m_target), pipelines);
+    m_cameras.add(added);
+    configure(added);
+  }
+
+  public int getCameraCount() {
+    return m_cameras.size();
+  }
+
+  /**
+   * Switches the pipelines of every camera to the ones of a mode.
+   *
+   * @param mode The robot mode
+   */
+  public void setMode(RobotMode mode) {
+    m_mode = mode;
+    m_cameras.forEach(this::configure);
+  }
+
+  /**
+   * @param idle Whether nothing needs vision right now, turns the LEDs off
+   */
+  public void setIdle(boolean idle) {
+    m_idle = idle;
+    m_cameras.forEach(this::configure);
+  }
+
+  /**
+   * Follows the driver station mode and polls every camera. Call once per
+   * loop.
+   *
+   * @return Whether there are new measurements in {@link #getMeasurements()}
+   */
+  public boolean update() {
+    final RobotMode mode = DriverStation.isAutonomousEnabled() ? RobotMode.AUTO
+        : DriverStation.isTeleopEnabled() ? RobotMode.TELEOP : RobotMode.DISABLED;
+    if (mode != m_mode) {
+      setMode(mode);
+    }
+
+    final double now = Timer.getFPGATimestamp();
+    m_measurements.clear();
+    for (Camera camera : m_cameras) {
+      final LimelightLocalizer localizer = camera.localizer;
+      final LimelightFrame frame = localizer.getLimelight().getFrame();
+      if (frame.hasTarget() && frame.getCaptureTimestamp() > m_latestTarget.getCaptureTimestamp()) {
+        m_latestTarget = frame;
+      }
+      if (!localizer.poll()) {
+        continue;
+      }
+      final LimelightFrame measured = localizer.getMeasurementFrame();
+      final double timestamp = localizer.getTimestamp();
+      m_measurements.add(new Measurement(camera.name, localizer.getPose(), timestamp,
+          getStdDevMeters(measured.getTargetArea(), now - timestamp), measured));
+    }
+    if (m_measurements.isEmpty()) {
+      return false;
+    }
+    m_measurements.sort(Comparator.comparingDouble(Measurement::getTimestamp));
+    Measurement best = m_measurements.get(0);
+    for (Measurement measurement : m_measurements) {
+      if (isBetter(measurement.getFrame(), best.getFrame())) {
+        best = measurement;
+      }
+    }
+    m_best = best;
+    return true;
+  }
+
+  /**
+   * @return The measurements of the latest update in capture order, empty if it
+   *         had none
+   */
+  public List<Measurement> getMeasurements() {
+    return m_measurementsView;
+  }
+
+  /**
+   * @return The robot pose measured by the camera seeing the largest target in
+   *         the latest update with a measurement
+   */
+  public Pose2d getPose() {
+    return m_best == null ? new Pose2d() : m_best.getPose();
+  }
+
+  /**
+   * @return The FPGA timestamp in seconds the image of {@link #getPose()} was
+   *         captured at
+   */
+  public double getTimestamp() {
+    return m_best == null ? Double.NEGATIVE_INFINITY : m_best.getTimestamp();
+  }
+
+  /**
+   * @return The name of the camera {@link #getPose()} came from, null before the
+   *         first measurement
+   */
+  public String getBestCameraName() {
+    return m_best == null ? null : m_best.getCameraName();
+  }
+
+  /**
+   * @return The most recently captured frame with a target from any camera
+   */
+  public LimelightFrame getLatestTarget() {
+    return m_latestTarget;
+  }
+
+  private static double getStdDevMeters(double area, double age) {
+    final double areaScale = Math.sqrt(Vision.REFERENCE_TARGET_AREA / Math.max(area, MIN_TARGET_AREA));
+    return Vision.STD_DEV_METERS * areaScale * (1 + Math.max(age, 0) / Vision.MAX_LATENCY_SEC);
+  }
+
+  private static boolean isBetter(LimelightFrame frame, LimelightFrame other) {
+    if (frame.getTargetArea() != other.getTargetArea()) {
+      return frame.getTargetArea() > other.getTargetArea();
+    }
+    return frame.getCaptureTimestamp() > other.getCaptureTimestamp();
+  }
+
+  private void configure(Camera camera) {
+    final Limelight limelight = camera.localizer.getLimelight();
+    final int pipeline = camera.pipelines[m_mode.ordinal()];
+    if (pipeline != camera.pipeline) {
+      limelight.setPipeline(pipeline);
+      camera.pipeline = pipeline;
+    }
+    final LedMode ledMode = m_idle || m_mode == RobotMode.DISABLED ? LedMode.OFF : LedMode.DEFAULT;
+    if (ledMode != camera.ledMode) {
+      limelight.setLedMode(ledMode);
+      camera.ledMode = ledMode;
+    }
+  }
+}
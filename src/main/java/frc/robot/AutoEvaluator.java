@@ -0,0 +1,68 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import beartecs.Constants.Motor;
+import beartecs.swerve.sim.MonteCarloAutoEvaluator;
+import frc.robot.subsystems.AutonomousSubsystem;
+
+/**
+ * Runs the Monte Carlo evaluation of the path based autonomous routines on a
+ * laptop. Paths are loaded from the deploy directory the same way
+ * {@code AutoFollowPathCmd} loads them.
+ *
+ * <pre>
+ * AutoEvaluator [runs] [seed] [routine...]
+ * </pre>
+ */
+public final class AutoEvaluator {
+  private AutoEvaluator() {
+  }
+
+  public static void main(String... args) {
+    final int runs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    final long seed = args.length > 1 ? Long.parseLong(args[1]) : 4610;
+    final Collection<String> selected = args.length > 2
+        ? Arrays.asList(args).subList(2, args.length)
+        : AutonomousSubsystem.ROUTINE_PATHS.keySet();
+
+    Map<String, List<PathPlannerTrajectory>> routines = new LinkedHashMap<>();
+    for (String routine : selected) {
+      List<String> pathNames = AutonomousSubsystem.ROUTINE_PATHS.get(routine);
+      if (pathNames == null) {
+        System.err.println("Unknown routine " + routine + ", expected one of "
+            + AutonomousSubsystem.ROUTINE_PATHS.keySet());
+        System.exit(1);
+      }
+      List<PathPlannerTrajectory> paths = new ArrayList<>(pathNames.size());
+      for (String pathName : pathNames) {
+        PathPlannerTrajectory path = PathPlanner.loadPath(pathName, Motor.MAX_VELOCITY_MPS, Motor.MAX_VELOCITY_MPS);
+        if (path == null) {
+          System.err.println("Could not load path " + pathName);
+          System.exit(1);
+        }
+        paths.add(path);
+      }
+      routines.put(routine, paths);
+    }
+
+    MonteCarloAutoEvaluator evaluator = new MonteCarloAutoEvaluator();
+    final long start = System.nanoTime();
+    var results = evaluator.evaluate(routines, runs, seed);
+    final double seconds = (System.nanoTime() - start) / 1e9;
+    evaluator.shutdown();
+
+    for (var result : results.values()) {
+      System.out.println(result);
+    }
+    System.out.printf("%d runs of %d routines in %.1fs%n", runs, routines.size(), seconds);
+  }
+}
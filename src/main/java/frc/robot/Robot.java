@@ -5,8 +5,17 @@
 package frc.robot;
 
 import beartecs.Constants;
+import beartecs.CAN.CANBandwidthManager;
+import beartecs.CAN.CANBandwidthManager.Mode;
+import beartecs.CAN.DeviceConfigExecutor;
 import beartecs.LED.TimerPattern;
+import beartecs.logger.LoopProfiler;
 import beartecs.logger.RobotLogger;
+import beartecs.logger.SignalLogger;
+import beartecs.logger.TelemetryPublisher;
+import beartecs.math.LatencyHistogram;
+import beartecs.systems.CommandProfiler;
+import beartecs.systems.LoopBudget;
 import edu.wpi.first.cameraserver.CameraServer;
 import edu.wpi.first.hal.can.CANStatus;
 import edu.wpi.first.math.geometry.Pose2d;
@@ -34,6 +43,7 @@ public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
   private RobotContainer m_robotContainer = new RobotContainer();
   private final RobotLogger m_logger = RobotContainer.getLogger();
+  private final LatencyHistogram m_schedulerTime = LoopProfiler.getInstance().register("CommandScheduler");
   private boolean m_hadLowBattery = false;
 
   /**
@@ -46,9 +56,35 @@ public class Robot extends TimedRobot {
     m_logger.logInfo("robotInit()");
     m_robotContainer.onRobotInit();
     CameraServer.startAutomaticCapture();
+
+    // The subsystems only queued their device configs, make sure they are applied before enabling
+    final DeviceConfigExecutor.Result config = DeviceConfigExecutor.getInstance().awaitAll();
+    if (config.FAILED > 0) {
+      m_logger.logWarning(config.toString());
+    } else {
+      m_logger.logInfo(config.toString());
+    }
+
+    final SignalLogger signals = SignalLogger.getInstance();
+    signals.addDouble("Robot/BatteryVoltage", RobotController::getBatteryVoltage, SignalLogger.LOOP_PERIOD_SEC);
+    signals.addDouble("Robot/CANUtilization",
+        () -> CANBandwidthManager.getInstance().getUtilization(CANBandwidthManager.RIO_BUS),
+        CANBandwidthManager.SAMPLE_PERIOD_SEC);
+    m_logger.logInfo(String.format("Signal log writes at most %.1f kB/s", signals.getMaxBytesPerSecond() / 1e3));
+    CommandProfiler.getInstance().install();
     onModeInit();
   }
 
+  /**
+   * Starts the loop budget before anything else runs in the loop, so
+   * deferrable work knows how much time is left.
+   */
+  @Override
+  protected void loopFunc() {
+    LoopBudget.getInstance().startCycle();
+    super.loopFunc();
+  }
+
   /**
    * This function is called every robot packet, no matter the mode. Use this for
    * items like
@@ -62,7 +98,15 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    final long schedulerStart = System.nanoTime();
     CommandScheduler.getInstance().run();
+    m_schedulerTime.record(System.nanoTime() - schedulerStart);
+    CANBandwidthManager.getInstance().periodic();
+    LoopProfiler.getInstance().periodic();
+    if (LoopBudget.getInstance().getTelemetryTask().shouldRun()) {
+      TelemetryPublisher.getInstance().periodic();
+    }
+    SignalLogger.getInstance().periodic();
 
     final CANStatus canBus = RobotController.getCANStatus();
     if (canBus.percentBusUtilization > 80.0) {
@@ -84,6 +128,7 @@ public class Robot extends TimedRobot {
   public void disabledInit() {
     m_logger.logInfo("disabledInit()");
     RobotContainer.getDrivetrain().zeroGyro();
+    CANBandwidthManager.getInstance().setMode(Mode.DISABLED);
     onModeInit();
     m_logger.flush();
   }
@@ -119,6 +164,7 @@ public class Robot extends TimedRobot {
     } else {
       LEDSubsystem.m_timerPattern = new TimerPattern(Color.kRed, autoTime);
     }
+    CANBandwidthManager.getInstance().setMode(Mode.AUTONOMOUS);
     onModeInit();
   }
 
@@ -141,6 +187,7 @@ public class Robot extends TimedRobot {
       m_autonomousCommand.cancel();
     }
     RobotContainer.setDefaultTeleopCommand();
+    CANBandwidthManager.getInstance().setMode(Mode.TELEOP);
     onModeInit();
   }
 
@@ -154,6 +201,7 @@ public class Robot extends TimedRobot {
     m_logger.logInfo("testInit()");
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
+    CANBandwidthManager.getInstance().setMode(Mode.TELEOP);
   }
 
   /** This function is called periodically during test mode. */
@@ -7,13 +7,13 @@ package frc.robot;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.IOException;
 import java.util.Scanner;
-import java.util.logging.Level;
 
-import beartecs.Constants;
+import beartecs.Constants.Shooter;
 import beartecs.logger.RobotLogger;
+import beartecs.math.ShotSolver;
 import beartecs.swerve.sim.PoseTelemetry;
+import beartecs.systems.ShotTableSource;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.RobotController;
@@ -30,6 +30,11 @@ import frc.robot.subsystems.UltrasonicSubsystem;
 public class RobotContainer {
   public final static File deployDirectory = Filesystem.getDeployDirectory();
   public final static PoseTelemetry telemetry = new PoseTelemetry();
+  // Tunable from /Shooter/ShotTable, the turret reads it through the solver
+  public final static ShotTableSource shotTable = new ShotTableSource("ShotTable",
+      new File(deployDirectory, Shooter.SHOT_TABLE_FILE), Shooter.SHOT_TABLE);
+  public final static ShotSolver shotSolver = new ShotSolver(shotTable, Shooter.SOLVER_ITERATIONS,
+      Shooter.SOLVER_TOLERANCE_METERS);
   public String branch = "null";
   private final static DrivetrainSubsystem m_drivetrainSubsystem = new DrivetrainSubsystem();
   private final static LEDSubsystem m_ledSubsystem = new LEDSubsystem();
@@ -37,7 +42,6 @@ public class RobotContainer {
   private final static UltrasonicSubsystem m_ultrasonicSubsystem = new UltrasonicSubsystem(m_ledSubsystem);
   private final static AutonomousSubsystem m_autonomousSubsystem = new AutonomousSubsystem(m_drivetrainSubsystem,
       m_intakeSubsystem);
-  private static RobotLogger m_logger;
 
   public RobotContainer() {
     try {
@@ -117,24 +121,7 @@ public class RobotContainer {
     return true;
   }
 
-  private static void initLogger(RobotLogger log) {
-    try {
-      log.init(RobotContainer.class);
-      log.setLevel(Level.INFO);
-
-      log.cleanLogs(Constants.LOG_EXPIRATION_IN_HRS);
-      log.logInfo("Logger initialized");
-    } catch (IOException error) {
-      log.logError("Failed to init logger!");
-      throw new RuntimeException(error);
-    }
-  }
-
   public static RobotLogger getLogger() {
-    if (m_logger == null) {
-      m_logger = new RobotLogger();
-      initLogger(m_logger);
-    }
-    return m_logger;
+    return RobotLogger.getInstance();
   }
 }
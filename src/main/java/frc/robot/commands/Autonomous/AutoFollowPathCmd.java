@@ -1,50 +1,76 @@
 package frc.robot.commands.Autonomous;
 
-import com.pathplanner.lib.PathPlannerTrajectory;
-
-import com.pathplanner.lib.PathPlanner;
-import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+import java.util.concurrent.CompletableFuture;
 
 import beartecs.Constants.*;
-import edu.wpi.first.math.controller.PIDController;
+import beartecs.auto.CompiledTrajectory;
+import edu.wpi.first.math.controller.HolonomicDriveController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
-import edu.wpi.first.wpilibj2.command.InstantCommand;
-import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.subsystems.AutonomousSubsystem;
 import frc.robot.subsystems.DrivetrainSubsystem;
 
-public class AutoFollowPathCmd extends SequentialCommandGroup {
-  private final PathPlannerTrajectory m_trajectory;
-  private DrivetrainSubsystem m_drivetrainSubsystem;
+// Follows a path from the trajectory cache the same way PPSwerveControllerCommand does
+public class AutoFollowPathCmd extends CommandBase {
+  private static final int DISPLAY_STATES = 100;
+
+  private final CompletableFuture<CompiledTrajectory> m_trajectory;
+  private final AutonomousSubsystem m_autonomousSubsystem;
+  private final DrivetrainSubsystem m_drivetrainSubsystem;
+  private final Timer m_timer = new Timer();
+  private final Trajectory.State m_desiredState = new Trajectory.State();
+  private HolonomicDriveController m_controller;
+  private CompiledTrajectory m_currentTrajectory;
 
   public AutoFollowPathCmd(String trajectoryPath, AutonomousSubsystem auto, DrivetrainSubsystem drive) {
-    m_trajectory = PathPlanner.loadPath(trajectoryPath, Motor.MAX_VELOCITY_MPS, Motor.MAX_VELOCITY_MPS);
-    if (m_trajectory == null)
-      return;
-    auto.showCurrentTrajectory(m_trajectory);
+    m_trajectory = auto.getTrajectoryCache().load(trajectoryPath, Motor.MAX_VELOCITY_MPS, Motor.MAX_VELOCITY_MPS,
+        false);
+    m_autonomousSubsystem = auto;
     m_drivetrainSubsystem = drive;
-    addCommands(setup(), createTrajectoryFollowerCommand());
+    addRequirements(drive);
   }
 
-  private PPSwerveControllerCommand createTrajectoryFollowerCommand() {
-    PIDController xyController = Auto.PID_XY.getPidController();
+  @Override
+  public void initialize() {
+    // Only blocks if the path has not finished loading yet
+    m_currentTrajectory = m_trajectory.join();
+    if (m_currentTrajectory == null)
+      return;
+    m_autonomousSubsystem.showCurrentTrajectory(m_currentTrajectory.toTrajectory(DISPLAY_STATES));
+    m_drivetrainSubsystem.resetPose(m_currentTrajectory.getInitialPose());
+
     ProfiledPIDController thetaController = Auto.PID_THETA.getProfiledPidController();
     thetaController.enableContinuousInput(-Math.PI, Math.PI);
+    m_controller = new HolonomicDriveController(
+        Auto.PID_XY.getPidController(),
+        Auto.PID_XY.getPidController(),
+        thetaController);
+
+    m_timer.reset();
+    m_timer.start();
+  }
+
+  @Override
+  public void execute() {
+    if (m_currentTrajectory == null)
+      return;
+    final double holonomicRotation = m_currentTrajectory.sample(m_timer.get(), m_desiredState);
+    ChassisSpeeds targetChassisSpeeds = m_controller.calculate(m_drivetrainSubsystem.getPose(), m_desiredState,
+        new Rotation2d(holonomicRotation));
+    m_drivetrainSubsystem.setModuleStates(targetChassisSpeeds);
+  }
 
-    return new PPSwerveControllerCommand(
-        m_trajectory,
-        () -> m_drivetrainSubsystem.getPose(),
-        m_drivetrainSubsystem.getKinematics(),
-        xyController,
-        xyController,
-        thetaController,
-        m_drivetrainSubsystem::setModuleStates,
-        m_drivetrainSubsystem);
+  @Override
+  public boolean isFinished() {
+    return m_currentTrajectory == null || m_timer.hasElapsed(m_currentTrajectory.getTotalTimeSeconds());
   }
 
-  private InstantCommand setup() {
-    return new InstantCommand(() -> {
-      m_drivetrainSubsystem.resetPose(m_trajectory.getInitialPose());
-    });
+  @Override
+  public void end(boolean interrupted) {
+    m_timer.stop();
   }
 }
@@ -1,49 +1,50 @@
 package frc.robot.subsystems;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import beartecs.Constants.*;
+import beartecs.auto.TrajectoryCache;
 import beartecs.sysid.SysIdSwerveDrivetrainCmd;
 import beartecs.systems.BaseSubsystem;
 import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.RobotContainer;
 import frc.robot.commands.Autonomous.AutoActionCmd;
+import frc.robot.commands.Autonomous.AutoActionCmd.SubsystemAction;
 
 public class AutonomousSubsystem extends BaseSubsystem {
-  private final DrivetrainSubsystem m_drivetrainSubsystem;
-  private final IntakeSubsystem m_intakeSubsystem;
-  private final SendableChooser<AutoActionCmd> m_autoChooser = new SendableChooser<AutoActionCmd>();
-
-  public AutonomousSubsystem(DrivetrainSubsystem driveSubsystem, IntakeSubsystem intakeSubsystem) {
-    m_drivetrainSubsystem = driveSubsystem;
-    m_intakeSubsystem = intakeSubsystem;
-
-    loadAutoActionCmds();
-    SmartDashboard.putData("Auto Selector", m_autoChooser);
-  }
+  private static final String DEFAULT_ROUTINE = "1 Ball Auto";
 
-  public void loadAutoActionCmds() {
+  /**
+   * Every routine in chooser order. Both the commands and the paths to preload
+   * are built from this table, so a new routine's paths are always generated
+   * before the match.
+   */
+  private static final Map<String, Routine> ROUTINES = new LinkedHashMap<>();
 
-    m_autoChooser.addOption("SysId Config", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
-        .executeCommand(new SysIdSwerveDrivetrainCmd(m_drivetrainSubsystem))
-        .complete());
-    m_autoChooser.addOption("1m Forward", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
-        .executeDrivePath("1m Forward") // went 87 cm
-        .complete());
-    m_autoChooser.setDefaultOption("1 Ball Auto", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
+  static {
+    ROUTINES.put("SysId Config", new Routine()
+        .executeCommand(SysIdSwerveDrivetrainCmd::new));
+    ROUTINES.put("1m Forward", new Routine()
+        .executeDrivePath("1m Forward")); // went 87 cm
+    ROUTINES.put(DEFAULT_ROUTINE, new Routine()
         .executeIntakeFire()
         .executeAction((drivetrain, intake) -> drivetrain.drive(-1 * Motor.MAX_VELOCITY_MPS, 0, 0, false))
-        .executePause(1.3)
-        .complete());
-    m_autoChooser.addOption("Delayed 1 Ball Auto", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
+        .executePause(1.3));
+    ROUTINES.put("Delayed 1 Ball Auto", new Routine()
         .executeIntakeFire()
         .executePause(10.0)
         .executeAction((drivetrain, intake) -> drivetrain.drive(-1 * Motor.MAX_VELOCITY_MPS, 0, 0, false))
-        .executePause(1.3)
-        .complete());
-    m_autoChooser.addOption("4BallAutoLeft", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
+        .executePause(1.3));
+    ROUTINES.put("4BallAutoLeft", new Routine()
         .executeArmPosition(false)
         .executeDrivePath("4BallAutoFirstStage")
         .executeArmPosition(true)
@@ -57,10 +58,8 @@ public class AutonomousSubsystem extends BaseSubsystem {
         .executeDrivePath("4BallAutoFifthStage")
         .executeIntakeFire()
         .executePause(1.69)
-        .executeDrivePath("4BallAutoSixthStage")
-        .complete());
-
-    m_autoChooser.addOption("4BallAutoRight", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
+        .executeDrivePath("4BallAutoSixthStage"));
+    ROUTINES.put("4BallAutoRight", new Routine()
         .executeArmPosition(false)
         .executeDrivePath("4BallAutoFirstStageRight")
         .executeArmPosition(true)
@@ -73,10 +72,8 @@ public class AutonomousSubsystem extends BaseSubsystem {
         .executeDrivePath("4BallAutoFourthStage")
         .executeIntakeFire()
         .executePause(1.69)
-        .executeDrivePath("4BallAutoFifthStage")
-        .complete());
-
-    m_autoChooser.addOption("HangarDump", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
+        .executeDrivePath("4BallAutoFifthStage"));
+    ROUTINES.put("HangarDump", new Routine()
         .executeArmPosition(false)
         .executeDrivePath("HangarDump1")
         .executeArmPosition(true)
@@ -89,25 +86,121 @@ public class AutonomousSubsystem extends BaseSubsystem {
         .executePause(1.69)
         .executeIntakeFire()
         .executePause(1)
-        .executeDrivePath("HangarDump4")
-        .complete());
-
-    m_autoChooser.addOption("2BallLeft", new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem)
+        .executeDrivePath("HangarDump4"));
+    ROUTINES.put("2BallLeft", new Routine()
         .executeArmPosition(false)
         .executeDrivePath("2BallLeft1")
         .executeArmPosition(true)
         .executeDrivePath("2BallLeft2")
         .executeIntakeFire()
         .executePause(1.69)
-        .executeDrivePath("2BallLeft3")
-        .complete());
+        .executeDrivePath("2BallLeft3"));
+  }
+
+  /**
+   * The drive paths of every path based routine, in the order they are driven.
+   * Derived from {@link #ROUTINES} for tools that simulate the routines offline
+   * without constructing any subsystems.
+   */
+  public static final Map<String, List<String>> ROUTINE_PATHS;
+
+  static {
+    Map<String, List<String>> routines = new LinkedHashMap<>();
+    ROUTINES.forEach((name, routine) -> {
+      if (!routine.m_paths.isEmpty()) {
+        routines.put(name, Collections.unmodifiableList(routine.m_paths));
+      }
+    });
+    ROUTINE_PATHS = Collections.unmodifiableMap(routines);
+  }
+
+  private final DrivetrainSubsystem m_drivetrainSubsystem;
+  private final IntakeSubsystem m_intakeSubsystem;
+  private final SendableChooser<AutoActionCmd> m_autoChooser = new SendableChooser<AutoActionCmd>();
+  private final TrajectoryCache m_trajectoryCache = new TrajectoryCache();
+
+  public AutonomousSubsystem(DrivetrainSubsystem driveSubsystem, IntakeSubsystem intakeSubsystem) {
+    m_drivetrainSubsystem = driveSubsystem;
+    m_intakeSubsystem = intakeSubsystem;
+
+    // Generate every path in the background instead of while building the routines
+    for (List<String> pathNames : ROUTINE_PATHS.values()) {
+      m_trajectoryCache.preload(pathNames, Motor.MAX_VELOCITY_MPS, Motor.MAX_VELOCITY_MPS);
+    }
+    loadAutoActionCmds();
+    SmartDashboard.putData("Auto Selector", m_autoChooser);
+  }
+
+  public void loadAutoActionCmds() {
+    ROUTINES.forEach((name, routine) -> {
+      AutoActionCmd cmd = new AutoActionCmd(this, m_drivetrainSubsystem, m_intakeSubsystem);
+      for (Step step : routine.m_steps) {
+        step.addTo(cmd, m_drivetrainSubsystem);
+      }
+      cmd.complete();
+
+      if (name.equals(DEFAULT_ROUTINE)) {
+        m_autoChooser.setDefaultOption(name, cmd);
+      } else {
+        m_autoChooser.addOption(name, cmd);
+      }
+    });
   }
 
   public Optional<AutoActionCmd> getAutoCmd() {
     return Optional.ofNullable(m_autoChooser.getSelected());
   }
 
+  public TrajectoryCache getTrajectoryCache() {
+    return m_trajectoryCache;
+  }
+
   public void showCurrentTrajectory(Trajectory trajectory) {
     RobotContainer.telemetry.setTrajectory(trajectory);
   }
+
+  /** One step of a routine, added to the command once the subsystems exist. */
+  private interface Step {
+    void addTo(AutoActionCmd cmd, DrivetrainSubsystem drivetrain);
+  }
+
+  /**
+   * A routine as data, mirroring the {@link AutoActionCmd} builder, so its paths
+   * are known without building the command.
+   */
+  private static final class Routine {
+    private final List<String> m_paths = new ArrayList<>();
+    private final List<Step> m_steps = new ArrayList<>();
+
+    Routine executeCommand(Function<DrivetrainSubsystem, CommandBase> factory) {
+      m_steps.add((cmd, drivetrain) -> cmd.executeCommand(factory.apply(drivetrain)));
+      return this;
+    }
+
+    Routine executeDrivePath(String pathName) {
+      m_paths.add(pathName);
+      m_steps.add((cmd, drivetrain) -> cmd.executeDrivePath(pathName));
+      return this;
+    }
+
+    Routine executeIntakeFire() {
+      m_steps.add((cmd, drivetrain) -> cmd.executeIntakeFire());
+      return this;
+    }
+
+    Routine executeArmPosition(boolean state) {
+      m_steps.add((cmd, drivetrain) -> cmd.executeArmPosition(state));
+      return this;
+    }
+
+    Routine executeAction(SubsystemAction action) {
+      m_steps.add((cmd, drivetrain) -> cmd.executeAction(action));
+      return this;
+    }
+
+    Routine executePause(double seconds) {
+      m_steps.add((cmd, drivetrain) -> cmd.executePause(seconds));
+      return this;
+    }
+  }
 }
\ No newline at end of file
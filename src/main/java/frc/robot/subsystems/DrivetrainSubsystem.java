@@ -4,6 +4,8 @@
 
 package frc.robot.subsystems;
 
+import java.util.function.Function;
+
 import edu.wpi.first.math.filter.LinearFilter;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -15,12 +17,13 @@ import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import frc.robot.RobotContainer;
 import edu.wpi.first.wpilibj.BuiltInAccelerometer;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.interfaces.Accelerometer.Range;
 
 import static beartecs.Constants.*;
 
-import beartecs.math.InterpolatingTreeMap;
+import beartecs.logger.SignalLogger;
+import beartecs.logger.TelemetryPublisher;
+import beartecs.math.PoseHistoryBuffer;
 import beartecs.math.MathUtils;
 import beartecs.math.Vector2d;
 import beartecs.swerve.Gyroscope;
@@ -28,7 +31,13 @@ import beartecs.swerve.GyroscopeHelper;
 import beartecs.swerve.SwerveModule;
 import beartecs.swerve.config.Mk3ModuleConfiguration;
 import beartecs.swerve.config.Mk3SwerveModuleHelper;
+import beartecs.swerve.sim.PoseTelemetry;
 import beartecs.systems.BaseSubsystem;
+import beartecs.systems.DriveState;
+import beartecs.systems.DriveStateHolder;
+import beartecs.systems.SensorFrame;
+import beartecs.systems.SensorSnapshot;
+import beartecs.systems.ThreadedOdometry;
 
 public class DrivetrainSubsystem extends BaseSubsystem {
 
@@ -56,43 +65,144 @@ public class DrivetrainSubsystem extends BaseSubsystem {
       m_backLeftModulePosition,
       // Back right
       m_backRightModulePosition);
-  private static final int MAX_LATENCY_COMPENSATION_MAP_ENTRIES = 25;
+  private static final int MAX_LATENCY_COMPENSATION_ENTRIES = 25; // 0.5s at 50hz
+  // The dashboard layout of each module, in module order
+  private static final String[] MODULE_LAYOUTS = { "Front Left Module", "Front Right Module", "Back Left Module",
+      "Back Right Module" };
 
   private final Gyroscope m_gyro;
   private final BuiltInAccelerometer m_accelerometer; // 20ms update time
   private final LinearFilter m_xAccelerometerFilter = LinearFilter.movingAverage(10);
   private final LinearFilter m_yAccelerometerFilter = LinearFilter.movingAverage(10);
   private Vector2d m_vecAcceleration = new Vector2d(0, 0);
-  private final InterpolatingTreeMap<Pose2d> m_lagCompensationMap = InterpolatingTreeMap
-      .createBuffer(MAX_LATENCY_COMPENSATION_MAP_ENTRIES);
+  private final PoseHistoryBuffer m_lagCompensationBuffer = new PoseHistoryBuffer(
+      MAX_LATENCY_COMPENSATION_ENTRIES);
+  private final double[] m_lagCompSample = new double[3];
 
   public static ShuffleboardTab m_DriveDataTab;
   private final NetworkTableEntry m_isFieldOriented;
   private static ShuffleboardLayout m_DrivetrainLayout, m_OdometryData, m_ChassisData, m_OtherData;
+  private final TelemetryPublisher.Field m_poseXField, m_poseYField, m_poseAngleField;
+  private final TelemetryPublisher.Field m_vxField, m_vyField, m_omegaField;
+  private final TelemetryPublisher.Field m_gyroRotationField, m_accelerationField;
+  private final SignalLogger.PoseSignal m_poseSignal;
+  private final SignalLogger.DoubleArraySignal m_moduleStatesSignal, m_chassisSpeedsSignal;
+  private final SignalLogger.DoubleSignal m_gyroSignal;
   // These are our modules. We initialize them in the constructor.
   private final SwerveModule m_frontLeftModule, m_frontRightModule, m_backLeftModule, m_backRightModule;
+  private final SensorSnapshot m_sensors;
 
-  private ChassisSpeeds m_chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
-  private final SwerveDriveOdometry m_odometry;
+  // Pose, requested chassis speeds and measured module states, readable from any thread
+  private final DriveStateHolder m_state = new DriveStateHolder(m_modulePositions.length, new Pose2d());
+  private final ThreadedOdometry m_odometry;
+  private final PoseTelemetry m_telemetry;
 
   public DrivetrainSubsystem() {
-    m_gyro = GyroscopeHelper.createPigeon2CAN(Ids.PIGEON.deviceNumber, Ids.PIGEON.canBus); // 8.5cm from front bar // 30cm in the center of the bar
-    m_odometry = new SwerveDriveOdometry(m_kinematics, getGyroRotation());
+    this(GyroscopeHelper.createPigeon2CAN(Ids.PIGEON.deviceNumber, Ids.PIGEON.canBus), // 8.5cm from front bar // 30cm in the center of the bar
+        DrivetrainSubsystem::createModules, RobotContainer.telemetry);
+  }
+
+  /**
+   * @param gyro          The gyroscope
+   * @param moduleFactory Creates the front left, front right, back left and
+   *                      back right modules, given the layout for their
+   *                      dashboard entries
+   * @param telemetry     Receives the field poses every loop
+   */
+  public DrivetrainSubsystem(Gyroscope gyro, Function<ShuffleboardLayout, SwerveModule[]> moduleFactory,
+      PoseTelemetry telemetry) {
+    m_gyro = gyro;
+    m_telemetry = telemetry;
     m_accelerometer = new BuiltInAccelerometer(Range.k8G);
-    resetPose(new Pose2d(7, 2, Rotation2d.fromDegrees(-90)));
 
     m_DrivetrainLayout = addTab("Drivetrain").getLayout("Wheels", BuiltInLayouts.kGrid)
         .withSize(4, 2);
     m_DriveDataTab = addTab("Drive Data");
+    final SwerveModule[] modules = moduleFactory.apply(m_DrivetrainLayout);
+    m_frontLeftModule = modules[0];
+    m_frontRightModule = modules[1];
+    m_backLeftModule = modules[2];
+    m_backRightModule = modules[3];
+
+    m_sensors = new SensorSnapshot(getSwerveModules(), m_gyro, m_accelerometer);
+    m_odometry = new ThreadedOdometry(m_kinematics, getSwerveModules(), m_gyro,
+        new Pose2d(7, 2, Rotation2d.fromDegrees(-90)), m_state);
+    if (Odometry.THREADED) {
+      m_odometry.start(Odometry.PERIOD_SEC);
+    }
+    zeroGyro();
+    m_OdometryData = m_DriveDataTab.getLayout("Odometry Data", BuiltInLayouts.kList)
+        .withSize(2, 2)
+        .withPosition(0, 0);
+    m_ChassisData = m_DriveDataTab.getLayout("Chassis Data", BuiltInLayouts.kList)
+        .withSize(2, 2)
+        .withPosition(2, 0);
+    m_OtherData = m_DriveDataTab.getLayout("Other Data", BuiltInLayouts.kList)
+        .withSize(2, 3)
+        .withPosition(4, 0);
+    final TelemetryPublisher publisher = TelemetryPublisher.getInstance();
+    m_poseXField = publisher.addNumber(m_OdometryData.add("X", 0.0).getEntry());
+    m_poseYField = publisher.addNumber(m_OdometryData.add("Y", 0.0).getEntry());
+    m_poseAngleField = publisher.addNumber(m_OdometryData.add("Angle", 0.0).getEntry());
+
+    m_vxField = publisher.addNumber(m_ChassisData.add("X", 0.0).getEntry());
+    m_vyField = publisher.addNumber(m_ChassisData.add("Y", 0.0).getEntry());
+    m_omegaField = publisher.addNumber(m_ChassisData.add("Z", 0.0).getEntry());
+
+    m_isFieldOriented = m_OtherData.add("Field Oriented", true).getEntry();
+    m_gyroRotationField = publisher.addNumber(m_OtherData.add("Gyro Rotation", 0.0).getEntry());
+    m_accelerationField = publisher.addNumber(m_OtherData.add("Acceleration Meters", 0.0).getEntry());
+    addModuleEntries(publisher);
+    m_telemetry.setModuleLocations(m_modulePositions);
+
+    final SignalLogger signals = SignalLogger.getInstance();
+    m_poseSignal = signals.addPose("Drive/Pose");
+    // Speed (m/s) and angle (rad) of every module, in module order
+    m_moduleStatesSignal = signals.addDoubleArray("Drive/ModuleStates", 2 * m_modulePositions.length);
+    m_chassisSpeedsSignal = signals.addDoubleArray("Drive/RequestedChassisSpeeds", 3);
+    m_gyroSignal = signals.addDouble("Drive/GyroDegrees");
+    final String[] moduleNames = { "FrontLeft", "FrontRight", "BackLeft", "BackRight" };
+    for (int i = 0; i < modules.length; i++) {
+      final SwerveModule module = modules[i];
+      signals.addDouble("Drive/" + moduleNames[i] + "/DriveVoltage",
+          () -> module.getDriveController().getOutputVoltage(), SignalLogger.LOOP_PERIOD_SEC);
+      signals.addDouble("Drive/" + moduleNames[i] + "/SteerVoltage",
+          () -> module.getSteerController().getOutputVoltage(), SignalLogger.LOOP_PERIOD_SEC);
+    }
+  }
+
+  /**
+   * Publishes the measured module values from the sensor frame of each loop,
+   * so the dashboard never reads the devices itself.
+   */
+  private void addModuleEntries(TelemetryPublisher publisher) {
+    for (int i = 0; i < MODULE_LAYOUTS.length; i++) {
+      final int index = i;
+      final ShuffleboardLayout layout = m_DrivetrainLayout.getLayout(MODULE_LAYOUTS[i], BuiltInLayouts.kList);
+      publisher.addNumber(layout.add("Current Velocity", 0.0).getEntry(),
+          () -> m_sensors.getFrame().getModuleState(index).speedMetersPerSecond, TelemetryPublisher.DEFAULT_DEADBAND,
+          TelemetryPublisher.DEFAULT_PERIOD_SEC);
+      publisher.addNumber(layout.add("Current Angle", 0.0).getEntry(),
+          () -> m_sensors.getFrame().getModuleState(index).angle.getDegrees(), 0.1,
+          TelemetryPublisher.DEFAULT_PERIOD_SEC);
+      if (!Double.isNaN(m_sensors.getFrame().getAbsoluteAngle(index))) {
+        publisher.addNumber(layout.add("Absolute Encoder Angle", 0.0).getEntry(),
+            () -> Math.toDegrees(m_sensors.getFrame().getAbsoluteAngle(index)), 0.1,
+            TelemetryPublisher.DEFAULT_PERIOD_SEC);
+      }
+    }
+  }
+
+  private static SwerveModule[] createModules(ShuffleboardLayout layout) {
     Mk3ModuleConfiguration configuration = new Mk3ModuleConfiguration();
 
     configuration.setMotorCanBusName(Ids.CANIVORE_NAME);
     configuration.setEncoderCanBusName(Ids.CANIVORE_NAME);
 
-    m_frontLeftModule = Mk3SwerveModuleHelper.createFalcon500(
+    final SwerveModule frontLeftModule = Mk3SwerveModuleHelper.createFalcon500(
         // This parameter is optional, but will allow you to see the current state of
         // the module on the dashboard.
-        m_DrivetrainLayout.getLayout("Front Left Module", BuiltInLayouts.kList)
+        layout.getLayout(MODULE_LAYOUTS[0], BuiltInLayouts.kList)
             .withSize(2, 2)
             .withPosition(0, 0),
         configuration,
@@ -103,8 +213,8 @@ public class DrivetrainSubsystem extends BaseSubsystem {
         Ids.FRONT_LEFT.CAN_CODER_OFFSET);
 
     // We will do the same for the other modules
-    m_frontRightModule = Mk3SwerveModuleHelper.createFalcon500(
-        m_DrivetrainLayout.getLayout("Front Right Module", BuiltInLayouts.kList)
+    final SwerveModule frontRightModule = Mk3SwerveModuleHelper.createFalcon500(
+        layout.getLayout(MODULE_LAYOUTS[1], BuiltInLayouts.kList)
             .withSize(2, 2)
             .withPosition(2, 0),
         configuration,
@@ -114,8 +224,8 @@ public class DrivetrainSubsystem extends BaseSubsystem {
         Ids.FRONT_RIGHT.CAN_CODER_DEVICE_NUMBER,
         Ids.FRONT_RIGHT.CAN_CODER_OFFSET);
 
-    m_backLeftModule = Mk3SwerveModuleHelper.createFalcon500(
-        m_DrivetrainLayout.getLayout("Back Left Module", BuiltInLayouts.kList)
+    final SwerveModule backLeftModule = Mk3SwerveModuleHelper.createFalcon500(
+        layout.getLayout(MODULE_LAYOUTS[2], BuiltInLayouts.kList)
             .withSize(2, 2)
             .withPosition(4, 0),
         configuration,
@@ -125,8 +235,8 @@ public class DrivetrainSubsystem extends BaseSubsystem {
         Ids.BACK_LEFT.CAN_CODER_DEVICE_NUMBER,
         Ids.BACK_LEFT.CAN_CODER_OFFSET);
 
-    m_backRightModule = Mk3SwerveModuleHelper.createFalcon500(
-        m_DrivetrainLayout.getLayout("Back Right Module", BuiltInLayouts.kList)
+    final SwerveModule backRightModule = Mk3SwerveModuleHelper.createFalcon500(
+        layout.getLayout(MODULE_LAYOUTS[3], BuiltInLayouts.kList)
             .withSize(2, 2)
             .withPosition(6, 0),
         configuration,
@@ -136,44 +246,7 @@ public class DrivetrainSubsystem extends BaseSubsystem {
         Ids.BACK_RIGHT.CAN_CODER_DEVICE_NUMBER,
         Ids.BACK_RIGHT.CAN_CODER_OFFSET);
 
-    zeroGyro();
-    m_OdometryData = m_DriveDataTab.getLayout("Odometry Data", BuiltInLayouts.kList)
-        .withSize(2, 2)
-        .withPosition(0, 0);
-    m_ChassisData = m_DriveDataTab.getLayout("Chassis Data", BuiltInLayouts.kList)
-        .withSize(2, 2)
-        .withPosition(2, 0);
-    m_OtherData = m_DriveDataTab.getLayout("Other Data", BuiltInLayouts.kList)
-        .withSize(2, 3)
-        .withPosition(4, 0);
-    m_OdometryData.addNumber("X", () -> {
-      return getPose().getTranslation().getX();
-    });
-    m_OdometryData.addNumber("Y", () -> {
-      return getPose().getTranslation().getY();
-    });
-    m_OdometryData.addNumber("Angle", () -> {
-      return getPose().getRotation().getDegrees();
-    });
-
-    m_ChassisData.addNumber("X", () -> {
-      return m_chassisSpeeds.vxMetersPerSecond;
-    });
-    m_ChassisData.addNumber("Y", () -> {
-      return m_chassisSpeeds.vyMetersPerSecond;
-    });
-    m_ChassisData.addNumber("Z", () -> {
-      return m_chassisSpeeds.omegaRadiansPerSecond;
-    });
-
-    m_isFieldOriented = m_OtherData.add("Field Oriented", true).getEntry();
-    m_OtherData.addNumber("Gyro Rotation", () -> {
-      return getGyroRotation().getDegrees();
-    });
-    m_OtherData.addNumber("Acceleration Meters", () -> {
-      return getAccelerationMeters();
-    });
-
+    return new SwerveModule[] { frontLeftModule, frontRightModule, backLeftModule, backRightModule };
   }
 
   /**
@@ -184,13 +257,22 @@ public class DrivetrainSubsystem extends BaseSubsystem {
   public void zeroGyro() {
     m_logger.logInfo("Gyro Zero'ed");
     m_gyro.zeroGyro();
-    m_odometry.resetPosition(
-        new Pose2d(m_odometry.getPoseMeters().getTranslation(), Rotation2d.fromDegrees(0.0)),
-        getGyroRotation());
+    m_sensors.resampleGyro(); // Not sample(), that would reuse the frame of the last loop
+    resetPose(new Pose2d(getPose().getTranslation(), Rotation2d.fromDegrees(0.0)));
   }
 
+  /**
+   * @return The gyroscope rotation sampled at the start of this loop
+   */
   public Rotation2d getGyroRotation() {
-    return m_gyro.getGyroRotation();
+    return m_sensors.getFrame().getGyroRotation();
+  }
+
+  /**
+   * @return The sensor readings of this loop
+   */
+  public SensorFrame getSensorFrame() {
+    return m_sensors.getFrame();
   }
 
   public void drive(double translation_x, double translation_y, double rotation) {
@@ -198,58 +280,86 @@ public class DrivetrainSubsystem extends BaseSubsystem {
   }
 
   public void drive(double translation_x, double translation_y, double rotation, boolean fieldOriented) {
-    m_chassisSpeeds = fieldOriented
+    m_state.publishChassisSpeeds(fieldOriented
         ? ChassisSpeeds.fromFieldRelativeSpeeds(translation_x, translation_y, rotation, getGyroRotation())
-        : new ChassisSpeeds(translation_x, translation_y, rotation);
+        : new ChassisSpeeds(translation_x, translation_y, rotation));
   }
 
   public SwerveDriveKinematics getKinematics() {
     return m_kinematics;
   }
 
+  /**
+   * @return The latest odometry pose, never blocks
+   */
   public Pose2d getPose() {
-    return m_odometry.getPoseMeters();
+    return m_odometry.getPose();
+  }
+
+  /**
+   * @return A consistent snapshot of the pose, chassis speeds and module states,
+   *         safe to read from any thread
+   */
+  public DriveState getDriveState() {
+    return m_state.get();
   }
 
   public void resetPose(Pose2d pose) {
-    m_odometry.resetPosition(pose, getGyroRotation());
+    m_odometry.resetPose(pose, m_gyro.getGyroRotation());
   }
 
+  /**
+   * Integrates the states of this loop, unless the odometry thread already
+   * does, and records the latest pose for lag compensation.
+   */
   public void updateOdometry(SwerveModuleState[] states) {
-    m_odometry.update(getGyroRotation(), states); // Update Pose
+    final SensorFrame frame = m_sensors.getFrame();
+    m_odometry.update(frame.getTimestamp(), frame.getGyroRotation(), states); // Update Pose
 
-    if (m_lagCompensationMap.size() > MAX_LATENCY_COMPENSATION_MAP_ENTRIES) {
-      m_lagCompensationMap.getSample(m_lagCompensationMap.firstKey());
-    }
-    m_lagCompensationMap.addSample(Timer.getFPGATimestamp(), m_odometry.getPoseMeters()); // Add to interp map
+    final DriveState state = m_state.get();
+    m_lagCompensationBuffer.addSample(state.getTimestamp(), state.getPose()); // Oldest entry is overwritten
+  }
+
+  /**
+   * Samples the pose history without allocating.
+   *
+   * @param timestamp The FPGA timestamp in seconds
+   * @param out       Receives {x, y, theta}
+   * @return false if there is no history yet
+   */
+  public boolean getLagCompPose(double timestamp, double[] out) {
+    return m_lagCompensationBuffer.getSample(timestamp, out);
   }
 
   public Pose2d getLagCompPose(double timestamp) {
-    if (m_lagCompensationMap.isEmpty()) {
+    if (!m_lagCompensationBuffer.getSample(timestamp, m_lagCompSample)) {
       return new Pose2d();
     }
-    return m_lagCompensationMap.getSample(timestamp);
+    return new Pose2d(m_lagCompSample[0], m_lagCompSample[1], new Rotation2d(m_lagCompSample[2]));
   }
 
   public void setModuleStates(SwerveModuleState[] states) {
-    m_chassisSpeeds = m_kinematics.toChassisSpeeds(states);
+    m_state.publishChassisSpeeds(m_kinematics.toChassisSpeeds(states));
   }
 
   public void setModuleStates(ChassisSpeeds state) {
-    m_chassisSpeeds = state;
+    m_state.publishChassisSpeeds(state);
   }
 
   public void stopModules() {
-    m_chassisSpeeds = new ChassisSpeeds(0, 0, 0);
+    m_state.publishChassisSpeeds(new ChassisSpeeds(0, 0, 0));
   }
 
   @Override
-  public void periodic() {
-    m_vecAcceleration.x = m_xAccelerometerFilter.calculate(m_accelerometer.getX());
-    m_vecAcceleration.y = m_yAccelerometerFilter.calculate(m_accelerometer.getY());
-    updateOdometry(getSwerveModuleStates()); // Update odometry based off wheel states, NOT requested chassis speeds
-    if (Math.abs(m_chassisSpeeds.vxMetersPerSecond) == 0 && Math.abs(m_chassisSpeeds.vyMetersPerSecond) == 0
-        && Math.abs(m_chassisSpeeds.omegaRadiansPerSecond) == 0 && Motor.DEFENSIVE) {
+  protected void onPeriodic() {
+    m_sensors.sample(); // Every sensor read this loop comes from this frame
+    final SensorFrame frame = m_sensors.getFrame();
+    m_vecAcceleration.x = m_xAccelerometerFilter.calculate(frame.getAccelerationX());
+    m_vecAcceleration.y = m_yAccelerometerFilter.calculate(frame.getAccelerationY());
+    updateOdometry(frame.getModuleStates()); // Update odometry based off wheel states, NOT requested chassis speeds
+    m_state.publishModuleStates(frame.getModuleStates());
+    final DriveState state = m_state.get();
+    if (state.isStopped() && Motor.DEFENSIVE) {
       m_frontLeftModule.set(
           0.0, Math.toRadians(-45));
       m_frontRightModule.set(
@@ -260,7 +370,7 @@ public class DrivetrainSubsystem extends BaseSubsystem {
           0.0, Math.toRadians(-45));
     } else {
 
-      SwerveModuleState[] states = m_kinematics.toSwerveModuleStates(m_chassisSpeeds);
+      SwerveModuleState[] states = m_kinematics.toSwerveModuleStates(state.getChassisSpeeds());
       SwerveDriveKinematics.desaturateWheelSpeeds(states, Motor.MAX_VELOCITY_MPS);
 
       m_frontLeftModule.setVelocity(
@@ -277,35 +387,43 @@ public class DrivetrainSubsystem extends BaseSubsystem {
           states[3].angle.getRadians());
     }
 
-    Pose2d[] modulePose = { null, null, null, null };
-    var swerveModules = getSwerveModuleStates();
-    // Update the poses for the swerveModules. Note that the order of rotating the position and then
-    // adding the translation matters
-    for (int i = 0; i < swerveModules.length; i++) {
-      var modulePositionFromChassis = m_modulePositions[i]
-          .rotateBy(getGyroRotation())
-          .plus(getPose().getTranslation());
-
-      // Module's heading is it's angle relative to the chassis heading
-      modulePose[i] = new Pose2d(modulePositionFromChassis,
-          swerveModules[i].angle.plus(getPose().getRotation()));
+    final Pose2d pose = getPose();
+    // The frame's module states stay valid until the end of the next loop
+    m_telemetry.setSwerveModuleStates(frame.getModuleStates());
+    m_telemetry.setActualPose(pose);
+    m_telemetry.update();
+
+    // Dashboard values come from this loop's frame and state, never from the hardware
+    m_poseXField.set(pose.getX());
+    m_poseYField.set(pose.getY());
+    m_poseAngleField.set(pose.getRotation().getDegrees());
+    m_vxField.set(state.getVxMetersPerSecond());
+    m_vyField.set(state.getVyMetersPerSecond());
+    m_omegaField.set(state.getOmegaRadiansPerSecond());
+    m_gyroRotationField.set(frame.getGyroRotation().getDegrees());
+    m_accelerationField.set(getAccelerationMeters());
+    // Replay values come from the same frame and state
+    m_poseSignal.set(pose);
+    final SwerveModuleState[] moduleStates = frame.getModuleStates();
+    for (int i = 0; i < moduleStates.length; i++) {
+      m_moduleStatesSignal.set(2 * i, moduleStates[i].speedMetersPerSecond);
+      m_moduleStatesSignal.set(2 * i + 1, moduleStates[i].angle.getRadians());
     }
-    RobotContainer.telemetry.setSwerveModulePoses(modulePose);
-    RobotContainer.telemetry.setActualPose(m_odometry.getPoseMeters());
-    RobotContainer.telemetry.update();
+    m_chassisSpeedsSignal.set(0, state.getVxMetersPerSecond());
+    m_chassisSpeedsSignal.set(1, state.getVyMetersPerSecond());
+    m_chassisSpeedsSignal.set(2, state.getOmegaRadiansPerSecond());
+    m_gyroSignal.set(frame.getGyroRotation().getDegrees());
   }
 
   public SwerveModule[] getSwerveModules() {
     return new SwerveModule[] { m_frontLeftModule, m_frontRightModule, m_backLeftModule, m_backRightModule };
   }
 
+  /**
+   * @return The module states sampled at the start of this loop, read only
+   */
   public SwerveModuleState[] getSwerveModuleStates() {
-    return new SwerveModuleState[] {
-        m_frontLeftModule.getState(),
-        m_frontRightModule.getState(),
-        m_backLeftModule.getState(),
-        m_backRightModule.getState()
-    };
+    return m_sensors.getFrame().getModuleStates();
   }
 
   public Vector2d getAcceleration() {
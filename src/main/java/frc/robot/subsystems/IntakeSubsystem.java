@@ -19,6 +19,8 @@ import frc.robot.Controls;
 import frc.robot.RobotContainer;
 import beartecs.Constants.*;
 import beartecs.configs.GearRatioConfig;
+import beartecs.logger.SignalLogger;
+import beartecs.logger.TelemetryPublisher;
 
 public class IntakeSubsystem extends BaseSubsystem {
 
@@ -33,10 +35,18 @@ public class IntakeSubsystem extends BaseSubsystem {
 
   private boolean m_armState = true;
   private boolean m_verifiedArmState = true;
+  private double m_armPosition = 0;
+  private boolean m_topSwitch = false;
+  private boolean m_bottomSwitch = false;
   private double m_lastBurstTime = 0;
   private double m_autoIntakeSpeed = 0;
   private boolean m_velocityIntake = false;
   private ProfiledPIDController m_armPidController = Arm.ARM_PID.getProfiledPidController();
+  private final TelemetryPublisher.Field m_topSwitchField, m_bottomSwitchField;
+  private final TelemetryPublisher.Field m_armStateField, m_verifiedArmStateField;
+  private final TelemetryPublisher.Field m_armPositionField, m_jointRotationField;
+  private final SignalLogger.DoubleSignal m_armPositionSignal;
+  private final SignalLogger.BooleanSignal m_topSwitchSignal, m_bottomSwitchSignal, m_armStateSignal;
 
   private final GearRatioConfig m_gearRatioConfig = new GearRatioConfig(
       MotorUtils.TALON_TICK_RESOLUTION,
@@ -58,12 +68,22 @@ public class IntakeSubsystem extends BaseSubsystem {
     ShuffleboardLayout layout = tab.getLayout("Intake", BuiltInLayouts.kGrid)
         .withSize(2, 1)
         .withPosition(1, 1);
-    layout.addBoolean("Top Switch", () -> getTopLimitSwitch());
-    layout.addBoolean("Bottom Switch", () -> getBottomLimitSwitch());
-    layout.addBoolean("Arm State", () -> m_armState);
-    layout.addBoolean("Verified Arm State", () -> m_verifiedArmState);
-    layout.addNumber("Arm Position", () -> m_arm.getSelectedSensorPosition());
-    layout.addNumber("Joint Rotation", () -> getJointRotation().getDegrees());
+    final TelemetryPublisher publisher = TelemetryPublisher.getInstance();
+    m_topSwitchField = publisher.addBoolean(layout.add("Top Switch", false).getEntry());
+    m_bottomSwitchField = publisher.addBoolean(layout.add("Bottom Switch", false).getEntry());
+    m_armStateField = publisher.addBoolean(layout.add("Arm State", false).getEntry());
+    m_verifiedArmStateField = publisher.addBoolean(layout.add("Verified Arm State", false).getEntry());
+    m_armPositionField = publisher.addNumber(layout.add("Arm Position", 0.0).getEntry(), 1.0,
+        TelemetryPublisher.DEFAULT_PERIOD_SEC);
+    m_jointRotationField = publisher.addNumber(layout.add("Joint Rotation", 0.0).getEntry());
+    final SignalLogger signals = SignalLogger.getInstance();
+    m_armPositionSignal = signals.addDouble("Intake/ArmPosition");
+    m_topSwitchSignal = signals.addBoolean("Intake/TopSwitch");
+    m_bottomSwitchSignal = signals.addBoolean("Intake/BottomSwitch");
+    m_armStateSignal = signals.addBoolean("Intake/ArmState");
+    signals.addDouble("Intake/ArmVoltage", m_arm::getMotorOutputVoltage, SignalLogger.LOOP_PERIOD_SEC);
+    signals.addDouble("Intake/ArmCurrent", m_arm::getStatorCurrent, SignalLogger.LOOP_PERIOD_SEC);
+    signals.addDouble("Intake/IntakeCurrent", m_intake::getStatorCurrent, SignalLogger.LOOP_PERIOD_SEC);
   }
 
   public Rotation2d getJointRotation() {
@@ -133,16 +153,20 @@ public class IntakeSubsystem extends BaseSubsystem {
   }
 
   public boolean updateArmState() {
+    // Read each sensor once per loop, the dashboard reuses these
+    m_armPosition = m_arm.getSelectedSensorPosition();
+    m_topSwitch = getTopLimitSwitch();
+    m_bottomSwitch = getBottomLimitSwitch();
     if (Controls.getIntakeResetEncoderButton()) {
       m_arm.setSelectedSensorPosition(Arm.ABS_UP_POSITION);
-    } else if (m_arm.getSelectedSensorPosition() < 0) {
+    } else if (m_armPosition < 0) {
       m_arm.setSelectedSensorPosition(0); // stop from going negative
     }
 
     // the arm has reached the ideal arm position
-    if (getTopLimitSwitch() || m_arm.getSelectedSensorPosition() > Arm.UP_POSITION) {
+    if (m_topSwitch || m_armPosition > Arm.UP_POSITION) {
       m_verifiedArmState = true; // is at top
-    } else if (getBottomLimitSwitch() || m_arm.getSelectedSensorPosition() < Arm.DOWN_POSITION) {
+    } else if (m_bottomSwitch || m_armPosition < Arm.DOWN_POSITION) {
       m_verifiedArmState = false; // is at bottom
     }
     return m_verifiedArmState;
@@ -191,9 +215,20 @@ public class IntakeSubsystem extends BaseSubsystem {
   }
 
   @Override
-  public void periodic() {
+  protected void onPeriodic() {
     updateArmState();
     updateIntake();
     updateArm();
+
+    m_topSwitchField.set(m_topSwitch);
+    m_bottomSwitchField.set(m_bottomSwitch);
+    m_armStateField.set(m_armState);
+    m_verifiedArmStateField.set(m_verifiedArmState);
+    m_armPositionField.set(m_armPosition);
+    m_jointRotationField.set(m_gearRatioConfig.toDegrees(m_armPosition));
+    m_armPositionSignal.set(m_armPosition);
+    m_topSwitchSignal.set(m_topSwitch);
+    m_bottomSwitchSignal.set(m_bottomSwitch);
+    m_armStateSignal.set(m_armState);
   }
 }
\ No newline at end of file
@@ -2,15 +2,16 @@ package frc.robot.subsystems;
 
 import beartecs.Constants.*;
 import beartecs.LED.*;
+import beartecs.systems.BaseSubsystem;
+import beartecs.systems.LoopBudget;
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj.util.Color;
 
 //https://docs.wpilib.org/en/stable/docs/software/hardware-apis/misc/addressable-leds.html
 
-public class LEDSubsystem extends SubsystemBase {
+public class LEDSubsystem extends BaseSubsystem {
   private final AddressableLED m_ledStrip;
   private final AddressableLEDBuffer m_ledBuffer;
 
@@ -46,6 +47,7 @@ public class LEDSubsystem extends SubsystemBase {
   public static final int LED_STRIP_COUNT = 58;
 
   public LEDSubsystem() {
+    super(LoopBudget.Priority.DEFERRABLE);
     m_ledStrip = new AddressableLED(Ids.PWM_LED_STRIP);
     m_ledBuffer = new AddressableLEDBuffer(LED_STRIP_COUNT);
     m_ledStrip.setLength(LED_STRIP_COUNT);
@@ -87,7 +89,7 @@ public class LEDSubsystem extends SubsystemBase {
   }
 
   @Override
-  public void periodic() {
+  protected void onPeriodic() {
     m_ledStrip.setData(m_ledBuffer);
   }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package frc.robot.subsystems;
 
 import beartecs.Constants.*;
+import beartecs.logger.SignalLogger;
+import beartecs.logger.TelemetryPublisher;
 import beartecs.math.MathUtils;
 import beartecs.systems.BaseSubsystem;
+import beartecs.systems.LoopBudget;
 import beartecs.systems.UltrasonicMB1013;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
@@ -14,9 +17,13 @@ public class UltrasonicSubsystem extends BaseSubsystem {
   private final ShuffleboardLayout m_ultrasonicLayout;
   private final UltrasonicMB1013 m_ultrasonicLeft, m_ultrasonicRight;
   private final LEDSubsystem m_ledSubsystem;
+  private final TelemetryPublisher.Field m_rotationField, m_distanceField;
+  private final SignalLogger.DoubleSignal m_rotationSignal, m_distanceSignal;
+  private final SignalLogger.BooleanSignal m_alignedSignal;
   private boolean m_isEnabled, m_isAligned;
 
   public UltrasonicSubsystem(LEDSubsystem ledSubsystem) {
+    super(LoopBudget.Priority.DEFERRABLE);
     m_ledSubsystem = ledSubsystem;
     m_ultrasonicTab = addTab("Ultrasonic");
     m_ultrasonicLeft = new UltrasonicMB1013(Ids.LEFT_ULTRASONIC);
@@ -26,12 +33,19 @@ public class UltrasonicSubsystem extends BaseSubsystem {
     m_ultrasonicLayout = m_ultrasonicTab.getLayout("Data", BuiltInLayouts.kGrid)
         .withSize(2, 1)
         .withPosition(5, 0);
-    m_ultrasonicLayout.addNumber("Rotation", () -> getUltrasonicRotation().getDegrees())
+    final TelemetryPublisher publisher = TelemetryPublisher.getInstance();
+    m_rotationField = publisher.addNumber(m_ultrasonicLayout.add("Rotation", 0.0)
         .withPosition(1, 0)
-        .withSize(1, 1);
-    m_ultrasonicLayout.addNumber("Distance", () -> getUltrasonicDistance())
+        .withSize(1, 1)
+        .getEntry(), 0.1, TelemetryPublisher.DEFAULT_PERIOD_SEC);
+    m_distanceField = publisher.addNumber(m_ultrasonicLayout.add("Distance", 0.0)
         .withPosition(2, 0)
-        .withSize(1, 1);
+        .withSize(1, 1)
+        .getEntry(), 0.1, TelemetryPublisher.DEFAULT_PERIOD_SEC);
+    final SignalLogger signals = SignalLogger.getInstance();
+    m_rotationSignal = signals.addDouble("Ultrasonic/RotationDegrees");
+    m_distanceSignal = signals.addDouble("Ultrasonic/DistanceInches");
+    m_alignedSignal = signals.addBoolean("Ultrasonic/Aligned");
   }
 
   public void EnableSensors() {
@@ -61,10 +75,17 @@ public class UltrasonicSubsystem extends BaseSubsystem {
   }
 
   @Override
-  public void periodic() {
-    m_isAligned = MathUtils.withinRange(getUltrasonicRotation().getDegrees(), -Ultrasonic.ANGULAR_THRESHOLD,
+  protected void onPeriodic() {
+    final double rotation = getUltrasonicRotation().getDegrees();
+    final double distance = getUltrasonicDistance();
+    m_rotationField.set(rotation);
+    m_distanceField.set(distance);
+    m_isAligned = MathUtils.withinRange(rotation, -Ultrasonic.ANGULAR_THRESHOLD,
         Ultrasonic.ANGULAR_THRESHOLD) &&
-        MathUtils.withinRange(getUltrasonicDistance(), Ultrasonic.MIN_DISTANCE, Ultrasonic.MAX_DISTANCE);
+        MathUtils.withinRange(distance, Ultrasonic.MIN_DISTANCE, Ultrasonic.MAX_DISTANCE);
+    m_rotationSignal.set(rotation);
+    m_distanceSignal.set(distance);
+    m_alignedSignal.set(m_isAligned);
     if (m_isEnabled && getRobotMode() != RobotMode.AUTO) {
       if (isUltrasonicAligned()) {
         m_ledSubsystem.setPattern(LEDSubsystem.m_greenAlternating);
@@ -0,0 +1,227 @@
+package beartecs.systems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import beartecs.Constants.Vision;
+import beartecs.configs.CameraConfig;
+import beartecs.systems.BaseSubsystem.RobotMode;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Runs a {@link VisionManager} against Limelights on a local NetworkTables
+ * server. A client instance plays the cameras and writes their
+ * {@code limelight-<name>} entries.
+ */
+public class VisionManagerTest {
+  private static final long TIMEOUT_MS = 2000;
+  private static final double TARGET_PITCH_DEGREES = 30.0;
+  // Level camera on the floor at the robot center, so the distance only depends on ty
+  private static final CameraConfig CAMERA = new CameraConfig(0, 0, 0, new Translation2d());
+  private static final Translation2d HUB = new Translation2d(8.23, 4.11);
+  private static final double ROBOT_X = HUB.getX() - Vision.TARGET_HEIGHT_METERS
+      / Math.tan(Math.toRadians(TARGET_PITCH_DEGREES)) - Vision.TARGET_RADIUS_METERS;
+
+  private static int port = 5810;
+
+  @Rule
+  public TemporaryFolder m_folder = new TemporaryFolder();
+
+  private NetworkTableInstance m_server;
+  private NetworkTableInstance m_client;
+  private VisionManager m_vision;
+  private Limelight m_front;
+  private Limelight m_back;
+
+  @BeforeClass
+  public static void initHal() {
+    HAL.initialize(500, 0);
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    port++; // A fresh port per test, the previous one may still be closing
+    m_server = NetworkTableInstance.create();
+    m_server.startServer(new File(m_folder.getRoot(), "networktables.ini").getPath(), "127.0.0.1", port);
+    m_client = NetworkTableInstance.create();
+    m_client.startClient("127.0.0.1", port);
+    waitFor("client connection", m_client::isConnected);
+
+    m_vision = new VisionManager((timestamp, out) -> {
+      out[0] = ROBOT_X;
+      out[1] = HUB.getY();
+      out[2] = 0;
+      return true;
+    }, HUB);
+    m_front = new Limelight(m_server.getTable("limelight-front"));
+    m_back = new Limelight(m_server.getTable("limelight-back"));
+    m_vision.addCamera("front", m_front, CAMERA, 0, 1, 2);
+    m_vision.addCamera("back", m_back, CAMERA, 3, 4, 5);
+  }
+
+  @After
+  public void tearDown() {
+    m_client.close();
+    m_server.close();
+  }
+
+  @Test
+  public void picksTheCameraSeeingTheLargestTarget() {
+    publish("front", 1.0);
+    publish("back", 3.0);
+
+    assertTrue(m_vision.update());
+    assertEquals("back", m_vision.getBestCameraName());
+    assertEquals(ROBOT_X, m_vision.getPose().getX(), 1e-3);
+    assertEquals(HUB.getY(), m_vision.getPose().getY(), 1e-3);
+
+    publish("front", 5.0);
+
+    assertTrue(m_vision.update());
+    assertEquals("front", m_vision.getBestCameraName());
+  }
+
+  @Test
+  public void fusesEveryCameraWithANewMeasurement() {
+    publish("front", 1.0);
+    publish("back", 4.0);
+
+    assertTrue(m_vision.update());
+    final List<VisionManager.Measurement> measurements = m_vision.getMeasurements();
+    assertEquals(2, measurements.size());
+    assertTrue(measurements.get(0).getTimestamp() <= measurements.get(1).getTimestamp());
+
+    final VisionManager.Measurement front = find(measurements, "front");
+    final VisionManager.Measurement back = find(measurements, "back");
+    assertEquals(ROBOT_X, front.getPose().getX(), 1e-3);
+    assertEquals(ROBOT_X, back.getPose().getX(), 1e-3);
+    assertTrue(back.getStdDevMeters() < front.getStdDevMeters());
+
+    assertFalse(m_vision.update());
+    assertTrue(m_vision.getMeasurements().isEmpty());
+  }
+
+  @Test
+  public void ignoresCamerasWithoutATarget() {
+    publish("front", 2.0);
+    publish("back", 0.0);
+
+    assertTrue(m_vision.update());
+    assertEquals("front", m_vision.getBestCameraName());
+    assertEquals(m_front.getFrame(), m_vision.getLatestTarget());
+  }
+
+  @Test
+  public void rejectsFramesAlreadyMeasured() {
+    publish("front", 1.0);
+
+    assertTrue(m_vision.update());
+    final double timestamp = m_vision.getTimestamp();
+    assertFalse(m_vision.update());
+    assertEquals(timestamp, m_vision.getTimestamp(), 0);
+
+    // Only the area changes, the latency is the same as in the last image
+    publish("front", 1.5);
+
+    assertTrue(m_vision.update());
+    assertTrue(m_vision.getTimestamp() > timestamp);
+  }
+
+  @Test
+  public void switchesPipelinesAndLedsWithTheMode() {
+    assertCamera("front", 0, Limelight.LedMode.OFF);
+    assertCamera("back", 3, Limelight.LedMode.OFF);
+
+    m_vision.setMode(RobotMode.AUTO);
+    assertCamera("front", 1, Limelight.LedMode.DEFAULT);
+    assertCamera("back", 4, Limelight.LedMode.DEFAULT);
+
+    m_vision.setMode(RobotMode.TELEOP);
+    assertCamera("front", 2, Limelight.LedMode.DEFAULT);
+    assertCamera("back", 5, Limelight.LedMode.DEFAULT);
+
+    m_vision.setIdle(true);
+    assertCamera("front", 2, Limelight.LedMode.OFF);
+    assertCamera("back", 5, Limelight.LedMode.OFF);
+
+    m_vision.setIdle(false);
+    m_vision.setMode(RobotMode.DISABLED);
+    assertCamera("front", 0, Limelight.LedMode.OFF);
+    assertCamera("back", 3, Limelight.LedMode.OFF);
+  }
+
+  /**
+   * Publishes a frame the way a Limelight does and waits until the robot side
+   * received it. NetworkTables only sends the entries that changed, so the
+   * frame must differ from the previous one of the camera.
+   *
+   * @param name The name of the Limelight
+   * @param area The target area, 0 for no target
+   */
+  private void publish(String name, double area) {
+    final Limelight limelight = name.equals("front") ? m_front : m_back;
+    final long id = limelight.getFrame().getId();
+
+    final NetworkTable table = m_client.getTable("limelight-" + name);
+    table.getEntry("tv").setDouble(area > 0 ? 1 : 0);
+    table.getEntry("tx").setDouble(0);
+    table.getEntry("ty").setDouble(TARGET_PITCH_DEGREES);
+    table.getEntry("ta").setDouble(area);
+    table.getEntry("tl").setDouble(20);
+    m_client.flush();
+
+    waitFor("frame from " + name, () -> limelight.getFrame().getId() > id);
+  }
+
+  /**
+   * Waits until the camera side sees the pipeline and LED mode.
+   */
+  private void assertCamera(String name, int pipeline, Limelight.LedMode ledMode) {
+    final NetworkTable table = m_client.getTable("limelight-" + name);
+    final int ledValue = ledMode == Limelight.LedMode.OFF ? 1 : 0;
+    m_server.flush();
+    waitFor(name + " pipeline " + pipeline + " and LEDs " + ledMode,
+        () -> table.getEntry("pipeline").getDouble(-1) == pipeline
+            && table.getEntry("ledMode").getDouble(-1) == ledValue);
+  }
+
+  private static VisionManager.Measurement find(List<VisionManager.Measurement> measurements, String name) {
+    for (VisionManager.Measurement measurement : measurements) {
+      if (measurement.getCameraName().equals(name)) {
+        return measurement;
+      }
+    }
+    throw new AssertionError("No measurement from " + name);
+  }
+
+  private static void waitFor(String what, BooleanSupplier condition) {
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new AssertionError("Timed out waiting for " + what);
+      }
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AssertionError("Interrupted waiting for " + what);
+      }
+    }
+  }
+}